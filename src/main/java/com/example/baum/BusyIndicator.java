@@ -0,0 +1,44 @@
+package com.example.baum;
+
+import javafx.scene.control.ProgressIndicator;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.example.baum.database.DatabaseExecutor;
+
+/**
+ * A small progress indicator that is shown while at least one tracked task is
+ * still running.
+ */
+public class BusyIndicator extends ProgressIndicator {
+    private int runningTasks;
+
+    /**
+     * Constructs a new BusyIndicator that is hidden until a task is tracked.
+     */
+    public BusyIndicator() {
+        super(ProgressIndicator.INDETERMINATE_PROGRESS);
+        setPrefSize(20, 20);
+        setMaxSize(20, 20);
+        managedProperty().bind(visibleProperty());
+        setVisible(false);
+    }
+
+    /**
+     * Shows the indicator until the specified task completes. Must be called on
+     * the JavaFX Application Thread.
+     *
+     * @param task the task to track
+     * @param <T>  the type of the task result
+     * @return the tracked task, for chaining
+     */
+    public <T> CompletableFuture<T> track(CompletableFuture<T> task) {
+        runningTasks++;
+        setVisible(true);
+        task.whenComplete((result, error) -> DatabaseExecutor.runOnFxThread(() -> {
+            runningTasks--;
+            setVisible(runningTasks > 0);
+        }));
+        return task;
+    }
+}
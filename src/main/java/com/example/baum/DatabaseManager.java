@@ -1,42 +1,112 @@
 package com.example.baum;
 
 import java.sql.*;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+import com.example.baum.database.ConnectionPool;
+import com.example.baum.database.DatabaseExecutor;
+import com.example.baum.database.QueryCache;
+import com.example.baum.database.SchemaMigrator;
+import com.example.baum.database.UnitOfWork;
+import com.example.baum.index.IdentityMap;
 
 /**
- * A utility class that manages the database connection and performs database
- * operations.
+ * A utility class that manages the database connections and performs database
+ * operations. Connections are served from a bounded connection pool, and
+ * asynchronous work runs on a {@link DatabaseExecutor}.
  */
-public class DatabaseManager {
-    private Connection connection;
+public class DatabaseManager implements AutoCloseable {
+    public static final int DEFAULT_MIN_POOL_SIZE = 2;
+    public static final int DEFAULT_MAX_POOL_SIZE = 10;
+
+    /**
+     * The number of days tombstones of deleted rows are kept.
+     */
+    private static final int TOMBSTONE_RETENTION_DAYS = 7;
+
+    /**
+     * The delay before the first purge of expired tombstones, in minutes.
+     */
+    private static final long TOMBSTONE_PURGE_DELAY_MINUTES = 1;
+
+    /**
+     * The interval between purges of expired tombstones, in minutes.
+     */
+    private static final long TOMBSTONE_PURGE_INTERVAL_MINUTES = 6 * 60;
+
+    /**
+     * The maximum number of tombstones deleted by one statement, so a purge
+     * never locks the table for long.
+     */
+    private static final int TOMBSTONE_PURGE_BATCH_SIZE = 10_000;
+
+    /**
+     * The maximum number of queries held by the query cache.
+     */
+    private static final int QUERY_CACHE_MAX_ENTRIES = 2000;
+
+    /**
+     * The maximum estimated size of the query cache, in bytes.
+     */
+    private static final long QUERY_CACHE_MAX_BYTES = 8L * 1024 * 1024;
+
+    private ConnectionPool connectionPool;
+    private final DatabaseExecutor databaseExecutor = new DatabaseExecutor();
+    private final Map<Class<?>, IdentityMap<?>> identityMaps = new ConcurrentHashMap<>();
+    private final QueryCache queryCache = new QueryCache(QUERY_CACHE_MAX_ENTRIES, QUERY_CACHE_MAX_BYTES);
+    private ScheduledExecutorService tombstonePurger;
 
     private String dbURL;
     private String username;
     private String password;
+    private int minPoolSize;
+    private int maxPoolSize;
 
     /**
      * Constructs a new `DatabaseManager` with the specified database connection
-     * settings.
+     * settings and the default pool size.
      *
      * @param dbURL    the URL of the database
      * @param username the username for the database connection
      * @param password the password for the database connection
      */
     public DatabaseManager(String dbURL, String username, String password) {
+        this(dbURL, username, password, DEFAULT_MIN_POOL_SIZE, DEFAULT_MAX_POOL_SIZE);
+    }
+
+    /**
+     * Constructs a new `DatabaseManager` with the specified database connection
+     * settings and pool size.
+     *
+     * @param dbURL       the URL of the database
+     * @param username    the username for the database connection
+     * @param password    the password for the database connection
+     * @param minPoolSize the number of connections kept open even when idle
+     * @param maxPoolSize the maximum number of connections open at the same time
+     */
+    public DatabaseManager(String dbURL, String username, String password, int minPoolSize, int maxPoolSize) {
         this.dbURL = dbURL;
         this.username = username;
         this.password = password;
+        this.minPoolSize = minPoolSize;
+        this.maxPoolSize = maxPoolSize;
     }
 
     /**
-     * Connects to the database using the specified connection settings.
+     * Connects to the database using the specified connection settings and
+     * opens the connection pool.
      */
     public void connect() {
+        connectionPool = new ConnectionPool(dbURL, username, password, minPoolSize, maxPoolSize);
         try {
-            connection = DriverManager.getConnection(dbURL, username, password);
+            connectionPool.start();
             System.out.println("Connected to the database!");
         } catch (SQLException e) {
             e.printStackTrace();
@@ -44,42 +114,175 @@ public class DatabaseManager {
     }
 
     /**
-     * Creates the database tables if they do not already exist.
+     * Brings the database schema up to date by applying the pending migrations,
+     * and schedules the purge of expired tombstones of deleted rows off the
+     * startup path. On a current schema no DDL runs.
+     *
+     * @throws SQLException if the schema cannot be migrated
      */
-    public void createTablesIfNotExists() {
-        String createTableQuery;
-        try {
-            byte[] bytes = Files.readAllBytes(Paths.get("MySQL/Generate.sql"));
-            createTableQuery = new String(bytes, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            e.printStackTrace();
-            return;
+    public void migrateSchema() throws SQLException {
+        try (Connection connection = getConnection()) {
+            long start = System.nanoTime();
+            int applied = new SchemaMigrator().migrate(connection);
+            System.out.println("Schema is up to date (" + applied + " migrations applied in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms).");
         }
+        scheduleTombstonePurge();
+    }
 
-        try {
-            Statement statement = connection.createStatement();
-            String[] queries = createTableQuery.split(";");
-
-            for (String query : queries) {
-                query = query.trim();
+    /**
+     * Starts purging expired tombstones periodically in the background, unless
+     * the purge is already scheduled.
+     */
+    private synchronized void scheduleTombstonePurge() {
+        if (tombstonePurger != null) {
+            return;
+        }
+        tombstonePurger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tombstone-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tombstonePurger.scheduleWithFixedDelay(this::purgeTombstones, TOMBSTONE_PURGE_DELAY_MINUTES,
+                TOMBSTONE_PURGE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
 
-                if (!query.isEmpty()) {
-                    statement.executeUpdate(query);
-                }
+    /**
+     * Deletes the tombstones older than the retention period, in batches.
+     */
+    private void purgeTombstones() {
+        String purgeQuery = "DELETE FROM `deleted_row` WHERE `deleted_at` < NOW() - INTERVAL "
+                + TOMBSTONE_RETENTION_DAYS + " DAY LIMIT " + TOMBSTONE_PURGE_BATCH_SIZE;
+        try (Connection connection = getConnection();
+                Statement statement = connection.createStatement()) {
+            long purged = 0;
+            int deleted;
+            do {
+                deleted = statement.executeUpdate(purgeQuery);
+                purged += deleted;
+            } while (deleted == TOMBSTONE_PURGE_BATCH_SIZE);
+            if (purged > 0) {
+                System.out.println("Purged " + purged + " expired tombstones.");
             }
-
-            System.out.println("All SQL commands executed successfully.");
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Returns the underlying `Connection` object for the database connection.
+     * Borrows a `Connection` from the connection pool. The caller must close the
+     * connection to hand it back to the pool. While a {@link UnitOfWork} runs
+     * on the current thread, the connection of the unit is returned instead,
+     * so the caller's statements join its transaction.
      *
      * @return the `Connection` object
+     * @throws SQLException if no connection could be obtained
+     */
+    public Connection getConnection() throws SQLException {
+        UnitOfWork unit = UnitOfWork.current();
+        if (unit != null) {
+            return unit.getConnection();
+        }
+        if (connectionPool == null) {
+            throw new SQLException("Not connected to the database.");
+        }
+        return connectionPool.getConnection();
+    }
+
+    /**
+     * Returns the connection pool serving this manager's connections.
+     *
+     * @return the `ConnectionPool`, or null if not connected
+     */
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Returns the identity map of an entity type, which resolves the IDs read
+     * by any query of this session to one canonical instance per ID. The map
+     * is created on first use.
+     *
+     * @param type the entity type
+     * @param idOf the function extracting the ID of an entity
+     * @param <T>  the entity type
+     * @return the identity map
+     */
+    @SuppressWarnings("unchecked")
+    public <T> IdentityMap<T> getIdentityMap(Class<T> type, ToIntFunction<T> idOf) {
+        return (IdentityMap<T>) identityMaps.computeIfAbsent(type, key -> new IdentityMap<>(idOf));
+    }
+
+    /**
+     * Returns the cache of the IDs read by queries of this session. Every
+     * write of a table must invalidate the table in the cache.
+     *
+     * @return the `QueryCache`
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    /**
+     * Runs a database task that produces a result off the JavaFX Application
+     * Thread.
+     *
+     * @param task the task to run
+     * @param <T>  the type of the result
+     * @return a future completed with the result of the task
+     */
+    public <T> CompletableFuture<T> supplyAsync(DatabaseExecutor.SqlSupplier<T> task) {
+        return databaseExecutor.supplyAsync(task);
+    }
+
+    /**
+     * Runs a database task without a result off the JavaFX Application Thread.
+     *
+     * @param task the task to run
+     * @return a future completed when the task is done
+     */
+    public CompletableFuture<Void> runAsync(DatabaseExecutor.SqlRunnable task) {
+        return databaseExecutor.runAsync(task);
+    }
+
+    /**
+     * Runs writes of several data classes in one transaction off the JavaFX
+     * Application Thread. The writes are committed together, and the in-memory
+     * updates they registered are applied on the JavaFX Application Thread
+     * afterwards. If the work fails, the transaction is rolled back and the
+     * in-memory state is left untouched.
+     *
+     * @param work the writes to group
+     * @param <T>  the type of the result
+     * @return a future completed with the result of the work once it is
+     *         committed and applied
+     */
+    public <T> CompletableFuture<T> transactAsync(UnitOfWork.Work<T> work) {
+        UnitOfWork unit = new UnitOfWork();
+        return databaseExecutor.supplyAsync(() -> unit.execute(getConnection(), work))
+                .thenApplyAsync(result -> {
+                    unit.applyCommitted();
+                    return result;
+                }, DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Stops the tombstone purge and closes the connection pool and all of its
+     * connections.
      */
-    public Connection getConnection() {
-        return connection;
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (tombstonePurger != null) {
+                tombstonePurger.shutdownNow();
+            }
+        }
+        databaseExecutor.close();
+        if (connectionPool != null) {
+            connectionPool.close();
+            System.out.println("Closed the database connections: " + connectionPool);
+        }
+        System.out.println("Query cache statistics: " + queryCache);
     }
 }
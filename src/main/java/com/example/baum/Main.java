@@ -13,6 +13,7 @@ import java.util.prefs.Preferences;
 import com.example.baum.company.CompanyData;
 import com.example.baum.company.CompanyPane;
 import com.example.baum.course.CourseData;
+import com.example.baum.database.DatabaseExecutor;
 import com.example.baum.course.CoursePane;
 import com.example.baum.room.RoomData;
 import com.example.baum.room.RoomPane;
@@ -85,16 +86,35 @@ public class Main extends Application {
         preferences.put("username", username);
         preferences.put("password", password);
 
+        if (databaseManager != null) {
+            databaseManager.close();
+        }
         databaseManager = new DatabaseManager(dbLink, username, password);
 
         try {
             databaseManager.connect();
-            databaseManager.createTablesIfNotExists();
-            initializeData();
+            databaseManager.migrateSchema();
         } catch (Exception e) {
             displayErrorAlert("Database Connection Error", "Failed to connect to the database.", e.getMessage());
         }
-        showMainApplication();
+
+        initializeData().referenceDataReady().whenCompleteAsync((result, error) -> {
+            if (error != null) {
+                displayErrorAlert("Database Connection Error", "Failed to load data from the database.",
+                        DatabaseExecutor.unwrap(error).getMessage());
+            }
+            showMainApplication();
+        }, DatabaseExecutor.FX_THREAD);
+    }
+
+    /**
+     * Closes the database connections when the application exits.
+     */
+    @Override
+    public void stop() {
+        if (databaseManager != null) {
+            databaseManager.close();
+        }
     }
 
     /**
@@ -113,18 +133,19 @@ public class Main extends Application {
     }
 
     /**
-     * Initializes the data objects and fetches data from the database.
+     * Initializes the data objects and starts fetching data from the database.
+     * The main window can be shown once the reference data is loaded; the
+     * students keep loading in the background.
+     *
+     * @return the loader fetching the data
      */
-    private void initializeData() {
+    private StartupLoader initializeData() {
         roomData = new RoomData(databaseManager);
         companyData = new CompanyData(databaseManager);
-        courseData = new CourseData(databaseManager, roomData, companyData);
+        courseData = new CourseData(databaseManager, roomData);
         studentData = new StudentData(databaseManager, courseData, companyData);
 
-        roomData.fetchRoomsFromDatabase();
-        courseData.fetchCoursesFromDatabase();
-        companyData.fetchCompaniesFromDatabase();
-        studentData.fetchStudentsFromDatabase();
+        return new StartupLoader(roomData, companyData, courseData, studentData).start();
     }
 
     /**
@@ -151,6 +172,12 @@ public class Main extends Application {
         tabPane.getSelectionModel().selectedItemProperty().addListener((observable, oldTab, newTab) -> {
             if (newTab == studentTab) {
                 ((StudentPane) studentTab.getContent()).reloadData();
+            } else if (newTab == courseTab) {
+                roomData.syncFromDatabase().thenCompose(ignored -> courseData.syncFromDatabase());
+            } else if (newTab == companyTab) {
+                companyData.syncFromDatabase();
+            } else if (newTab == roomTab) {
+                roomData.syncFromDatabase();
             }
         });
 
@@ -180,7 +207,7 @@ public class Main extends Application {
      * @return the created pane
      */
     private Pane createCoursePane() {
-        return new CoursePane(courseData, roomData);
+        return new CoursePane(courseData, roomData, studentData);
     }
 
     /**
@@ -189,7 +216,7 @@ public class Main extends Application {
      * @return the created pane
      */
     private Pane createCompanyPane() {
-        return new CompanyPane(companyData);
+        return new CompanyPane(companyData, studentData);
     }
 
     /**
@@ -198,7 +225,7 @@ public class Main extends Application {
      * @return the created pane
      */
     private Pane createRoomPane() {
-        return new RoomPane(roomData);
+        return new RoomPane(roomData, courseData);
     }
 
     public static void main(String[] args) {
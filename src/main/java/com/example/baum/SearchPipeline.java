@@ -0,0 +1,144 @@
+package com.example.baum;
+
+import javafx.animation.PauseTransition;
+import javafx.util.Duration;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import com.example.baum.database.DatabaseExecutor;
+import com.example.baum.database.QueryCancellation;
+
+/**
+ * Runs the search behind a search field. Search terms are debounced, so a
+ * query only runs once typing pauses. A newer term cancels the query still
+ * running for an older one, and results arriving for an outdated term are
+ * dropped, so the displayed results always belong to the latest term.
+ * <p>
+ * All methods must be called on the JavaFX Application Thread, and results are
+ * delivered on it.
+ *
+ * @param <T> the type of the search results
+ */
+public class SearchPipeline<T> {
+    private static final Duration DEFAULT_DEBOUNCE = Duration.millis(250);
+    private static final int DEFAULT_QUERY_TIMEOUT_SECONDS = 10;
+
+    private final Search<T> search;
+    private final Consumer<T> resultHandler;
+    private final BusyIndicator busyIndicator;
+    private final PauseTransition debounce = new PauseTransition(DEFAULT_DEBOUNCE);
+    private int queryTimeoutSeconds = DEFAULT_QUERY_TIMEOUT_SECONDS;
+    private long generation;
+    private String pendingTerm;
+    private QueryCancellation running;
+
+    /**
+     * Constructs a new SearchPipeline.
+     *
+     * @param search        the search to run for a term
+     * @param resultHandler the handler receiving the results of the latest term
+     * @param busyIndicator the indicator shown while a query runs
+     */
+    public SearchPipeline(Search<T> search, Consumer<T> resultHandler, BusyIndicator busyIndicator) {
+        this.search = search;
+        this.resultHandler = resultHandler;
+        this.busyIndicator = busyIndicator;
+        debounce.setOnFinished(event -> runPending());
+    }
+
+    /**
+     * Sets how long typing must pause before a query runs.
+     *
+     * @param window the debounce window
+     */
+    public void setDebounce(Duration window) {
+        debounce.setDuration(window);
+    }
+
+    /**
+     * Sets the timeout of the search queries.
+     *
+     * @param queryTimeoutSeconds the timeout in seconds, or 0 for none
+     */
+    public void setQueryTimeout(int queryTimeoutSeconds) {
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+    }
+
+    /**
+     * Submits a new search term. The query for it runs once the debounce window
+     * passes without another term being submitted.
+     *
+     * @param term the search term
+     */
+    public void submit(String term) {
+        generation++;
+        cancelRunning();
+        pendingTerm = term;
+        debounce.playFromStart();
+    }
+
+    /**
+     * Cancels the pending and the running query. Results still arriving are
+     * dropped.
+     */
+    public void cancel() {
+        generation++;
+        debounce.stop();
+        cancelRunning();
+    }
+
+    /**
+     * Runs the query for the pending term.
+     */
+    private void runPending() {
+        long queryGeneration = generation;
+        QueryCancellation cancellation = new QueryCancellation(queryTimeoutSeconds);
+        running = cancellation;
+
+        CompletableFuture<T> results = busyIndicator.track(search.search(pendingTerm, cancellation));
+        results.whenCompleteAsync((result, error) -> {
+            if (running == cancellation) {
+                running = null;
+            }
+            if (queryGeneration != generation) {
+                return;
+            }
+            if (error != null) {
+                if (!cancellation.isCancelled()) {
+                    DatabaseExecutor.printError(result, error);
+                }
+                return;
+            }
+            resultHandler.accept(result);
+        }, DatabaseExecutor.FX_THREAD);
+    }
+
+    /**
+     * Cancels the query still running for an older term, if any.
+     */
+    private void cancelRunning() {
+        if (running != null) {
+            running.cancel();
+            running = null;
+        }
+    }
+
+    /**
+     * A cancellable search.
+     *
+     * @param <T> the type of the search results
+     */
+    @FunctionalInterface
+    public interface Search<T> {
+        /**
+         * Starts a search in the background.
+         *
+         * @param term         the search term
+         * @param cancellation the cancellation to register the queries with
+         * @return a future completed with the results, or exceptionally if the
+         *         search failed or was cancelled
+         */
+        CompletableFuture<T> search(String term, QueryCancellation cancellation);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.baum;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import com.example.baum.company.CompanyData;
+import com.example.baum.course.CourseData;
+import com.example.baum.room.RoomData;
+import com.example.baum.student.StudentData;
+
+/**
+ * Loads the application data at startup following the dependencies between the
+ * tables: rooms and companies load in parallel and courses load as soon as the
+ * rooms are available. Students are hydrated together with their courses, rooms
+ * and companies in one query, so they load in parallel with everything else.
+ * Every phase borrows its own pooled connection and its duration is
+ * recorded.
+ */
+public class StartupLoader {
+    private final RoomData roomData;
+    private final CompanyData companyData;
+    private final CourseData courseData;
+    private final StudentData studentData;
+    private final Map<String, Long> phaseMillis = new LinkedHashMap<>();
+
+    private CompletableFuture<Void> referenceDataReady;
+    private CompletableFuture<Void> studentsReady;
+
+    /**
+     * Constructs a new StartupLoader for the specified data objects.
+     *
+     * @param roomData    the RoomData object to populate
+     * @param companyData the CompanyData object to populate
+     * @param courseData  the CourseData object to populate
+     * @param studentData the StudentData object to populate
+     */
+    public StartupLoader(RoomData roomData, CompanyData companyData, CourseData courseData,
+            StudentData studentData) {
+        this.roomData = roomData;
+        this.companyData = companyData;
+        this.courseData = courseData;
+        this.studentData = studentData;
+    }
+
+    /**
+     * Starts loading all data. Must be called on the JavaFX Application Thread.
+     *
+     * @return this loader, for chaining
+     */
+    public StartupLoader start() {
+        long start = System.nanoTime();
+
+        CompletableFuture<Void> rooms = runPhase("rooms", roomData::fetchRoomsAsync);
+        CompletableFuture<Void> companies = runPhase("companies", companyData::fetchCompaniesAsync);
+        CompletableFuture<Void> courses = rooms.thenCompose(
+                ignored -> runPhase("courses", courseData::fetchCoursesAsync));
+
+        referenceDataReady = CompletableFuture.allOf(companies, courses);
+        studentsReady = runPhase("students", studentData::fetchStudentsAsync);
+
+        // Not waited for, the phonetic search works on the students with codes
+        studentData.backfillPhoneticCodesAsync();
+
+        CompletableFuture.allOf(referenceDataReady, studentsReady).whenComplete((result, error) -> {
+            synchronized (phaseMillis) {
+                phaseMillis.put("total", (System.nanoTime() - start) / 1_000_000);
+                System.out.println("Startup data loaded: " + phaseMillis);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Starts a loading phase and records its duration once it completes.
+     *
+     * @param name  the name of the phase
+     * @param phase the action starting the phase
+     * @return a future completed when the phase is done
+     */
+    private CompletableFuture<Void> runPhase(String name, Supplier<CompletableFuture<Void>> phase) {
+        long start = System.nanoTime();
+        return phase.get().whenComplete((result, error) -> {
+            synchronized (phaseMillis) {
+                phaseMillis.put(name, (System.nanoTime() - start) / 1_000_000);
+            }
+        });
+    }
+
+    /**
+     * Returns a future that completes once rooms, companies and courses are
+     * loaded, which is everything needed to show the main window.
+     *
+     * @return the future for the reference data
+     */
+    public CompletableFuture<Void> referenceDataReady() {
+        return referenceDataReady;
+    }
+
+    /**
+     * Returns a future that completes once the students are loaded.
+     *
+     * @return the future for the student data
+     */
+    public CompletableFuture<Void> studentsReady() {
+        return studentsReady;
+    }
+
+    /**
+     * Returns the duration of each completed phase in milliseconds.
+     *
+     * @return the phase durations, in completion order
+     */
+    public Map<String, Long> getPhaseMillis() {
+        synchronized (phaseMillis) {
+            return new LinkedHashMap<>(phaseMillis);
+        }
+    }
+}
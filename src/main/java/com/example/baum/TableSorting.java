@@ -0,0 +1,151 @@
+package com.example.baum;
+
+import javafx.beans.binding.Bindings;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+import java.text.CollationKey;
+import java.util.Comparator;
+import java.util.function.Function;
+
+import com.example.baum.index.CollationKeys;
+
+/**
+ * Sorts tables by the cached collation keys of their rows. A table column
+ * compares its cell values, so sorting a name column would compare the names
+ * with plain string comparison, or decompose them again for every comparison
+ * with a collator. Columns given a collation key instead compare the keys the
+ * rows cache, which sorts German names correctly and only compares bytes.
+ * <p>
+ * All methods must be called on the JavaFX Application Thread.
+ */
+public final class TableSorting {
+    private static final String COLLATION_KEY = TableSorting.class.getName() + ".collationKey";
+
+    private TableSorting() {
+    }
+
+    /**
+     * Makes a column sort by the collation key of its rows.
+     *
+     * @param column the column
+     * @param key    the function returning the cached key of a row; may return
+     *               null, which sorts first
+     * @param <T>    the type of the rows
+     */
+    public static <T> void sortByCollationKey(TableColumn<T, ?> column, Function<T, CollationKey> key) {
+        column.getProperties().put(COLLATION_KEY, key);
+    }
+
+    /**
+     * Sorts the items of a table in place by its sort order. The collation keys
+     * of the rows are computed first, in parallel for large lists, so the sort
+     * itself only compares cached keys. The items may be the master list of a
+     * data class: sorting fires a permutation, which the indexes listening to
+     * the list skip, instead of replacing every row. Can be used as the sort
+     * policy of a table.
+     *
+     * @param table the table
+     * @param <T>   the type of the rows
+     * @return true, as the items are always sorted
+     */
+    public static <T> boolean sort(TableView<T> table) {
+        ObservableList<T> items = table.getItems();
+        Comparator<T> comparator = comparator(table);
+        if (items == null || comparator == null) {
+            return true;
+        }
+        precomputeKeys(items, table);
+        FXCollections.sort(items, comparator);
+        return true;
+    }
+
+    /**
+     * Binds the comparator of a sorted list to the sort order of a table. The
+     * keys of the rows are computed before the sorted list sorts by them.
+     *
+     * @param sortedList the sorted list the table shows
+     * @param table      the table
+     * @param <T>        the type of the rows
+     */
+    public static <T> void bind(SortedList<T> sortedList, TableView<T> table) {
+        sortedList.comparatorProperty().bind(Bindings.createObjectBinding(() -> {
+            Comparator<T> comparator = comparator(table);
+            if (comparator != null) {
+                precomputeKeys(sortedList.getSource(), table);
+            }
+            return comparator;
+        }, table.comparatorProperty()));
+    }
+
+    /**
+     * Returns the comparator for the sort order of a table. Columns given a
+     * collation key compare the keys of the rows, other columns their cell
+     * values with their comparator.
+     *
+     * @param table the table
+     * @param <T>   the type of the rows
+     * @return the comparator, or null if the table is not sorted
+     */
+    public static <T> Comparator<T> comparator(TableView<T> table) {
+        Comparator<T> comparator = null;
+        for (TableColumn<T, ?> column : table.getSortOrder()) {
+            Comparator<T> columnComparator = columnComparator(column);
+            if (column.getSortType() == TableColumn.SortType.DESCENDING) {
+                columnComparator = columnComparator.reversed();
+            }
+            comparator = comparator == null ? columnComparator : comparator.thenComparing(columnComparator);
+        }
+        return comparator;
+    }
+
+    /**
+     * Computes the collation keys of the rows for the sorted columns of a
+     * table, in parallel for large lists.
+     *
+     * @param rows  the rows
+     * @param table the table
+     * @param <T>   the type of the rows
+     */
+    private static <T> void precomputeKeys(ObservableList<? extends T> rows, TableView<T> table) {
+        for (TableColumn<T, ?> column : table.getSortOrder()) {
+            Function<T, CollationKey> key = collationKey(column);
+            if (key != null) {
+                CollationKeys.precompute(rows, key::apply);
+            }
+        }
+    }
+
+    /**
+     * Returns the ascending comparator of a column.
+     *
+     * @param column the column
+     * @param <T>    the type of the rows
+     * @return the comparator
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Comparator<T> columnComparator(TableColumn<T, ?> column) {
+        Function<T, CollationKey> key = collationKey(column);
+        if (key != null) {
+            return Comparator.comparing(key, Comparator.nullsFirst(Comparator.naturalOrder()));
+        }
+        TableColumn<T, Object> cellColumn = (TableColumn<T, Object>) column;
+        Comparator<Object> cellComparator = cellColumn.getComparator();
+        return (a, b) -> cellComparator.compare(cellColumn.getCellData(a), cellColumn.getCellData(b));
+    }
+
+    /**
+     * Returns the collation key function of a column.
+     *
+     * @param column the column
+     * @param <T>    the type of the rows
+     * @return the function, or null if the column compares its cell values
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Function<T, CollationKey> collationKey(TableColumn<T, ?> column) {
+        return (Function<T, CollationKey>) column.getProperties().get(COLLATION_KEY);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.baum;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
+import javafx.scene.control.ComboBox;
+import javafx.util.StringConverter;
+
+import com.example.baum.index.PrefixIndex;
+
+/**
+ * A combo box for picking an entity by typing the start of its name, or of a
+ * word of it. Instead of all entities, the popup lists the first matches of the
+ * typed text found in a prefix index, so it stays fast with many thousands of
+ * entities. The matches are updated as entities are added, renamed or removed.
+ * <p>
+ * The typed text is committed like in any editable combo box; text that is not
+ * the name of an entity commits no value.
+ *
+ * @param <T> the type of the entities
+ */
+public final class TypeaheadComboBox<T> extends ComboBox<T> {
+    /** The maximum number of matches listed in the popup. */
+    private static final int MAX_MATCHES = 100;
+
+    private final PrefixIndex<T> index;
+    private final ObservableList<T> matches = FXCollections.observableArrayList();
+    private final ListChangeListener<T> entityListener = change -> updateMatches();
+
+    /**
+     * Constructs a new TypeaheadComboBox.
+     *
+     * @param index      the prefix index over the names of the entities
+     * @param promptText the text to be displayed as a prompt
+     */
+    public TypeaheadComboBox(PrefixIndex<T> index, String promptText) {
+        this.index = index;
+        setItems(matches);
+        setEditable(true);
+        setPromptText(promptText);
+        setMaxWidth(Double.MAX_VALUE);
+        setVisibleRowCount(12);
+        setConverter(new StringConverter<>() {
+            @Override
+            public String toString(T entity) {
+                return entity != null ? index.nameOf(entity) : "";
+            }
+
+            @Override
+            public T fromString(String name) {
+                return name == null || name.isBlank() ? null : index.getByName(name);
+            }
+        });
+
+        getEditor().textProperty().addListener((observable, oldText, newText) -> {
+            if (newText.equals(getConverter().toString(getValue()))) {
+                return;
+            }
+            updateMatches();
+            if (isFocused() && !isShowing()) {
+                show();
+            }
+        });
+        setOnShowing(event -> updateMatches());
+        // Weak, so a combo box in a closed dialog does not stay registered
+        index.getList().addListener(new WeakListChangeListener<>(entityListener));
+        updateMatches();
+    }
+
+    /**
+     * Lists the matches of the typed text in the popup. The selected entity
+     * lists all entities again, so another one can be picked.
+     */
+    private void updateMatches() {
+        String text = getEditor().getText();
+        String prefix = text == null || text.equals(getConverter().toString(getValue())) ? "" : text;
+        // Replaced at once, so the combo box keeps its value
+        matches.setAll(index.search(prefix, MAX_MATCHES));
+    }
+}
@@ -5,19 +5,44 @@ import javafx.collections.ObservableList;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import com.example.baum.DatabaseManager;
+import com.example.baum.database.ChangeSet;
+import com.example.baum.database.ChangeTracker;
+import com.example.baum.database.DatabaseExecutor;
+import com.example.baum.database.FullTextSearch;
+import com.example.baum.database.QueryCancellation;
+import com.example.baum.database.ReadThroughLoader;
+import com.example.baum.index.EntityIndex;
+import com.example.baum.index.IdentityMap;
+import com.example.baum.index.PrefixIndex;
 
 /**
  * The CompanyData class manages the retrieval, addition, and removal of
  * companies from the database.
+ * Every operation is available synchronously and as an asynchronous variant
+ * that runs the database work off the JavaFX Application Thread and applies the
+ * result on it.
  */
 public class CompanyData {
+    private static final int SEARCH_LIMIT = 500;
+
     private final ObservableList<Company> companyList;
+    private final EntityIndex<Company> companyIndex;
+    private final IdentityMap<Company> identityMap;
+    private final ReadThroughLoader<Company> loader;
+    private final PrefixIndex<Company> namePrefixIndex;
+    private final ChangeTracker changeTracker = new ChangeTracker("company");
+    private final FullTextSearch<Company> nameSearch;
     private final DatabaseManager databaseManager;
 
     /**
@@ -28,6 +53,12 @@ public class CompanyData {
     public CompanyData(DatabaseManager databaseManager) {
         this.databaseManager = databaseManager;
         companyList = FXCollections.observableArrayList();
+        companyIndex = new EntityIndex<>(companyList, Company::getId, Company::getName);
+        namePrefixIndex = new PrefixIndex<>(companyList, Company::getName);
+        identityMap = databaseManager.getIdentityMap(Company.class, Company::getId);
+        identityMap.setListed(companyIndex::getById);
+        loader = new ReadThroughLoader<>(databaseManager, "company", identityMap, this::mapRow);
+        nameSearch = new FullTextSearch<>(databaseManager, "company", "name", loader);
     }
 
     /**
@@ -39,47 +70,212 @@ public class CompanyData {
         return companyList;
     }
 
+    /**
+     * Returns the prefix index over the names of the companies, which the company
+     * selection boxes search while the user types.
+     *
+     * @return The PrefixIndex over the company list.
+     */
+    public PrefixIndex<Company> getNamePrefixIndex() {
+        return namePrefixIndex;
+    }
+
     /**
      * Retrieves companies from the database and populates the company list.
      */
     public void fetchCompaniesFromDatabase() {
-        String selectQuery = "SELECT * FROM company";
         try {
-            Statement statement = databaseManager.getConnection().createStatement();
-            ResultSet resultSet = statement.executeQuery(selectQuery);
-            while (resultSet.next()) {
-                int id = resultSet.getInt("id");
-                String name = resultSet.getString("name");
-
-                Company company = new Company(id, name);
-                companyList.add(company);
-            }
+            mergeCompanies(loadCompanies());
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Retrieves companies from the database in the background and populates the
+     * company list on the JavaFX Application Thread.
+     *
+     * @return A future completed once the company list is populated.
+     */
+    public CompletableFuture<Void> fetchCompaniesAsync() {
+        return databaseManager.supplyAsync(this::loadCompanies)
+                .thenAcceptAsync(this::mergeCompanies, DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Synchronizes the company list with the database in the background. Only the
+     * companies changed or deleted since the last synchronization are fetched. If
+     * the companies have not been loaded yet, they are fetched in full.
+     *
+     * @return A future completed once the company list is up to date.
+     */
+    public CompletableFuture<Void> syncFromDatabase() {
+        if (!changeTracker.hasWatermark()) {
+            return fetchCompaniesAsync();
+        }
+        return databaseManager.supplyAsync(this::loadChanges)
+                .thenAcceptAsync(this::applyChanges, DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Loads the companies changed or deleted since the last synchronization.
+     *
+     * @return The changes.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private ChangeSet<Company> loadChanges() throws SQLException {
+        String changedQuery = "SELECT * FROM company WHERE updated_at >= ?";
+        try (Connection connection = databaseManager.getConnection()) {
+            return changeTracker.fetchChanges(connection, changedQuery,
+                    resultSet -> new Company(resultSet.getInt("id"), resultSet.getString("name")));
+        }
+    }
+
+    /**
+     * Applies changes loaded from the database to the company list. Changed companies
+     * are updated in place, so references to them stay valid.
+     *
+     * @param changes The changes to apply.
+     */
+    private void applyChanges(ChangeSet<Company> changes) {
+        if (!changes.isEmpty()) {
+            // Rows written by other clients may change cached query results and
+            // may have been looked up before they existed
+            databaseManager.getQueryCache().invalidate("company");
+            loader.forgetMissing();
+        }
+        for (Company changed : changes.getChanged()) {
+            Company existing = companyIndex.getById(changed.getId());
+            if (existing == null) {
+                companyList.add(changed);
+            } else if (!Objects.equals(existing.getName(), changed.getName())) {
+                existing.setName(changed.getName());
+                companyList.set(companyList.indexOf(existing), existing);
+            }
+        }
+        for (int id : changes.getDeletedIds()) {
+            Company existing = companyIndex.getById(id);
+            if (existing != null) {
+                companyList.remove(existing);
+            }
+        }
+    }
+
+    /**
+     * Loads all companies from the database.
+     *
+     * @return The loaded companies.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private List<Company> loadCompanies() throws SQLException {
+        List<Company> companies = new ArrayList<>();
+        String selectQuery = "SELECT * FROM company";
+        try (Connection connection = databaseManager.getConnection()) {
+            changeTracker.beginFullLoad(connection);
+            try (Statement statement = connection.createStatement();
+                    ResultSet resultSet = statement.executeQuery(selectQuery)) {
+                while (resultSet.next()) {
+                    int id = resultSet.getInt("id");
+                    String name = resultSet.getString("name");
+
+                    Company company = new Company(id, name);
+                    companies.add(company);
+                }
+            }
+        }
+        return companies;
+    }
+
+    /**
+     * Adds the specified companies to the company list, skipping companies whose
+     * ID is already present so that existing instances stay canonical.
+     *
+     * @param companies The companies to add.
+     */
+    private void mergeCompanies(List<Company> companies) {
+        for (Company company : companies) {
+            resolveCompany(company);
+        }
+    }
+
+    /**
+     * Returns the company in the company list with the same ID as the specified
+     * company. If the list has no such company, the specified company is added
+     * and returned, or the instance already mapped by a search, updated to the
+     * specified company. Must be called on the JavaFX Application Thread.
+     *
+     * @param company The company to resolve.
+     * @return The canonical company instance.
+     */
+    public Company resolveCompany(Company company) {
+        Company existing = companyIndex.getById(company.getId());
+        if (existing != null) {
+            return existing;
+        }
+        // A search may have mapped the company before it was listed
+        Company known = identityMap.get(company.getId());
+        if (known != null && known != company) {
+            known.setName(company.getName());
+            company = known;
+        }
+        companyList.add(company);
+        return company;
+    }
+
     /**
      * Adds a new company to the database and updates the company list.
      *
      * @param name The name of the company.
      */
     public void addCompany(String name) {
-        String insertQuery = "INSERT INTO company (name) VALUES (?)";
         try {
-            PreparedStatement statement = databaseManager.getConnection().prepareStatement(insertQuery);
-            statement.setString(1, name);
-            statement.executeUpdate();
-
-            int lastInsertedId = getLastInsertedId();
-            Company newCompany = new Company(lastInsertedId, name);
-            companyList.add(newCompany);
+            companyList.add(insertCompany(name));
             clearFields();
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Adds a new company in the background and appends it to the company list on
+     * the JavaFX Application Thread.
+     *
+     * @param name The name of the company.
+     * @return A future completed with the new company.
+     */
+    public CompletableFuture<Company> addCompanyAsync(String name) {
+        return databaseManager.supplyAsync(() -> insertCompany(name))
+                .thenApplyAsync(company -> {
+                    companyList.add(company);
+                    clearFields();
+                    return company;
+                }, DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Inserts a new company into the database.
+     *
+     * @param name The name of the company.
+     * @return The inserted company.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private Company insertCompany(String name) throws SQLException {
+        String insertQuery = "INSERT INTO company (name) VALUES (?)";
+        try (Connection connection = databaseManager.getConnection();
+                PreparedStatement statement = connection.prepareStatement(insertQuery)) {
+            statement.setString(1, name);
+            statement.executeUpdate();
+
+            int lastInsertedId = getLastInsertedId(connection);
+            return new Company(lastInsertedId, name);
+        } finally {
+            databaseManager.getQueryCache().invalidate("company");
+        }
+    }
+
     /**
      * Removes a company from the database and updates the company list.
      *
@@ -88,36 +284,104 @@ public class CompanyData {
     public void removeCompany(Company company) {
         if (company != null) {
             try {
-                String deleteQuery = "DELETE FROM company WHERE id = ?";
-                PreparedStatement statement = databaseManager.getConnection().prepareStatement(deleteQuery);
-                statement.setInt(1, company.getId());
-                statement.executeUpdate();
+                deleteCompany(company);
                 companyList.remove(company);
             } catch (SQLException e) {
-                // Display an error alert
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setTitle("Error: Delete Company");
-                alert.setHeaderText("Failed to delete the company.");
-                alert.setContentText("The company has associated students.");
-
-                alert.showAndWait();
+                showDeleteError();
             }
         }
     }
 
     /**
-     * Retrieves a company by its ID.
+     * Removes a company in the background and drops it from the company list on
+     * the JavaFX Application Thread.
+     *
+     * @param company The company to be removed.
+     * @return A future completed once the company is removed.
+     */
+    public CompletableFuture<Void> removeCompanyAsync(Company company) {
+        if (company == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return databaseManager.runAsync(() -> deleteCompany(company))
+                .whenCompleteAsync((result, error) -> {
+                    if (error == null) {
+                        companyList.remove(company);
+                    } else {
+                        showDeleteError();
+                    }
+                }, DatabaseExecutor.FX_THREAD);
+    }
+
+    /**
+     * Deletes a company from the database.
+     *
+     * @param company The company to be deleted.
+     * @throws SQLException If an SQL exception occurs, e.g. because the company
+     *                      has associated students.
+     */
+    private void deleteCompany(Company company) throws SQLException {
+        String deleteQuery = "DELETE FROM company WHERE id = ?";
+        try (Connection connection = databaseManager.getConnection();
+                PreparedStatement statement = connection.prepareStatement(deleteQuery)) {
+            statement.setInt(1, company.getId());
+            statement.executeUpdate();
+        } finally {
+            databaseManager.getQueryCache().invalidate("company");
+        }
+    }
+
+    /**
+     * Displays an error alert explaining why a company could not be deleted.
+     */
+    private void showDeleteError() {
+        // Display an error alert
+        Alert alert = new Alert(AlertType.ERROR);
+        alert.setTitle("Error: Delete Company");
+        alert.setHeaderText("Failed to delete the company.");
+        alert.setContentText("The company has associated students.");
+
+        alert.showAndWait();
+    }
+
+    /**
+     * Retrieves a company from the company list by its ID.
      *
      * @param id The ID of the company.
-     * @return The Company object with the specified ID, or null if not found.
+     * @return The Company object with the specified ID, or null if it is not
+     *         listed, e.g. because another client created it after the list was
+     *         loaded.
      */
     public Company getCompanyById(int id) {
-        for (Company company : companyList) {
-            if (company.getId() == id) {
-                return company;
-            }
-        }
-        return null; // Company with the specified ID not found
+        return companyIndex.getById(id);
+    }
+
+    /**
+     * Retrieves a company by its ID, reading a company not known in this
+     * session through to the database. Must not be called on the JavaFX
+     * Application Thread.
+     *
+     * @param id The ID of the company.
+     * @return The canonical Company object, or null if no company has the ID.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    public Company fetchCompanyById(int id) throws SQLException {
+        return loader.get(id);
+    }
+
+    /**
+     * Returns the canonical company of an ID read along with another row, like
+     * in a JOIN. A company not known in this session yet is built from the
+     * read columns, so references to it never dangle. May be called from any
+     * thread.
+     *
+     * @param id   The ID of the company.
+     * @param name The name of the company as read.
+     * @return The canonical Company object.
+     */
+    public Company mapCompany(int id, String name) {
+        Company company = identityMap.get(id);
+        return company != null ? company : identityMap.intern(new Company(id, name));
     }
 
     /**
@@ -127,25 +391,22 @@ public class CompanyData {
      * @return The Company object with the specified name, or null if not found.
      */
     public Company getCompanyByName(String name) {
-        for (Company company : companyList) {
-            if (company.getName().equals(name)) {
-                return company;
-            }
-        }
-        return null; // Company with the specified name not found
+        return companyIndex.getByName(name);
     }
 
     /**
      * Retrieves the last inserted ID from the database.
      *
+     * @param connection The connection the company was inserted on.
      * @return The last inserted ID, or -1 if not found.
      * @throws SQLException If an SQL exception occurs.
      */
-    private int getLastInsertedId() throws SQLException {
-        Statement statement = databaseManager.getConnection().createStatement();
-        ResultSet resultSet = statement.executeQuery("SELECT LAST_INSERT_ID()");
-        if (resultSet.next()) {
-            return resultSet.getInt(1);
+    private int getLastInsertedId(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT LAST_INSERT_ID()");
+                ResultSet resultSet = statement.executeQuery()) {
+            if (resultSet.next()) {
+                return resultSet.getInt(1);
+            }
         }
         return -1;
     }
@@ -157,12 +418,8 @@ public class CompanyData {
      * @return The ID of the company with the specified name, or -1 if not found.
      */
     public int getCompanyIdByName(String companyName) {
-        for (Company company : companyList) {
-            if (company.getName().equals(companyName)) {
-                return company.getId();
-            }
-        }
-        return -1; // Return -1 if the company with the specified name is not found
+        Company company = companyIndex.getByName(companyName);
+        return company != null ? company.getId() : -1; // Return -1 if the company with the specified name is not found
     }
 
     /**
@@ -182,22 +439,63 @@ public class CompanyData {
      * @return The ObservableList of matching Company objects.
      */
     public ObservableList<Company> searchCompaniesByName(String searchTerm) {
-        ObservableList<Company> searchResults = FXCollections.observableArrayList();
-        String searchQuery = "SELECT * FROM company WHERE LOWER(name) LIKE ?";
         try {
-            PreparedStatement statement = databaseManager.getConnection().prepareStatement(searchQuery);
-            statement.setString(1, "%" + searchTerm.toLowerCase() + "%");
-            ResultSet resultSet = statement.executeQuery();
-            while (resultSet.next()) {
-                int id = resultSet.getInt("id");
-                String name = resultSet.getString("name");
-
-                Company company = new Company(id, name);
-                searchResults.add(company);
-            }
+            return FXCollections.observableArrayList(queryCompaniesByName(searchTerm, null));
         } catch (SQLException e) {
             e.printStackTrace();
+            return FXCollections.observableArrayList();
         }
-        return searchResults;
+    }
+
+    /**
+     * Searches for companies by name in the background. The returned future
+     * completes on the JavaFX Application Thread.
+     *
+     * @param searchTerm The search term to match the company name.
+     * @return A future completed with the matching Company objects.
+     */
+    public CompletableFuture<ObservableList<Company>> searchCompaniesByNameAsync(String searchTerm) {
+        return searchCompaniesByNameAsync(searchTerm, null)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Searches for companies in the background with a query that can be cancelled.
+     * The returned future completes on the JavaFX Application Thread. Failures,
+     * including the cancellation, are left to the caller.
+     *
+     * @param searchTerm   The search term to match the company name.
+     * @param cancellation The cancellation to register the query with, or null.
+     * @return A future completed with the matching Company objects.
+     */
+    public CompletableFuture<ObservableList<Company>> searchCompaniesByNameAsync(String searchTerm,
+            QueryCancellation cancellation) {
+        return databaseManager.supplyAsync(() -> queryCompaniesByName(searchTerm, cancellation))
+                .thenApplyAsync(FXCollections::observableArrayList, DatabaseExecutor.FX_THREAD);
+    }
+
+    /**
+     * Maps a row of the company table to a company. Only rows not resolved through the
+     * identity map are mapped.
+     *
+     * @param resultSet the result set positioned on the row
+     * @return the company
+     * @throws SQLException if an SQL exception occurs
+     */
+    private Company mapRow(ResultSet resultSet) throws SQLException {
+        return new Company(resultSet.getInt("id"), resultSet.getString("name"));
+    }
+
+    /**
+     * Queries the companies with names matching the search term.
+     *
+     * @param searchTerm   The search term to match the company name.
+     * @param cancellation The cancellation to register the query with, or null.
+     * @return The matching Company objects.
+     * @throws SQLException If an SQL exception occurs or the query is cancelled.
+     */
+    private List<Company> queryCompaniesByName(String searchTerm, QueryCancellation cancellation)
+            throws SQLException {
+        return nameSearch.search(searchTerm, SEARCH_LIMIT, cancellation);
     }
 }
@@ -1,32 +1,49 @@
 package com.example.baum.company;
 
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 
+import com.example.baum.BusyIndicator;
+import com.example.baum.SearchPipeline;
+import com.example.baum.TableSorting;
+import com.example.baum.student.Student;
+import com.example.baum.student.StudentData;
+
 /**
  * A custom GridPane that represents the Company pane in the application.
- * It allows adding, removing, and searching for companies.
+ * It allows adding, removing, and searching for companies, and lists the
+ * students associated with the selected company.
  */
 public class CompanyPane extends GridPane {
     private final CompanyData companyData;
+    private final StudentData studentData;
     private final TextField nameField;
     private final Label errorLabel;
     private final TableView<Company> companyTableView;
+    private final TableView<Student> studentTableView;
+    private final BusyIndicator busyIndicator = new BusyIndicator();
 
     /**
-     * Constructs a CompanyPane with the specified CompanyData.
+     * Constructs a CompanyPane with the specified CompanyData and StudentData.
      *
      * @param companyData The CompanyData object to be used for managing companies.
+     * @param studentData The StudentData object to be used for listing the
+     *                    students of a company.
      */
-    public CompanyPane(CompanyData companyData) {
+    public CompanyPane(CompanyData companyData, StudentData studentData) {
         this.companyData = companyData;
+        this.studentData = studentData;
         this.nameField = createCompanyNameField();
         this.errorLabel = createCompanyErrorLabel();
         this.companyTableView = createCompanyTableView();
+        this.studentTableView = createStudentTableView();
 
         initialize();
     }
@@ -39,7 +56,8 @@ public class CompanyPane extends GridPane {
         Button addButton = createAddCompanyButton();
         Button removeButton = createRemoveCompanyButton();
 
-        configureLayout(nameField, addButton, removeButton, errorLabel, searchField, companyTableView);
+        configureLayout(nameField, addButton, removeButton, errorLabel, searchField,
+                companyTableView, studentTableView);
 
         this.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
     }
@@ -71,6 +89,26 @@ public class CompanyPane extends GridPane {
         errorLabel.getStyleClass().remove("error-label");
     }
 
+    /**
+     * Updates the TableView with the students associated with the selected
+     * company.
+     *
+     * @param company The selected Company object.
+     */
+    private void updateStudentTableView(Company company) {
+        if (company != null) {
+            busyIndicator.track(studentData.getCompanyStudentsAsync(company))
+                    .thenAccept(students -> {
+                        // Ignore results for a company that is no longer selected
+                        if (companyTableView.getSelectionModel().getSelectedItem() == company) {
+                            studentTableView.setItems(students);
+                        }
+                    });
+        } else {
+            studentTableView.setItems(FXCollections.observableArrayList());
+        }
+    }
+
     /**
      * Creates and configures the search field for searching companies.
      *
@@ -79,9 +117,11 @@ public class CompanyPane extends GridPane {
     private TextField createCompanySearchField() {
         TextField searchField = new TextField();
         searchField.setPromptText("Search Companies...");
+        SearchPipeline<ObservableList<Company>> searchPipeline =
+                new SearchPipeline<>(companyData::searchCompaniesByNameAsync, companyTableView::setItems, busyIndicator);
         searchField.textProperty().addListener((observable, oldValue, newValue) -> {
             String searchTerm = newValue.trim().toLowerCase();
-            companyTableView.setItems(companyData.searchCompaniesByName(searchTerm));
+            searchPipeline.submit(searchTerm);
         });
 
         return searchField;
@@ -123,8 +163,45 @@ public class CompanyPane extends GridPane {
 
         TableColumn<Company, String> nameColumn = new TableColumn<>("Company Name");
         nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
+        TableSorting.sortByCollationKey(nameColumn, Company::getNameKey);
+
+        table.getColumns().add(nameColumn);
+        table.setSortPolicy(TableSorting::sort);
+
+        // Update the student table when a company is selected
+        table.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
+            updateStudentTableView(newSelection);
+        });
+
+        return table;
+    }
+
+    /**
+     * Creates and configures the TableView for displaying the students of a
+     * company.
+     *
+     * @return The created TableView for displaying students.
+     */
+    private TableView<Student> createStudentTableView() {
+        TableView<Student> table = new TableView<>();
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+
+        TableColumn<Student, String> nameColumn = new TableColumn<>("Name");
+        nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
+        TableSorting.sortByCollationKey(nameColumn, Student::getNameKey);
+
+        TableColumn<Student, String> surnameColumn = new TableColumn<>("Surname");
+        surnameColumn.setCellValueFactory(new PropertyValueFactory<>("surname"));
+        TableSorting.sortByCollationKey(surnameColumn, Student::getSurnameKey);
+
+        TableColumn<Student, String> courseColumn = new TableColumn<>("Course");
+        courseColumn.setCellValueFactory(cellData -> cellData.getValue().getCourse().nameProperty());
+        TableSorting.sortByCollationKey(courseColumn, student -> student.getCourse().getNameKey());
 
         table.getColumns().add(nameColumn);
+        table.getColumns().add(surnameColumn);
+        table.getColumns().add(courseColumn);
+        table.setSortPolicy(TableSorting::sort);
 
         return table;
     }
@@ -144,9 +221,9 @@ public class CompanyPane extends GridPane {
             }
 
             clearValidationError();
-            companyData.addCompany(nameField.getText());
+            busyIndicator.track(companyData.addCompanyAsync(nameField.getText()))
+                    .thenRun(this::updateRoomTableView);
             nameField.clear();
-            updateRoomTableView();
         });
 
         return addButton;
@@ -163,8 +240,8 @@ public class CompanyPane extends GridPane {
         removeButton.setOnAction(e -> {
             Company selected = companyTableView.getSelectionModel().getSelectedItem();
             if (selected != null) {
-                companyData.removeCompany(selected);
-                updateRoomTableView();
+                busyIndicator.track(companyData.removeCompanyAsync(selected))
+                        .thenRun(this::updateRoomTableView);
             }
         });
 
@@ -182,10 +259,12 @@ public class CompanyPane extends GridPane {
      * @param errorLabel   The error label for displaying validation errors.
      * @param searchField  The TextField for searching companies.
      * @param table        The TableView for displaying companies.
+     * @param studentTable The TableView for displaying the students of the
+     *                     selected company.
      */
     private void configureLayout(TextField nameField, Button addButton,
             Button removeButton, Label errorLabel,
-            TextField searchField, TableView<Company> table) {
+            TextField searchField, TableView<Company> table, TableView<Student> studentTable) {
         this.setHgap(10);
         this.setVgap(10);
         this.setPadding(new Insets(10));
@@ -202,13 +281,17 @@ public class CompanyPane extends GridPane {
         this.add(addButton, 0, 1);
         this.add(removeButton, 1, 1);
         this.add(errorLabel, 0, 2, 2, 1);
-        this.add(searchField, 0, 3, 2, 1);
-        this.add(table, 0, 4, 2, 1);
+        this.add(new HBox(10, searchField, busyIndicator), 0, 3, 2, 1);
+        this.add(table, 0, 4);
+        this.add(studentTable, 1, 4);
 
         GridPane.setHgrow(nameField, Priority.ALWAYS);
         GridPane.setHgrow(addButton, Priority.ALWAYS);
         GridPane.setHgrow(removeButton, Priority.ALWAYS);
+        HBox.setHgrow(searchField, Priority.ALWAYS);
         GridPane.setHgrow(table, Priority.ALWAYS);
         GridPane.setVgrow(table, Priority.ALWAYS);
+        GridPane.setHgrow(studentTable, Priority.ALWAYS);
+        GridPane.setVgrow(studentTable, Priority.ALWAYS);
     }
 }
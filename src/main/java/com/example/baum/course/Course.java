@@ -5,13 +5,17 @@ import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.StringProperty;
 import javafx.beans.property.SimpleStringProperty;
 import com.example.baum.room.Room;
+import com.example.baum.index.CollationKeys;
+
+import java.text.CollationKey;
 
 /**
  * The Course class represents a course with its ID, name, and assigned room.
  */
 public class Course {
     private final int id;
-    private final String name;
+    private String name;
+    private CollationKey nameKey;
     private final ObjectProperty<Room> room;
 
     /**
@@ -45,6 +49,31 @@ public class Course {
         return name;
     }
 
+    /**
+     * Returns the collation key of the name of the course, which the tables sort
+     * by. The key is computed on first use and cached until the name changes.
+     *
+     * @return The collation key of the name.
+     */
+    public CollationKey getNameKey() {
+        CollationKey key = nameKey;
+        if (key == null) {
+            key = CollationKeys.of(name);
+            nameKey = key;
+        }
+        return key;
+    }
+
+    /**
+     * Sets the name of the course.
+     *
+     * @param name The name of the course.
+     */
+    public void setName(String name) {
+        this.name = name;
+        this.nameKey = null;
+    }
+
     /**
      * Returns the assigned room for the course.
      *
@@ -4,26 +4,55 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import com.example.baum.DatabaseManager;
-import com.example.baum.company.Company;
-import com.example.baum.company.CompanyData;
+import com.example.baum.database.ChangeSet;
+import com.example.baum.database.ChangeTracker;
+import com.example.baum.database.DatabaseExecutor;
+import com.example.baum.database.FullTextSearch;
+import com.example.baum.database.QueryCancellation;
+import com.example.baum.database.ReadThroughLoader;
+import com.example.baum.index.EntityIndex;
+import com.example.baum.index.IdentityMap;
+import com.example.baum.index.PrefixIndex;
+import com.example.baum.index.RelationIndex;
 import com.example.baum.room.RoomData;
-import com.example.baum.student.Student;
 import com.example.baum.room.Room;
 
 /**
  * The CourseData class manages the data and operations related to courses.
+ * Every operation is available synchronously and as an asynchronous variant
+ * that runs the database work off the JavaFX Application Thread and applies the
+ * result on it.
  */
 public class CourseData {
+    private static final int SEARCH_LIMIT = 500;
+
+    /**
+     * The query reading courses together with their rooms.
+     */
+    private static final String SELECT_WITH_ROOM_QUERY = "SELECT c.id, c.name, c.room_id, r.name AS room_name "
+            + "FROM course c JOIN room r ON r.id = c.room_id";
+
     private final ObservableList<Course> courseList;
+    private final EntityIndex<Course> courseIndex;
+    private final IdentityMap<Course> identityMap;
+    private final ReadThroughLoader<Course> loader;
+    private final PrefixIndex<Course> namePrefixIndex;
+    private final RelationIndex<Course> coursesByRoom;
+    private final ChangeTracker changeTracker = new ChangeTracker("course");
+    private final FullTextSearch<Course> nameSearch;
     private final DatabaseManager databaseManager;
     private final RoomData roomData;
-    private final CompanyData companyData;
 
     /**
      * Constructs a new CourseData object with the specified DatabaseManager and
@@ -34,47 +63,35 @@ public class CourseData {
      * @param roomData        The RoomData object used for accessing room
      *                        information.
      */
-    public CourseData(DatabaseManager databaseManager, RoomData roomData, CompanyData companyData) {
+    public CourseData(DatabaseManager databaseManager, RoomData roomData) {
         this.databaseManager = databaseManager;
         this.roomData = roomData;
-        this.companyData = companyData;
         courseList = FXCollections.observableArrayList();
+        courseIndex = new EntityIndex<>(courseList, Course::getId, Course::getName);
+        namePrefixIndex = new PrefixIndex<>(courseList, Course::getName);
+        // Edited courses are set again in the list, which re-indexes them
+        coursesByRoom = new RelationIndex<>(courseList, course -> course.getRoom() != null
+                ? course.getRoom().getId() : RelationIndex.NO_RELATION);
+        identityMap = databaseManager.getIdentityMap(Course.class, Course::getId);
+        identityMap.setListed(courseIndex::getById);
+        loader = new ReadThroughLoader<>(databaseManager, SELECT_WITH_ROOM_QUERY, "c.id", identityMap,
+                this::mapRow, ReadThroughLoader.DEFAULT_NEGATIVE_TTL_MILLIS);
+        nameSearch = new FullTextSearch<>(databaseManager, "course", "name", loader);
     }
 
     /**
-     * Retrieves the list of students enrolled in a course.
+     * Returns the courses held in a room, taken from an index of the course
+     * list without querying the database. Must be called on the JavaFX
+     * Application Thread.
      *
-     * @param course The course to retrieve the student list for.
-     * @return The ObservableList of students enrolled in the course.
+     * @param room The room.
+     * @return The ObservableList of courses held in the room.
      */
-    public ObservableList<Student> getCourseStudentList(Course course) {
-        ObservableList<Student> studentList = FXCollections.observableArrayList();
-        if (course != null) {
-            int courseId = course.getId();
-            String selectQuery = "SELECT * FROM student WHERE course_id = ?";
-            try {
-                PreparedStatement statement = databaseManager.getConnection().prepareStatement(selectQuery);
-                statement.setInt(1, courseId);
-                ResultSet resultSet = statement.executeQuery();
-                while (resultSet.next()) {
-                    int id = resultSet.getInt("id");
-                    String name = resultSet.getString("name");
-                    String surname = resultSet.getString("surname");
-                    int javaskills = resultSet.getInt("javaskills");
-                    int companyId = resultSet.getInt("Company_id");
-                    Company company = companyData.getCompanyById(companyId);
-
-                    // Create a new Student object
-                    Student student = new Student(name, surname, javaskills, course, company);
-                    student.setId(id);
-                    // Add the student to the list
-                    studentList.add(student);
-                }
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+    public ObservableList<Course> getRoomCourseList(Room room) {
+        if (room == null) {
+            return FXCollections.observableArrayList();
         }
-        return studentList;
+        return FXCollections.observableArrayList(coursesByRoom.get(room.getId()));
     }
 
     /**
@@ -86,60 +103,240 @@ public class CourseData {
         return courseList;
     }
 
+    /**
+     * Returns the prefix index over the names of the courses, which the course
+     * selection boxes search while the user types.
+     *
+     * @return The PrefixIndex over the course list.
+     */
+    public PrefixIndex<Course> getNamePrefixIndex() {
+        return namePrefixIndex;
+    }
+
     /**
      * Fetches courses from the database and populates the course list.
      */
     public void fetchCoursesFromDatabase() {
-        String selectQuery = "SELECT * FROM course";
         try {
-            Statement statement = databaseManager.getConnection().createStatement();
-            ResultSet resultSet = statement.executeQuery(selectQuery);
-            while (resultSet.next()) {
-                int id = resultSet.getInt("id");
-                String name = resultSet.getString("name");
-                int roomId = resultSet.getInt("room_id");
+            mergeCourses(loadCourses());
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Fetches courses from the database in the background and populates the
+     * course list on the JavaFX Application Thread. The rooms must already be
+     * loaded.
+     *
+     * @return A future completed once the course list is populated.
+     */
+    public CompletableFuture<Void> fetchCoursesAsync() {
+        return databaseManager.supplyAsync(this::loadCourses)
+                .thenAcceptAsync(this::mergeCourses, DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
 
-                Room room = roomData.getRoomById(roomId);
+    /**
+     * Synchronizes the course list with the database in the background. Only the
+     * courses changed or deleted since the last synchronization are fetched. If
+     * the courses have not been loaded yet, they are fetched in full.
+     *
+     * @return A future completed once the course list is up to date.
+     */
+    public CompletableFuture<Void> syncFromDatabase() {
+        if (!changeTracker.hasWatermark()) {
+            return fetchCoursesAsync();
+        }
+        return databaseManager.supplyAsync(this::loadChanges)
+                .thenAcceptAsync(this::applyChanges, DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
 
-                Course course = new Course(id, name, room);
-                courseList.add(course);
+    /**
+     * Loads the courses changed or deleted since the last synchronization,
+     * together with the names of their rooms.
+     *
+     * @return The changes.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private ChangeSet<Course> loadChanges() throws SQLException {
+        String changedQuery = "SELECT c.id, c.name, c.room_id, r.name AS room_name "
+                + "FROM course c JOIN room r ON r.id = c.room_id WHERE c.updated_at >= ?";
+        try (Connection connection = databaseManager.getConnection()) {
+            return changeTracker.fetchChanges(connection, changedQuery,
+                    resultSet -> new Course(resultSet.getInt("id"), resultSet.getString("name"),
+                            new Room(resultSet.getInt("room_id"), resultSet.getString("room_name"))));
+        }
+    }
+
+    /**
+     * Applies changes loaded from the database to the course list. Changed
+     * courses are updated in place, so references to them stay valid.
+     *
+     * @param changes The changes to apply.
+     */
+    private void applyChanges(ChangeSet<Course> changes) {
+        if (!changes.isEmpty()) {
+            // Rows written by other clients may change cached query results and
+            // may have been looked up before they existed
+            databaseManager.getQueryCache().invalidate("course");
+            loader.forgetMissing();
+        }
+        for (Course changed : changes.getChanged()) {
+            Course existing = courseIndex.getById(changed.getId());
+            if (existing == null) {
+                resolveCourse(changed);
+                continue;
+            }
+            Room room = roomData.resolveRoom(changed.getRoom());
+            if (!Objects.equals(existing.getName(), changed.getName()) || existing.getRoom() != room) {
+                existing.setName(changed.getName());
+                existing.roomProperty().set(room);
+                courseList.set(courseList.indexOf(existing), existing);
+            }
+        }
+        for (int id : changes.getDeletedIds()) {
+            Course existing = courseIndex.getById(id);
+            if (existing != null) {
+                courseList.remove(existing);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
     }
 
     /**
-     * Updates the details of a course in the database and the course list.
+     * Loads all courses from the database.
      *
-     * @param course The Course object to be updated.
+     * @return The loaded courses.
+     * @throws SQLException If an SQL exception occurs.
      */
-    public void updateCourse(Course course) {
-        if (course != null) {
-            try {
-                String updateQuery = "UPDATE course SET name = ?, room_id = ? WHERE id = ?";
-                PreparedStatement statement = databaseManager.getConnection().prepareStatement(updateQuery);
-                statement.setString(1, course.getName());
-                statement.setInt(2, course.getRoom().getId());
-                statement.setInt(3, course.getId());
-                statement.executeUpdate();
-                int index = -1;
-                for (int i = 0; i < courseList.size(); i++) {
-                    if (courseList.get(i).getId() == course.getId()) {
-                        index = i;
-                        break;
-                    }
+    private List<Course> loadCourses() throws SQLException {
+        List<Course> courses = new ArrayList<>();
+        try (Connection connection = databaseManager.getConnection()) {
+            changeTracker.beginFullLoad(connection);
+            try (Statement statement = connection.createStatement();
+                    ResultSet resultSet = statement.executeQuery(SELECT_WITH_ROOM_QUERY)) {
+                while (resultSet.next()) {
+                    // Rooms created after the room list was loaded are read along
+                    courses.add(mapRow(resultSet));
                 }
+            }
+        }
+        return courses;
+    }
 
-                if (index != -1) {
-                    courseList.set(index, course);
-                }
+    /**
+     * Adds the specified courses to the course list, skipping courses whose ID
+     * is already present so that existing instances stay canonical.
+     *
+     * @param courses The courses to add.
+     */
+    private void mergeCourses(List<Course> courses) {
+        for (Course course : courses) {
+            resolveCourse(course);
+        }
+    }
+
+    /**
+     * Returns the course in the course list with the same ID as the specified
+     * course. If the list has no such course, the specified course is added with
+     * its room resolved and is returned, or the instance already mapped by a
+     * search, updated to the specified course. Must be called on the JavaFX
+     * Application Thread.
+     *
+     * @param course The course to resolve.
+     * @return The canonical course instance.
+     */
+    public Course resolveCourse(Course course) {
+        Course existing = courseIndex.getById(course.getId());
+        if (existing != null) {
+            return existing;
+        }
+        Room room = course.getRoom() != null ? roomData.resolveRoom(course.getRoom()) : null;
+        // A search may have mapped the course before it was listed
+        Course known = identityMap.get(course.getId());
+        if (known != null && known != course) {
+            known.setName(course.getName());
+            course = known;
+        }
+        if (room != null) {
+            course.roomProperty().set(room);
+        }
+        courseList.add(course);
+        return course;
+    }
+
+    /**
+     * Updates the details of a course in the database and the course list. The
+     * course is updated in place, so references to it stay valid.
+     *
+     * @param course  The Course object to be updated.
+     * @param details A detached copy of the course holding the new details.
+     */
+    public void updateCourse(Course course, Course details) {
+        if (course != null) {
+            try {
+                writeCourse(details);
+                applyDetails(course, details);
             } catch (SQLException e) {
                 e.printStackTrace();
             }
         }
     }
 
+    /**
+     * Updates the details of a course in the background and applies them to the
+     * course in place on the JavaFX Application Thread, so references to it
+     * stay valid.
+     *
+     * @param course  The Course object to be updated.
+     * @param details A detached copy of the course holding the new details.
+     * @return A future completed once the course is updated.
+     */
+    public CompletableFuture<Void> updateCourseAsync(Course course, Course details) {
+        if (course == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return databaseManager.runAsync(() -> writeCourse(details))
+                .thenRunAsync(() -> applyDetails(course, details), DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Writes the details of a course to the database.
+     *
+     * @param course The Course object to be written.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private void writeCourse(Course course) throws SQLException {
+        String updateQuery = "UPDATE course SET name = ?, room_id = ? WHERE id = ?";
+        try (Connection connection = databaseManager.getConnection();
+                PreparedStatement statement = connection.prepareStatement(updateQuery)) {
+            statement.setString(1, course.getName());
+            statement.setInt(2, course.getRoom().getId());
+            statement.setInt(3, course.getId());
+            statement.executeUpdate();
+        } finally {
+            databaseManager.getQueryCache().invalidate("course");
+        }
+    }
+
+    /**
+     * Applies written details to a course and sets it again in the course
+     * list, so the indexes and the tables showing it pick up the change.
+     *
+     * @param course  The Course object to be updated.
+     * @param details The written details.
+     */
+    private void applyDetails(Course course, Course details) {
+        course.setName(details.getName());
+        course.roomProperty().set(roomData.resolveRoom(details.getRoom()));
+        int index = courseList.indexOf(course);
+        if (index != -1) {
+            courseList.set(index, course);
+        }
+    }
+
     /**
      * Adds a new course to the database and the course list.
      *
@@ -147,19 +344,51 @@ public class CourseData {
      * @param roomId The ID of the assigned room for the course.
      */
     public void addCourse(String name, int roomId) {
-        String insertQuery = "INSERT INTO course (name, room_id) VALUES (?, ?)";
         try {
-            PreparedStatement statement = databaseManager.getConnection().prepareStatement(insertQuery);
+            courseList.add(insertCourse(name, roomId));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Adds a new course in the background and appends it to the course list on
+     * the JavaFX Application Thread.
+     *
+     * @param name   The name of the course.
+     * @param roomId The ID of the assigned room for the course.
+     * @return A future completed with the new course.
+     */
+    public CompletableFuture<Course> addCourseAsync(String name, int roomId) {
+        return databaseManager.supplyAsync(() -> insertCourse(name, roomId))
+                .thenApplyAsync(course -> {
+                    courseList.add(course);
+                    return course;
+                }, DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Inserts a new course into the database.
+     *
+     * @param name   The name of the course.
+     * @param roomId The ID of the assigned room for the course.
+     * @return The inserted course.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private Course insertCourse(String name, int roomId) throws SQLException {
+        String insertQuery = "INSERT INTO course (name, room_id) VALUES (?, ?)";
+        try (Connection connection = databaseManager.getConnection();
+                PreparedStatement statement = connection.prepareStatement(insertQuery)) {
             statement.setString(1, name);
             statement.setInt(2, roomId);
             statement.executeUpdate();
 
-            int lastInsertedId = getLastInsertedId();
+            int lastInsertedId = getLastInsertedId(connection);
             Room room = roomData.getRoomById(roomId);
-            Course newCourse = new Course(lastInsertedId, name, room);
-            courseList.add(newCourse);
-        } catch (SQLException e) {
-            e.printStackTrace();
+            return new Course(lastInsertedId, name, room);
+        } finally {
+            databaseManager.getQueryCache().invalidate("course");
         }
     }
 
@@ -171,36 +400,105 @@ public class CourseData {
     public void removeCourse(Course course) {
         if (course != null) {
             try {
-                String deleteQuery = "DELETE FROM course WHERE id = ?";
-                PreparedStatement statement = databaseManager.getConnection().prepareStatement(deleteQuery);
-                statement.setInt(1, course.getId());
-                statement.executeUpdate();
+                deleteCourse(course);
                 courseList.remove(course);
             } catch (SQLException e) {
-                // Display an error alert
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setTitle("Error: Delete Course");
-                alert.setHeaderText("Failed to delete the course.");
-                alert.setContentText("The course has associated students.");
-
-                alert.showAndWait();
+                showDeleteError();
             }
         }
     }
 
+    /**
+     * Removes a course in the background and drops it from the course list on
+     * the JavaFX Application Thread.
+     *
+     * @param course The Course object to be removed.
+     * @return A future completed once the course is removed.
+     */
+    public CompletableFuture<Void> removeCourseAsync(Course course) {
+        if (course == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return databaseManager.runAsync(() -> deleteCourse(course))
+                .whenCompleteAsync((result, error) -> {
+                    if (error == null) {
+                        courseList.remove(course);
+                    } else {
+                        showDeleteError();
+                    }
+                }, DatabaseExecutor.FX_THREAD);
+    }
+
+    /**
+     * Deletes a course from the database.
+     *
+     * @param course The Course object to be deleted.
+     * @throws SQLException If an SQL exception occurs, e.g. because the course
+     *                      has associated students.
+     */
+    private void deleteCourse(Course course) throws SQLException {
+        String deleteQuery = "DELETE FROM course WHERE id = ?";
+        try (Connection connection = databaseManager.getConnection();
+                PreparedStatement statement = connection.prepareStatement(deleteQuery)) {
+            statement.setInt(1, course.getId());
+            statement.executeUpdate();
+        } finally {
+            databaseManager.getQueryCache().invalidate("course");
+        }
+    }
+
+    /**
+     * Displays an error alert explaining why a course could not be deleted.
+     */
+    private void showDeleteError() {
+        // Display an error alert
+        Alert alert = new Alert(AlertType.ERROR);
+        alert.setTitle("Error: Delete Course");
+        alert.setHeaderText("Failed to delete the course.");
+        alert.setContentText("The course has associated students.");
+
+        alert.showAndWait();
+    }
+
     /**
      * Retrieves a course from the course list based on the course ID.
      *
      * @param courseId The ID of the course to retrieve.
-     * @return The Course object with the specified ID, or null if not found.
+     * @return The Course object with the specified ID, or null if it is not
+     *         listed, e.g. because another client created it after the list
+     *         was loaded.
      */
     public Course getCourseById(int courseId) {
-        for (Course course : courseList) {
-            if (course.getId() == courseId) {
-                return course;
-            }
-        }
-        return null;
+        return courseIndex.getById(courseId);
+    }
+
+    /**
+     * Retrieves a course by its ID, reading a course not known in this session
+     * through to the database together with its room. Must not be called on
+     * the JavaFX Application Thread.
+     *
+     * @param courseId The ID of the course to retrieve.
+     * @return The canonical Course object, or null if no course has the ID.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    public Course fetchCourseById(int courseId) throws SQLException {
+        return loader.get(courseId);
+    }
+
+    /**
+     * Returns the canonical course of an ID read along with another row, like
+     * in a JOIN. A course not known in this session yet is built from the read
+     * columns, so references to it never dangle. May be called from any
+     * thread.
+     *
+     * @param courseId The ID of the course.
+     * @param name     The name of the course as read.
+     * @param room     The canonical room of the course.
+     * @return The canonical Course object.
+     */
+    public Course mapCourse(int courseId, String name, Room room) {
+        Course course = identityMap.get(courseId);
+        return course != null ? course : identityMap.intern(new Course(courseId, name, room));
     }
 
     /**
@@ -210,12 +508,7 @@ public class CourseData {
      * @return The Course object with the specified name, or null if not found.
      */
     public Course getCourseByName(String courseName) {
-        for (Course course : courseList) {
-            if (course.getName().equals(courseName)) {
-                return course;
-            }
-        }
-        return null;
+        return courseIndex.getByName(courseName);
     }
 
     /**
@@ -225,29 +518,36 @@ public class CourseData {
      * @return The ID of the course with the specified name, or -1 if not found.
      */
     public int getCourseIdByName(String courseName) {
-        for (Course course : courseList) {
-            if (course.getName().equals(courseName)) {
-                return course.getId();
-            }
-        }
-        return -1; // Return -1 if the course with the specified name is not found
+        Course course = courseIndex.getByName(courseName);
+        return course != null ? course.getId() : -1; // Return -1 if the course with the specified name is not found
     }
 
     /**
      * Retrieves the last inserted ID from the database.
      *
+     * @param connection The connection the course was inserted on.
      * @return The last inserted ID, or -1 if not found.
      * @throws SQLException If an SQL exception occurs.
      */
-    private int getLastInsertedId() throws SQLException {
-        Statement statement = databaseManager.getConnection().createStatement();
-        ResultSet resultSet = statement.executeQuery("SELECT LAST_INSERT_ID()");
-        if (resultSet.next()) {
-            return resultSet.getInt(1);
+    private int getLastInsertedId(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT LAST_INSERT_ID()");
+                ResultSet resultSet = statement.executeQuery()) {
+            if (resultSet.next()) {
+                return resultSet.getInt(1);
+            }
         }
         return -1;
     }
 
+    /**
+     * Returns the RoomData object the courses' rooms are resolved through.
+     *
+     * @return The RoomData object.
+     */
+    public RoomData getRoomData() {
+        return roomData;
+    }
+
     /**
      * Returns the list of rooms.
      *
@@ -264,25 +564,65 @@ public class CourseData {
      * @return The ObservableList of search results.
      */
     public ObservableList<Course> searchCoursesByName(String searchTerm) {
-        ObservableList<Course> searchResults = FXCollections.observableArrayList();
-        String searchQuery = "SELECT * FROM course WHERE LOWER(name) LIKE ?";
         try {
-            PreparedStatement statement = databaseManager.getConnection().prepareStatement(searchQuery);
-            statement.setString(1, "%" + searchTerm.toLowerCase() + "%");
-            ResultSet resultSet = statement.executeQuery();
-            while (resultSet.next()) {
-                int id = resultSet.getInt("id");
-                String name = resultSet.getString("name");
-                int roomId = resultSet.getInt("room_id");
-
-                Room room = roomData.getRoomById(roomId);
-
-                Course course = new Course(id, name, room);
-                searchResults.add(course);
-            }
+            return FXCollections.observableArrayList(queryCoursesByName(searchTerm, null));
         } catch (SQLException e) {
             e.printStackTrace();
+            return FXCollections.observableArrayList();
         }
-        return searchResults;
     }
-}
\ No newline at end of file
+
+    /**
+     * Searches for courses in the background. The returned future completes on
+     * the JavaFX Application Thread.
+     *
+     * @param searchTerm The search term to match against course names.
+     * @return A future completed with the search results.
+     */
+    public CompletableFuture<ObservableList<Course>> searchCoursesByNameAsync(String searchTerm) {
+        return searchCoursesByNameAsync(searchTerm, null)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Searches for courses in the background with a query that can be cancelled.
+     * The returned future completes on the JavaFX Application Thread. Failures,
+     * including the cancellation, are left to the caller.
+     *
+     * @param searchTerm   The search term to match against course names.
+     * @param cancellation The cancellation to register the query with, or null.
+     * @return A future completed with the search results.
+     */
+    public CompletableFuture<ObservableList<Course>> searchCoursesByNameAsync(String searchTerm,
+            QueryCancellation cancellation) {
+        return databaseManager.supplyAsync(() -> queryCoursesByName(searchTerm, cancellation))
+                .thenApplyAsync(FXCollections::observableArrayList, DatabaseExecutor.FX_THREAD);
+    }
+
+    /**
+     * Maps a row of {@link #SELECT_WITH_ROOM_QUERY} to a course. Only rows not
+     * resolved through the identity map are mapped. The room is read along, so
+     * it is never missing.
+     *
+     * @param resultSet the result set positioned on the row
+     * @return the course
+     * @throws SQLException if an SQL exception occurs
+     */
+    private Course mapRow(ResultSet resultSet) throws SQLException {
+        Room room = roomData.mapRoom(resultSet.getInt("room_id"), resultSet.getString("room_name"));
+        return new Course(resultSet.getInt("id"), resultSet.getString("name"), room);
+    }
+
+    /**
+     * Queries the courses with names matching the specified search term.
+     *
+     * @param searchTerm   The search term to match against course names.
+     * @param cancellation The cancellation to register the query with, or null.
+     * @return The matching courses.
+     * @throws SQLException If an SQL exception occurs or the query is cancelled.
+     */
+    private List<Course> queryCoursesByName(String searchTerm, QueryCancellation cancellation)
+            throws SQLException {
+        return nameSearch.search(searchTerm, SEARCH_LIMIT, cancellation);
+    }
+}
@@ -1,10 +1,15 @@
 package com.example.baum.course;
 
+import com.example.baum.BusyIndicator;
+import com.example.baum.SearchPipeline;
+import com.example.baum.TableSorting;
 import com.example.baum.room.Room;
 import com.example.baum.room.RoomData;
 import com.example.baum.student.Student;
+import com.example.baum.student.StudentData;
 
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -19,18 +24,23 @@ import javafx.scene.layout.Priority;
 public class CoursePane extends GridPane {
     private CourseData courseData;
     private RoomData roomData;
+    private StudentData studentData;
     private final TableView<Course> courseTableView;
     private final TableView<Student> studentTableView;
+    private final BusyIndicator busyIndicator = new BusyIndicator();
 
     /**
-     * Constructs a new CoursePane with the specified CourseData and RoomData.
+     * Constructs a new CoursePane with the specified CourseData, RoomData and
+     * StudentData.
      *
-     * @param courseData the CourseData object containing the course information
-     * @param roomData   the RoomData object containing the room information
+     * @param courseData  the CourseData object containing the course information
+     * @param roomData    the RoomData object containing the room information
+     * @param studentData the StudentData object containing the student information
      */
-    public CoursePane(CourseData courseData, RoomData roomData) {
+    public CoursePane(CourseData courseData, RoomData roomData, StudentData studentData) {
         this.courseData = courseData;
         this.roomData = roomData;
+        this.studentData = studentData;
         this.courseTableView = createCourseTableView();
         this.studentTableView = createStudentTableView();
         initialize();
@@ -66,7 +76,13 @@ public class CoursePane extends GridPane {
      */
     private void updateStudentTableView(Course course) {
         if (course != null) {
-            studentTableView.setItems(courseData.getCourseStudentList(course));
+            busyIndicator.track(studentData.getCourseStudentsAsync(course))
+                    .thenAccept(students -> {
+                        // Ignore results for a course that is no longer selected
+                        if (courseTableView.getSelectionModel().getSelectedItem() == course) {
+                            studentTableView.setItems(students);
+                        }
+                    });
         } else {
             studentTableView.setItems(FXCollections.observableArrayList());
         }
@@ -87,9 +103,12 @@ public class CoursePane extends GridPane {
 
         TableColumn<Course, String> roomColumn = new TableColumn<>("Room");
         roomColumn.setCellValueFactory(cellData -> cellData.getValue().getRoom().nameProperty());
+        TableSorting.sortByCollationKey(nameColumn, Course::getNameKey);
+        TableSorting.sortByCollationKey(roomColumn, course -> course.getRoom().getNameKey());
 
         table.getColumns().add(nameColumn);
         table.getColumns().add(roomColumn);
+        table.setSortPolicy(TableSorting::sort);
 
         // Add listener to update the student table when a course is selected
         table.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
@@ -113,6 +132,8 @@ public class CoursePane extends GridPane {
 
         TableColumn<Student, String> surnameColumn = new TableColumn<>("Surname");
         surnameColumn.setCellValueFactory(new PropertyValueFactory<>("surname"));
+        TableSorting.sortByCollationKey(nameColumn, Student::getNameKey);
+        TableSorting.sortByCollationKey(surnameColumn, Student::getSurnameKey);
 
         TableColumn<Student, Integer> javaSkillsColumn = new TableColumn<>("Java Skills");
         javaSkillsColumn.setCellValueFactory(new PropertyValueFactory<>("javaSkills"));
@@ -146,8 +167,10 @@ public class CoursePane extends GridPane {
 
         TableColumn<Student, String> companyNameColumn = new TableColumn<>("Company");
         companyNameColumn.setCellValueFactory(cellData -> cellData.getValue().getCompany().nameProperty());
+        TableSorting.sortByCollationKey(companyNameColumn, student -> student.getCompany().getNameKey());
 
         table.getColumns().addAll(nameColumn, surnameColumn, javaSkillsColumn, companyNameColumn);
+        table.setSortPolicy(TableSorting::sort);
 
         return table;
     }
@@ -161,9 +184,11 @@ public class CoursePane extends GridPane {
     private TextField createCourseSearchField(TableView<Course> table) {
         TextField searchField = new TextField();
         searchField.setPromptText("Search Courses...");
+        SearchPipeline<ObservableList<Course>> searchPipeline =
+                new SearchPipeline<>(courseData::searchCoursesByNameAsync, table::setItems, busyIndicator);
         searchField.textProperty().addListener((observable, oldValue, newValue) -> {
             String searchTerm = newValue.trim().toLowerCase();
-            table.setItems(courseData.searchCoursesByName(searchTerm));
+            searchPipeline.submit(searchTerm);
         });
 
         return searchField;
@@ -244,10 +269,10 @@ public class CoursePane extends GridPane {
 
             clearValidationError(errorLabel);
 
-            courseData.addCourse(nameField.getText(), selectedRoom.getId());
+            busyIndicator.track(courseData.addCourseAsync(nameField.getText(), selectedRoom.getId()))
+                    .thenRun(this::updateCourseTableView);
             nameField.clear();
             roomComboBox.getSelectionModel().clearSelection();
-            updateCourseTableView();
         });
 
         return addButton;
@@ -322,9 +347,9 @@ public class CoursePane extends GridPane {
             return null;
         });
 
-        dialog.showAndWait().ifPresent(editedCourse -> {
-            courseData.updateCourse(editedCourse);
-            updateCourseTableView();
+        dialog.showAndWait().ifPresent(details -> {
+            busyIndicator.track(courseData.updateCourseAsync(course, details))
+                    .thenRun(this::updateCourseTableView);
         });
     }
 
@@ -360,8 +385,8 @@ public class CoursePane extends GridPane {
         removeButton.setOnAction(e -> {
             Course selectedCourse = table.getSelectionModel().getSelectedItem();
             if (selectedCourse != null) {
-                courseData.removeCourse(selectedCourse);
-                updateCourseTableView();
+                busyIndicator.track(courseData.removeCourseAsync(selectedCourse))
+                        .thenRun(this::updateCourseTableView);
             }
         });
 
@@ -459,9 +484,10 @@ public class CoursePane extends GridPane {
 
         this.add(buttonBox, 0, 1, 2, 1);
         this.add(errorLabel, 0, 2, 2, 1);
-        this.add(searchField, 0, 3, 2, 1);
+        this.add(new HBox(10, searchField, busyIndicator), 0, 3, 2, 1);
         this.add(tableGrid, 0, 4, 2, 1);
 
+        HBox.setHgrow(searchField, Priority.ALWAYS);
         GridPane.setHgrow(nameField, Priority.ALWAYS);
         GridPane.setHgrow(roomComboBox, Priority.ALWAYS);
         GridPane.setHgrow(tableGrid, Priority.ALWAYS);
@@ -0,0 +1,52 @@
+package com.example.baum.database;
+
+import java.util.List;
+
+/**
+ * The rows of a table that changed since the last synchronization: the rows
+ * inserted or updated, and the IDs of the rows deleted.
+ *
+ * @param <T> the type of the changed rows
+ */
+public class ChangeSet<T> {
+    private final List<T> changed;
+    private final int[] deletedIds;
+
+    /**
+     * Constructs a new ChangeSet.
+     *
+     * @param changed    the rows inserted or updated
+     * @param deletedIds the IDs of the rows deleted
+     */
+    public ChangeSet(List<T> changed, int[] deletedIds) {
+        this.changed = changed;
+        this.deletedIds = deletedIds;
+    }
+
+    /**
+     * Returns the rows inserted or updated.
+     *
+     * @return the changed rows
+     */
+    public List<T> getChanged() {
+        return changed;
+    }
+
+    /**
+     * Returns the IDs of the rows deleted.
+     *
+     * @return the deleted IDs
+     */
+    public int[] getDeletedIds() {
+        return deletedIds;
+    }
+
+    /**
+     * Checks whether nothing changed.
+     *
+     * @return true if no row was changed or deleted, false otherwise
+     */
+    public boolean isEmpty() {
+        return changed.isEmpty() && deletedIds.length == 0;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.baum.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tracks how far the in-memory copy of a table is synchronized with the
+ * database. Every row carries an {@code updated_at} column maintained by the
+ * database, and deleted rows leave a tombstone in the {@code deleted_row}
+ * table, so the rows that changed since the last synchronization can be
+ * fetched without reading the whole table.
+ * <p>
+ * The {@code updated_at} and {@code deleted_at} stamps are taken when a
+ * statement runs, not when its transaction commits, so a row may become
+ * visible long after its stamp, for instance when it was written by a chunked
+ * bulk write or a {@link UnitOfWork}. The watermark is therefore taken before
+ * each load from the start of the oldest transaction still open on the server,
+ * or from the database clock if there is none, and moved back by a small
+ * overlap covering the second precision of the transaction start and clock
+ * skew. Rows of transactions that commit while or after the load runs are thus
+ * fetched by a later synchronization. Applying a row twice is harmless.
+ * <p>
+ * Reading the open transactions requires the {@code PROCESS} privilege. Without
+ * it, only the database clock is used, and rows of transactions that run
+ * longer than the overlap may be missed until the next full load.
+ */
+public class ChangeTracker {
+    private static final long OVERLAP_MILLIS = 2000;
+
+    private static final String WATERMARK_QUERY = "SELECT CURRENT_TIMESTAMP(6), "
+            + "(SELECT MIN(trx_started) FROM information_schema.INNODB_TRX)";
+    private static final String CLOCK_QUERY = "SELECT CURRENT_TIMESTAMP(6), NULL";
+
+    private static volatile boolean openTransactionsReadable = true;
+
+    private final String table;
+    private Timestamp watermark;
+
+    /**
+     * Constructs a new ChangeTracker for the specified table. The tracker has no
+     * watermark until the first full load.
+     *
+     * @param table the name of the tracked table
+     */
+    public ChangeTracker(String table) {
+        this.table = table;
+    }
+
+    /**
+     * Checks whether the table has been loaded, so changes can be fetched
+     * incrementally.
+     *
+     * @return true if a watermark is set, false otherwise
+     */
+    public synchronized boolean hasWatermark() {
+        return watermark != null;
+    }
+
+    /**
+     * Forgets the watermark, so the next synchronization loads the whole table.
+     */
+    public synchronized void reset() {
+        watermark = null;
+    }
+
+    /**
+     * Records that the whole table is being loaded on the specified connection.
+     * Must be called before the table is read.
+     *
+     * @param connection the connection the table is read on
+     * @throws SQLException if an SQL exception occurs
+     */
+    public void beginFullLoad(Connection connection) throws SQLException {
+        advance(readWatermark(connection));
+    }
+
+    /**
+     * Fetches the rows changed since the watermark and moves the watermark
+     * forward.
+     *
+     * @param connection   the connection to read on
+     * @param changedQuery the query selecting the changed rows, with a single
+     *                     parameter for the watermark
+     * @param rowMapper    the mapper turning rows into objects
+     * @param <T>          the type of the rows
+     * @return the changes since the watermark
+     * @throws SQLException if an SQL exception occurs
+     */
+    public <T> ChangeSet<T> fetchChanges(Connection connection, String changedQuery, RowMapper<T> rowMapper)
+            throws SQLException {
+        Timestamp since;
+        synchronized (this) {
+            since = watermark;
+        }
+        Timestamp next = readWatermark(connection);
+
+        List<T> changed = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(changedQuery)) {
+            statement.setTimestamp(1, since);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    changed.add(rowMapper.map(resultSet));
+                }
+            }
+        }
+
+        int[] deletedIds = new int[16];
+        int deletedCount = 0;
+        String deletedQuery = "SELECT row_id FROM deleted_row WHERE table_name = ? AND deleted_at >= ?";
+        try (PreparedStatement statement = connection.prepareStatement(deletedQuery)) {
+            statement.setString(1, table);
+            statement.setTimestamp(2, since);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    if (deletedCount == deletedIds.length) {
+                        deletedIds = Arrays.copyOf(deletedIds, deletedCount * 2);
+                    }
+                    deletedIds[deletedCount++] = resultSet.getInt(1);
+                }
+            }
+        }
+
+        advance(next);
+        return new ChangeSet<>(changed, Arrays.copyOf(deletedIds, deletedCount));
+    }
+
+    /**
+     * Reads the start of the oldest open transaction, or the database clock if
+     * it is earlier, and subtracts the overlap.
+     *
+     * @param connection the connection to read on
+     * @return the new watermark
+     * @throws SQLException if an SQL exception occurs
+     */
+    private Timestamp readWatermark(Connection connection) throws SQLException {
+        if (openTransactionsReadable) {
+            try {
+                return readWatermark(connection, WATERMARK_QUERY);
+            } catch (SQLException e) {
+                openTransactionsReadable = false;
+                System.out.println("Cannot read the open transactions, so the sync watermark follows the "
+                        + "database clock: " + e.getMessage());
+            }
+        }
+        return readWatermark(connection, CLOCK_QUERY);
+    }
+
+    /**
+     * Reads the watermark with a query selecting the database clock and the
+     * start of the oldest open transaction, which may be null.
+     *
+     * @param connection the connection to read on
+     * @param query      the query
+     * @return the new watermark
+     * @throws SQLException if an SQL exception occurs
+     */
+    private Timestamp readWatermark(Connection connection, String query) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(query);
+                ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            Timestamp now = resultSet.getTimestamp(1);
+            Timestamp oldestTransaction = resultSet.getTimestamp(2);
+            if (oldestTransaction != null && oldestTransaction.before(now)) {
+                now = oldestTransaction;
+            }
+            return new Timestamp(now.getTime() - OVERLAP_MILLIS);
+        }
+    }
+
+    /**
+     * Moves the watermark forward. A watermark older than the current one is
+     * ignored.
+     *
+     * @param next the new watermark
+     */
+    private synchronized void advance(Timestamp next) {
+        if (watermark == null || next.after(watermark)) {
+            watermark = next;
+        }
+    }
+}
@@ -0,0 +1,723 @@
+package com.example.baum.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded pool of JDBC connections.
+ * Connections handed out by the pool are proxies whose {@code close()} returns
+ * the physical connection to the pool instead of closing it. The pool validates
+ * connections on borrow, evicts connections that stay idle for too long, reports
+ * connections that are held longer than the leak detection threshold together
+ * with the stack trace of the borrower, and records how long callers had to wait
+ * for a connection. Every physical connection keeps its own
+ * {@link StatementCache}, so prepared statements survive between borrows.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final long HOUSEKEEPING_INTERVAL_MILLIS = 30_000;
+
+    private final String dbURL;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+
+    private long borrowTimeoutMillis = 30_000;
+    private long idleTimeoutMillis = 600_000;
+    private long leakDetectionThresholdMillis = 60_000;
+    private int validationTimeoutSeconds = 2;
+    private int statementCacheSize = 64;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition connectionAvailable = lock.newCondition();
+    private final Deque<PooledConnection> idleConnections = new ArrayDeque<>();
+    private final Set<PooledConnection> borrowedConnections = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int totalConnections;
+    private boolean closed;
+    private ScheduledExecutorService housekeeper;
+
+    private long borrowCount;
+    private long borrowWaitNanos;
+    private long maxBorrowWaitNanos;
+    private long borrowTimeoutCount;
+    private long leakCount;
+    private long retiredStatementCacheHits;
+    private long retiredStatementCacheMisses;
+
+    /**
+     * Constructs a new connection pool with the specified connection settings and
+     * size limits.
+     *
+     * @param dbURL    the URL of the database
+     * @param username the username for the database connection
+     * @param password the password for the database connection
+     * @param minSize  the number of connections kept open even when idle
+     * @param maxSize  the maximum number of connections open at the same time
+     */
+    public ConnectionPool(String dbURL, String username, String password, int minSize, int maxSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.dbURL = dbURL;
+        this.username = username;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Opens the minimum number of connections and starts the housekeeping task
+     * that evicts idle connections and reports leaks.
+     *
+     * @throws SQLException if a connection cannot be opened
+     */
+    public void start() throws SQLException {
+        List<PooledConnection> opened = new ArrayList<>();
+        try {
+            for (int i = 0; i < minSize; i++) {
+                opened.add(new PooledConnection(openPhysicalConnection()));
+            }
+        } catch (SQLException e) {
+            for (PooledConnection pooledConnection : opened) {
+                pooledConnection.closePhysical();
+            }
+            throw e;
+        }
+
+        lock.lock();
+        try {
+            idleConnections.addAll(opened);
+            totalConnections += opened.size();
+        } finally {
+            lock.unlock();
+        }
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, HOUSEKEEPING_INTERVAL_MILLIS,
+                HOUSEKEEPING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, waiting up to the borrow timeout if all
+     * connections are in use. The returned connection must be closed to hand it
+     * back to the pool.
+     *
+     * @return a validated connection
+     * @throws SQLException if the pool is closed, no connection became available
+     *                      in time, or a new connection could not be opened
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean openNew = false;
+
+            lock.lock();
+            try {
+                while (candidate == null && !openNew) {
+                    if (closed) {
+                        throw new SQLException("The connection pool is closed.");
+                    }
+                    candidate = idleConnections.pollFirst();
+                    if (candidate == null) {
+                        if (totalConnections < maxSize) {
+                            totalConnections++;
+                            openNew = true;
+                        } else {
+                            long remaining = deadline - System.nanoTime();
+                            if (remaining <= 0) {
+                                borrowTimeoutCount++;
+                                throw new SQLException("Timed out after " + borrowTimeoutMillis
+                                        + " ms waiting for a database connection.");
+                            }
+                            try {
+                                connectionAvailable.awaitNanos(remaining);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new SQLException("Interrupted while waiting for a database connection.", e);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (openNew) {
+                try {
+                    candidate = new PooledConnection(openPhysicalConnection());
+                } catch (SQLException e) {
+                    lock.lock();
+                    try {
+                        totalConnections--;
+                        connectionAvailable.signal();
+                    } finally {
+                        lock.unlock();
+                    }
+                    throw e;
+                }
+            } else if (!candidate.isValid()) {
+                candidate.closePhysical();
+                lock.lock();
+                try {
+                    totalConnections--;
+                } finally {
+                    lock.unlock();
+                }
+                continue;
+            }
+
+            return borrow(candidate, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Marks the specified connection as borrowed and records the wait metrics.
+     *
+     * @param pooledConnection the connection to hand out
+     * @param waitNanos        the time the caller waited for the connection
+     * @return the proxy handed to the caller
+     */
+    private Connection borrow(PooledConnection pooledConnection, long waitNanos) {
+        Throwable borrowStackTrace = leakDetectionThresholdMillis > 0
+                ? new Throwable("Connection borrowed here")
+                : null;
+        lock.lock();
+        try {
+            borrowCount++;
+            borrowWaitNanos += waitNanos;
+            maxBorrowWaitNanos = Math.max(maxBorrowWaitNanos, waitNanos);
+            // Stamp the lease before the housekeeper can see the connection as borrowed
+            pooledConnection.borrowedAt = System.currentTimeMillis();
+            pooledConnection.borrowStackTrace = borrowStackTrace;
+            pooledConnection.leakReported = false;
+            borrowedConnections.add(pooledConnection);
+        } finally {
+            lock.unlock();
+        }
+        return pooledConnection.lease();
+    }
+
+    /**
+     * Returns a borrowed connection to the pool. Open transactions are rolled
+     * back so the next borrower always starts in autocommit mode.
+     *
+     * @param pooledConnection the connection to return
+     */
+    private void release(PooledConnection pooledConnection) {
+        boolean reusable = pooledConnection.reset();
+
+        lock.lock();
+        try {
+            borrowedConnections.remove(pooledConnection);
+            if (reusable && !closed) {
+                pooledConnection.lastUsed = System.currentTimeMillis();
+                idleConnections.addFirst(pooledConnection);
+            } else {
+                totalConnections--;
+            }
+            connectionAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (!reusable || closed) {
+            pooledConnection.closePhysical();
+        }
+    }
+
+    /**
+     * Evicts connections that have been idle longer than the idle timeout, tops
+     * the pool back up to its minimum size and reports leaked connections.
+     */
+    private void houseKeep() {
+        long now = System.currentTimeMillis();
+        List<PooledConnection> evicted = new ArrayList<>();
+        List<PooledConnection> leaked = new ArrayList<>();
+        int missing;
+
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            Iterator<PooledConnection> iterator = idleConnections.descendingIterator();
+            while (iterator.hasNext() && totalConnections > minSize) {
+                PooledConnection pooledConnection = iterator.next();
+                if (now - pooledConnection.lastUsed > idleTimeoutMillis) {
+                    iterator.remove();
+                    totalConnections--;
+                    evicted.add(pooledConnection);
+                }
+            }
+            if (leakDetectionThresholdMillis > 0) {
+                for (PooledConnection pooledConnection : borrowedConnections) {
+                    if (!pooledConnection.leakReported
+                            && now - pooledConnection.borrowedAt > leakDetectionThresholdMillis) {
+                        pooledConnection.leakReported = true;
+                        leakCount++;
+                        leaked.add(pooledConnection);
+                    }
+                }
+            }
+            missing = minSize - totalConnections;
+            if (missing > 0) {
+                totalConnections += missing;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (PooledConnection pooledConnection : evicted) {
+            pooledConnection.closePhysical();
+        }
+        for (PooledConnection pooledConnection : leaked) {
+            System.err.println("Possible connection leak: a connection has been borrowed for "
+                    + (now - pooledConnection.borrowedAt) + " ms.");
+            if (pooledConnection.borrowStackTrace != null) {
+                pooledConnection.borrowStackTrace.printStackTrace();
+            }
+        }
+        for (int i = 0; i < missing; i++) {
+            try {
+                PooledConnection pooledConnection = new PooledConnection(openPhysicalConnection());
+                release(pooledConnection);
+            } catch (SQLException e) {
+                lock.lock();
+                try {
+                    totalConnections--;
+                } finally {
+                    lock.unlock();
+                }
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Opens a new physical connection to the database.
+     *
+     * @return the new connection
+     * @throws SQLException if the connection cannot be opened
+     */
+    private Connection openPhysicalConnection() throws SQLException {
+        return DriverManager.getConnection(dbURL, username, password);
+    }
+
+    /**
+     * Closes the pool and all idle connections. Borrowed connections are closed
+     * as soon as they are returned.
+     */
+    @Override
+    public void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(idleConnections);
+            totalConnections -= idleConnections.size();
+            idleConnections.clear();
+            connectionAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+        }
+        for (PooledConnection pooledConnection : toClose) {
+            pooledConnection.closePhysical();
+        }
+    }
+
+    /**
+     * Sets how long a caller waits for a free connection before failing.
+     *
+     * @param borrowTimeoutMillis the timeout in milliseconds
+     */
+    public void setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    /**
+     * Sets how long a connection may stay idle before it is evicted. Connections
+     * are only evicted while more than the minimum number are open.
+     *
+     * @param idleTimeoutMillis the idle timeout in milliseconds
+     */
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Sets how long a connection may be borrowed before it is reported as a
+     * possible leak. A value of zero disables leak detection and the capture of
+     * borrower stack traces.
+     *
+     * @param leakDetectionThresholdMillis the threshold in milliseconds
+     */
+    public void setLeakDetectionThresholdMillis(long leakDetectionThresholdMillis) {
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+    }
+
+    /**
+     * Sets the timeout used when validating a connection on borrow.
+     *
+     * @param validationTimeoutSeconds the timeout in seconds
+     */
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    /**
+     * Sets the maximum number of prepared statements cached per connection. The
+     * setting applies to connections opened afterwards; zero disables caching.
+     *
+     * @param statementCacheSize the maximum number of cached statements
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    /**
+     * Returns the number of open connections, borrowed or idle.
+     *
+     * @return the number of open connections
+     */
+    public int getTotalConnections() {
+        lock.lock();
+        try {
+            return totalConnections;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of connections currently borrowed.
+     *
+     * @return the number of borrowed connections
+     */
+    public int getActiveConnections() {
+        lock.lock();
+        try {
+            return borrowedConnections.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of idle connections.
+     *
+     * @return the number of idle connections
+     */
+    public int getIdleConnections() {
+        lock.lock();
+        try {
+            return idleConnections.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of successful borrows since the pool was started.
+     *
+     * @return the number of borrows
+     */
+    public long getBorrowCount() {
+        lock.lock();
+        try {
+            return borrowCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the average time callers waited for a connection.
+     *
+     * @return the average wait in milliseconds
+     */
+    public double getAverageBorrowWaitMillis() {
+        lock.lock();
+        try {
+            return borrowCount == 0 ? 0 : borrowWaitNanos / 1_000_000.0 / borrowCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the longest time a caller waited for a connection.
+     *
+     * @return the maximum wait in milliseconds
+     */
+    public double getMaxBorrowWaitMillis() {
+        lock.lock();
+        try {
+            return maxBorrowWaitNanos / 1_000_000.0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of borrows that failed because no connection became
+     * available in time.
+     *
+     * @return the number of borrow timeouts
+     */
+    public long getBorrowTimeoutCount() {
+        lock.lock();
+        try {
+            return borrowTimeoutCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of connections reported as possible leaks.
+     *
+     * @return the number of detected leaks
+     */
+    public long getLeakCount() {
+        lock.lock();
+        try {
+            return leakCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of prepared statements served from the statement caches
+     * of all connections opened by this pool.
+     *
+     * @return the number of statement cache hits
+     */
+    public long getStatementCacheHits() {
+        lock.lock();
+        try {
+            long hits = retiredStatementCacheHits;
+            for (PooledConnection pooledConnection : idleConnections) {
+                hits += pooledConnection.statementCache.getHits();
+            }
+            for (PooledConnection pooledConnection : borrowedConnections) {
+                hits += pooledConnection.statementCache.getHits();
+            }
+            return hits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of prepared statements that had to be prepared because
+     * they were not in the statement cache of their connection.
+     *
+     * @return the number of statement cache misses
+     */
+    public long getStatementCacheMisses() {
+        lock.lock();
+        try {
+            long misses = retiredStatementCacheMisses;
+            for (PooledConnection pooledConnection : idleConnections) {
+                misses += pooledConnection.statementCache.getMisses();
+            }
+            for (PooledConnection pooledConnection : borrowedConnections) {
+                misses += pooledConnection.statementCache.getMisses();
+            }
+            return misses;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a summary of the pool state and metrics.
+     *
+     * @return a string representation of the pool
+     */
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool[total=%d, active=%d, idle=%d, borrows=%d, avgWait=%.2f ms, "
+                        + "maxWait=%.2f ms, timeouts=%d, leaks=%d, statementHits=%d, statementMisses=%d]",
+                getTotalConnections(), getActiveConnections(), getIdleConnections(), getBorrowCount(),
+                getAverageBorrowWaitMillis(), getMaxBorrowWaitMillis(), getBorrowTimeoutCount(), getLeakCount(),
+                getStatementCacheHits(), getStatementCacheMisses());
+    }
+
+    /**
+     * A physical connection managed by the pool together with its bookkeeping.
+     */
+    private class PooledConnection {
+        private final Connection physicalConnection;
+        private final StatementCache statementCache;
+        private long lastUsed = System.currentTimeMillis();
+        private long borrowedAt;
+        private Throwable borrowStackTrace;
+        private boolean leakReported;
+
+        /**
+         * Constructs a new PooledConnection wrapping the specified physical
+         * connection.
+         *
+         * @param physicalConnection the connection to the database
+         */
+        private PooledConnection(Connection physicalConnection) {
+            this.physicalConnection = physicalConnection;
+            this.statementCache = new StatementCache(physicalConnection, statementCacheSize);
+        }
+
+        /**
+         * Creates a new proxy handed to a borrower. Each lease gets its own proxy
+         * so a closed handle cannot be used to reach a connection that has been
+         * handed to someone else. The lease itself is recorded by the pool.
+         *
+         * @return the connection proxy
+         */
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, new LeaseHandler(this));
+        }
+
+        /**
+         * Checks whether the physical connection is still usable.
+         *
+         * @return true if the connection is valid, false otherwise
+         */
+        private boolean isValid() {
+            try {
+                return physicalConnection.isValid(validationTimeoutSeconds);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Restores the default connection state after a borrower is done.
+         *
+         * @return true if the connection can be reused, false otherwise
+         */
+        private boolean reset() {
+            try {
+                if (physicalConnection.isClosed()) {
+                    return false;
+                }
+                if (!physicalConnection.getAutoCommit()) {
+                    physicalConnection.rollback();
+                    physicalConnection.setAutoCommit(true);
+                }
+                return true;
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return false;
+            }
+        }
+
+        /**
+         * Closes the cached statements and the physical connection.
+         */
+        private void closePhysical() {
+            statementCache.close();
+            lock.lock();
+            try {
+                retiredStatementCacheHits += statementCache.getHits();
+                retiredStatementCacheMisses += statementCache.getMisses();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                physicalConnection.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * The invocation handler behind the connection proxies handed to borrowers.
+     */
+    private class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pooledConnection;
+        private boolean released;
+
+        /**
+         * Constructs a new LeaseHandler for the specified pooled connection.
+         *
+         * @param pooledConnection the pooled connection that is leased
+         */
+        private LeaseHandler(PooledConnection pooledConnection) {
+            this.pooledConnection = pooledConnection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(pooledConnection);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || pooledConnection.physicalConnection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooledConnection.physicalConnection + "]";
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("The connection has already been returned to the pool.");
+            }
+            if (method.getName().equals("prepareStatement")) {
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                if (parameterTypes.length == 1) {
+                    return pooledConnection.statementCache.prepare((String) args[0], -1);
+                }
+                if (parameterTypes.length == 2 && parameterTypes[1] == int.class) {
+                    return pooledConnection.statementCache.prepare((String) args[0], (Integer) args[1]);
+                }
+            }
+            try {
+                return method.invoke(pooledConnection.physicalConnection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
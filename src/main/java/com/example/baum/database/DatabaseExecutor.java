@@ -0,0 +1,164 @@
+package com.example.baum.database;
+
+import javafx.application.Platform;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs database work off the JavaFX Application Thread.
+ * Tasks run on virtual threads when the running JVM provides them and on
+ * daemon platform threads otherwise. The number of tasks talking to the
+ * database at the same time is bounded by the connection pool, not by this
+ * executor.
+ */
+public class DatabaseExecutor implements AutoCloseable {
+    /**
+     * An executor that runs tasks on the JavaFX Application Thread, directly if
+     * already called from it.
+     */
+    public static final Executor FX_THREAD = DatabaseExecutor::runOnFxThread;
+
+    private final ExecutorService executorService;
+
+    /**
+     * Constructs a new DatabaseExecutor.
+     */
+    public DatabaseExecutor() {
+        this.executorService = createExecutorService();
+    }
+
+    /**
+     * Creates the executor service backing this executor. Virtual threads are
+     * looked up reflectively because they are a preview feature on the Java
+     * release the project is compiled for.
+     *
+     * @return the executor service
+     */
+    private static ExecutorService createExecutorService() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "database-worker-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Runs a task that produces a result off the JavaFX Application Thread.
+     *
+     * @param task the task to run
+     * @param <T>  the type of the result
+     * @return a future completed with the result of the task, or exceptionally
+     *         with a {@link CompletionException} wrapping the SQL error
+     */
+    public <T> CompletableFuture<T> supplyAsync(SqlSupplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.get();
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, executorService);
+    }
+
+    /**
+     * Runs a task without a result off the JavaFX Application Thread.
+     *
+     * @param task the task to run
+     * @return a future completed when the task is done, or exceptionally with a
+     *         {@link CompletionException} wrapping the SQL error
+     */
+    public CompletableFuture<Void> runAsync(SqlRunnable task) {
+        return supplyAsync(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the specified action on the JavaFX Application Thread. The action runs
+     * immediately when called from that thread.
+     *
+     * @param action the action to run
+     */
+    public static void runOnFxThread(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+        } else {
+            Platform.runLater(action);
+        }
+    }
+
+    /**
+     * Unwraps the {@link CompletionException} around an asynchronous failure.
+     *
+     * @param throwable the failure reported by a future
+     * @return the underlying cause
+     */
+    public static Throwable unwrap(Throwable throwable) {
+        while (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        return throwable;
+    }
+
+    /**
+     * Prints the failure of an asynchronous operation, if any. Meant to be used
+     * as a {@code whenComplete} callback.
+     *
+     * @param result the result of the operation, ignored
+     * @param error  the failure reported by the operation, or null
+     */
+    public static void printError(Object result, Throwable error) {
+        if (error != null) {
+            unwrap(error).printStackTrace();
+        }
+    }
+
+    /**
+     * Stops accepting new tasks. Tasks already running are allowed to finish.
+     */
+    @Override
+    public void close() {
+        executorService.shutdown();
+    }
+
+    /**
+     * A database task that produces a result.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface SqlSupplier<T> {
+        /**
+         * Runs the task.
+         *
+         * @return the result of the task
+         * @throws SQLException if a database error occurs
+         */
+        T get() throws SQLException;
+    }
+
+    /**
+     * A database task without a result.
+     */
+    @FunctionalInterface
+    public interface SqlRunnable {
+        /**
+         * Runs the task.
+         *
+         * @throws SQLException if a database error occurs
+         */
+        void run() throws SQLException;
+    }
+}
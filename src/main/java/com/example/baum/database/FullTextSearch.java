@@ -0,0 +1,255 @@
+package com.example.baum.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.example.baum.DatabaseManager;
+import com.example.baum.index.IntHashMap;
+
+/**
+ * Searches the name column of a table through its ngram FULLTEXT index.
+ * Every word of the search term must occur in the name, anywhere in it. Results
+ * are ranked with names starting with the term first, then by relevance.
+ * <p>
+ * Terms shorter than the ngram token size cannot be looked up in the FULLTEXT
+ * index, and some engines have no FULLTEXT support at all. Those searches fall
+ * back to a substring match, {@code LIKE '%term%'}, like the in-memory search,
+ * so they find the same rows, ranked the same way. The substring match cannot
+ * use an index and scans the name column, but only for these short terms.
+ * <p>
+ * The search queries only read the IDs of the matching rows, which are
+ * resolved through a {@link ReadThroughLoader}. Only rows whose entity is not
+ * mapped yet are loaded and mapped. The IDs are cached in the
+ * query cache of the session until the table is written, so repeated searches
+ * of mapped rows need no database round trip.
+ *
+ * @param <T> the type of the searched rows
+ */
+public class FullTextSearch<T> {
+    /**
+     * The default ngram token size of MySQL.
+     */
+    private static final int NGRAM_TOKEN_SIZE = 2;
+
+    /**
+     * The time search results are served from the query cache, bounding how
+     * long writes by other clients may go unnoticed.
+     */
+    private static final long CACHE_TTL_MILLIS = 30_000;
+
+    private final DatabaseManager databaseManager;
+    private final String table;
+    private final String column;
+    private final ReadThroughLoader<T> loader;
+    private volatile Boolean fullTextAvailable;
+
+    /**
+     * Constructs a new FullTextSearch.
+     *
+     * @param databaseManager the DatabaseManager providing connections
+     * @param table           the table to search
+     * @param column          the indexed column to search
+     * @param loader          the loader resolving the IDs of the rows
+     */
+    public FullTextSearch(DatabaseManager databaseManager, String table, String column,
+            ReadThroughLoader<T> loader) {
+        this.databaseManager = databaseManager;
+        this.table = table;
+        this.column = column;
+        this.loader = loader;
+    }
+
+    /**
+     * Searches the rows matching the term, best matches first. A blank term
+     * matches every row, without a limit.
+     *
+     * @param term  the search term
+     * @param limit the maximum number of results for a non-blank term
+     * @return the matching rows
+     * @throws SQLException if an SQL exception occurs
+     */
+    public List<T> search(String term, int limit) throws SQLException {
+        return search(term, limit, null);
+    }
+
+    /**
+     * Searches the rows matching the term, best matches first, as a query that
+     * can be cancelled. A blank term matches every row, without a limit.
+     *
+     * @param term         the search term
+     * @param limit        the maximum number of results for a non-blank term
+     * @param cancellation the cancellation to register the query with, or null
+     * @return the matching rows
+     * @throws SQLException if an SQL exception occurs or the query is cancelled
+     */
+    public List<T> search(String term, int limit, QueryCancellation cancellation) throws SQLException {
+        String trimmed = term == null ? "" : term.trim();
+        String key = trimmed.isEmpty() ? table + ":all" : table + "." + column + ":" + limit + ":" + trimmed;
+        int[] ids = databaseManager.getQueryCache().load(key, CACHE_TTL_MILLIS,
+                () -> searchIds(trimmed, limit, cancellation), table);
+        return resolve(cancellation, ids);
+    }
+
+    /**
+     * Queries the IDs of the rows matching the term, best matches first.
+     *
+     * @param trimmed      the trimmed search term
+     * @param limit        the maximum number of results for a non-blank term
+     * @param cancellation the cancellation to register the query with, or null
+     * @return the IDs, in result order
+     * @throws SQLException if an SQL exception occurs or the query is cancelled
+     */
+    private int[] searchIds(String trimmed, int limit, QueryCancellation cancellation) throws SQLException {
+        try (Connection connection = databaseManager.getConnection()) {
+            if (trimmed.isEmpty()) {
+                return queryIds(connection, cancellation, "SELECT id FROM " + table);
+            }
+            String booleanQuery = toBooleanQuery(trimmed);
+            if (booleanQuery != null && isFullTextAvailable(connection)) {
+                String searchQuery = "SELECT id, MATCH(" + column + ") AGAINST (? IN BOOLEAN MODE) AS relevance "
+                        + "FROM " + table + " "
+                        + "WHERE MATCH(" + column + ") AGAINST (? IN BOOLEAN MODE) "
+                        + "ORDER BY " + column + " LIKE ? DESC, relevance DESC, " + column + " "
+                        + "LIMIT ?";
+                return queryIds(connection, cancellation, searchQuery,
+                        booleanQuery, booleanQuery, toPrefixPattern(trimmed), limit);
+            }
+            String containsQuery = "SELECT id FROM " + table + " WHERE " + column + " LIKE ? "
+                    + "ORDER BY " + column + " LIKE ? DESC, " + column + " LIMIT ?";
+            return queryIds(connection, cancellation, containsQuery,
+                    toContainsPattern(trimmed), toPrefixPattern(trimmed), limit);
+        }
+    }
+
+    /**
+     * Builds the boolean-mode FULLTEXT query requiring every word of the term.
+     * Each word is searched as a phrase, which the ngram parser matches anywhere
+     * inside the name.
+     *
+     * @param term the trimmed search term
+     * @return the boolean query, or null if a word is too short for the index
+     */
+    private static String toBooleanQuery(String term) {
+        StringBuilder query = new StringBuilder();
+        for (String word : term.split("\\s+")) {
+            // Operators and quotes have a meaning in boolean mode
+            String cleaned = word.replaceAll("[+\\-<>()~*\"@]", "");
+            if (cleaned.length() < NGRAM_TOKEN_SIZE) {
+                return null;
+            }
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append("+\"").append(cleaned).append('"');
+        }
+        return query.toString();
+    }
+
+    /**
+     * Builds a LIKE pattern matching values starting with the term.
+     *
+     * @param term the trimmed search term
+     * @return the pattern, with LIKE wildcards in the term escaped
+     */
+    public static String toPrefixPattern(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    /**
+     * Builds a LIKE pattern matching values containing the term.
+     *
+     * @param term the trimmed search term
+     * @return the pattern, with LIKE wildcards in the term escaped
+     */
+    public static String toContainsPattern(String term) {
+        return "%" + toPrefixPattern(term);
+    }
+
+    /**
+     * Checks once whether the searched column has a FULLTEXT index.
+     *
+     * @param connection the connection to check on
+     * @return true if a FULLTEXT index exists, false otherwise
+     * @throws SQLException if an SQL exception occurs
+     */
+    private boolean isFullTextAvailable(Connection connection) throws SQLException {
+        Boolean available = fullTextAvailable;
+        if (available == null) {
+            String indexQuery = "SELECT COUNT(*) FROM information_schema.statistics "
+                    + "WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ? "
+                    + "AND index_type = 'FULLTEXT'";
+            try (PreparedStatement statement = connection.prepareStatement(indexQuery)) {
+                statement.setString(1, table);
+                statement.setString(2, column);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    available = resultSet.next() && resultSet.getInt(1) > 0;
+                }
+            }
+            fullTextAvailable = available;
+        }
+        return available;
+    }
+
+    /**
+     * Runs a search query and reads the IDs of the matching rows.
+     *
+     * @param connection   the connection to run on
+     * @param cancellation the cancellation to register the query with, or null
+     * @param sql          the query, selecting the ID first
+     * @param parameters   the query parameters, in order
+     * @return the IDs, in result order
+     * @throws SQLException if an SQL exception occurs
+     */
+    private int[] queryIds(Connection connection, QueryCancellation cancellation, String sql,
+            Object... parameters) throws SQLException {
+        int[] ids = new int[16];
+        int count = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            if (cancellation != null) {
+                cancellation.register(statement);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2);
+                    }
+                    ids[count++] = resultSet.getInt(1);
+                }
+            } finally {
+                if (cancellation != null) {
+                    cancellation.unregister(statement);
+                }
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Resolves IDs to their canonical entities.
+     *
+     * @param cancellation the cancellation to register the queries with, or null
+     * @param ids          the IDs
+     * @return the entities, in the order of the IDs; IDs of rows deleted in
+     *         the meantime are skipped
+     * @throws SQLException if an SQL exception occurs
+     */
+    private List<T> resolve(QueryCancellation cancellation, int[] ids) throws SQLException {
+        IntHashMap<T> loaded = loader.getAll(ids, cancellation);
+        List<T> results = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            T entity = loaded.get(id);
+            if (entity != null) {
+                results.add(entity);
+            }
+        }
+        return results;
+    }
+}
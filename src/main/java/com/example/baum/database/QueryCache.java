@@ -0,0 +1,314 @@
+package com.example.baum.database;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded LRU cache of the IDs read by queries, keyed by a text identifying
+ * the query and its parameters. The cached IDs are resolved through the
+ * identity maps like freshly queried ones, so a hit never returns stale
+ * entity state, only a possibly stale selection of rows.
+ * <p>
+ * The cache is bounded by its number of entries and by their estimated size
+ * in bytes. Each entry expires after its own time to live, and is invalidated
+ * as soon as one of the tables it was read from is written. A load that
+ * overlaps a write of one of its tables is not cached, so a result read before
+ * the write cannot outlive it. Methods may be called from any thread.
+ */
+public class QueryCache {
+    /**
+     * The estimated size of an entry besides its key and IDs, in bytes.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> invalidatedAt = new HashMap<>();
+    private long clock;
+    private long bytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+    private long loads;
+    private long loadNanos;
+
+    /**
+     * A cached query result.
+     */
+    private static final class Entry {
+        private final int[] ids;
+        private final String[] tables;
+        private final long expiresAt;
+        private final long bytes;
+
+        /**
+         * Constructs a new Entry.
+         *
+         * @param key       the key of the query
+         * @param ids       the IDs read by the query
+         * @param tables    the tables the query read
+         * @param expiresAt the {@link System#nanoTime()} the entry expires at
+         */
+        private Entry(String key, int[] ids, String[] tables, long expiresAt) {
+            this.ids = ids;
+            this.tables = tables;
+            this.expiresAt = expiresAt;
+            this.bytes = ENTRY_OVERHEAD_BYTES + 2L * key.length() + 4L * ids.length;
+        }
+    }
+
+    /**
+     * Loads the IDs read by a query on a cache miss.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * Runs the query.
+         *
+         * @return the IDs read, in result order
+         * @throws SQLException if an SQL exception occurs
+         */
+        int[] load() throws SQLException;
+    }
+
+    /**
+     * Constructs a new, empty QueryCache.
+     *
+     * @param maxEntries the maximum number of cached queries
+     * @param maxBytes   the maximum estimated size of the cached queries, in
+     *                   bytes
+     */
+    public QueryCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached IDs of a query, loading and caching them on a miss.
+     *
+     * @param key       the key identifying the query and its parameters
+     * @param ttlMillis the time the result may be served from the cache, in
+     *                  milliseconds
+     * @param loader    the loader running the query on a miss
+     * @param tables    the tables the query reads
+     * @return the IDs; the array must not be modified
+     * @throws SQLException if the loader fails
+     */
+    public int[] load(String key, long ttlMillis, Loader loader, String... tables) throws SQLException {
+        long stamp;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+                hits++;
+                return entry.ids;
+            }
+            if (entry != null) {
+                remove(key);
+                expirations++;
+            }
+            misses++;
+            stamp = clock;
+        }
+
+        long start = System.nanoTime();
+        int[] ids = loader.load();
+        long end = System.nanoTime();
+
+        synchronized (this) {
+            loads++;
+            loadNanos += end - start;
+            if (!isInvalidatedSince(stamp, tables)) {
+                put(key, new Entry(key, ids, tables, end + ttlMillis * 1_000_000));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Removes the cached queries that read a table. Must be called after every
+     * write of the table. Inside a {@link UnitOfWork}, the table is invalidated
+     * again when the unit completes, as queries read before then may have seen
+     * its uncommitted writes.
+     *
+     * @param table the written table
+     */
+    public void invalidate(String table) {
+        UnitOfWork unit = UnitOfWork.current();
+        if (unit != null) {
+            unit.afterCompletion(() -> invalidate(table));
+        }
+        invalidateNow(table);
+    }
+
+    /**
+     * Removes the cached queries that read a table.
+     *
+     * @param table the written table
+     */
+    private synchronized void invalidateNow(String table) {
+        invalidatedAt.put(table, ++clock);
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            for (String entryTable : entry.tables) {
+                if (entryTable.equals(table)) {
+                    iterator.remove();
+                    bytes -= entry.bytes;
+                    invalidations++;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether one of the tables was invalidated since a point in time.
+     *
+     * @param stamp  the value of the clock at that time
+     * @param tables the tables
+     * @return true if a table was invalidated, false otherwise
+     */
+    private boolean isInvalidatedSince(long stamp, String[] tables) {
+        for (String table : tables) {
+            Long invalidated = invalidatedAt.get(table);
+            if (invalidated != null && invalidated > stamp) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Caches an entry and evicts the least recently used entries until the
+     * cache fits its bounds again.
+     *
+     * @param key   the key of the entry
+     * @param entry the entry
+     */
+    private void put(String key, Entry entry) {
+        remove(key);
+        entries.put(key, entry);
+        bytes += entry.bytes;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && iterator.hasNext()) {
+            bytes -= iterator.next().bytes;
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param key the key of the entry
+     */
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.bytes;
+        }
+    }
+
+    /**
+     * Returns the number of cached queries.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the estimated size of the cached queries.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of queries served from the cache.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of queries that had to be loaded.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the share of the queries served from the cache.
+     *
+     * @return the hit ratio, between 0 and 1
+     */
+    public synchronized double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    /**
+     * Returns the number of entries evicted to fit the bounds of the cache.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of entries dropped because they expired.
+     *
+     * @return the number of expirations
+     */
+    public synchronized long getExpirations() {
+        return expirations;
+    }
+
+    /**
+     * Returns the number of entries dropped because a table they read was
+     * written.
+     *
+     * @return the number of invalidations
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Returns the average time taken to load a query on a miss.
+     *
+     * @return the average load time in milliseconds
+     */
+    public synchronized double getAverageLoadMillis() {
+        return loads == 0 ? 0 : loadNanos / 1_000_000.0 / loads;
+    }
+
+    /**
+     * Returns a summary of the cache state and metrics.
+     *
+     * @return a string representation of the cache
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("QueryCache[entries=%d, bytes=%d, hits=%d, misses=%d, hitRatio=%.2f, evictions=%d, "
+                        + "expirations=%d, invalidations=%d, avgLoad=%.2f ms]",
+                size(), getBytes(), getHits(), getMisses(), getHitRatio(), getEvictions(), getExpirations(),
+                getInvalidations(), getAverageLoadMillis());
+    }
+}
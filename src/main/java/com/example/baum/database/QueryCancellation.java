@@ -0,0 +1,99 @@
+package com.example.baum.database;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Lets a query that is no longer needed be cancelled while it runs on the
+ * database. The statement running the query is registered for the duration of
+ * its execution; cancelling sends {@link Statement#cancel()} to it, and a query
+ * registered after the cancellation fails right away. Every registered
+ * statement also gets a query timeout, so a runaway query ends on its own. The
+ * previous timeout is restored when the statement is unregistered, as the
+ * statement may be cached and reused by other queries.
+ */
+public class QueryCancellation {
+    /**
+     * The SQL state of the exception thrown for a query cancelled before it
+     * started, matching the state MySQL reports for an interrupted query.
+     */
+    private static final String CANCELLED_STATE = "70100";
+
+    private final int timeoutSeconds;
+    private Statement statement;
+    private int previousTimeoutSeconds;
+    private boolean cancelled;
+
+    /**
+     * Constructs a new QueryCancellation.
+     *
+     * @param timeoutSeconds the query timeout of the registered statements in
+     *                       seconds, or 0 for none
+     */
+    public QueryCancellation(int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Registers the statement about to run the query.
+     *
+     * @param statement the statement
+     * @throws SQLException if the query has already been cancelled
+     */
+    public synchronized void register(Statement statement) throws SQLException {
+        if (cancelled) {
+            throw new SQLException("Query cancelled.", CANCELLED_STATE);
+        }
+        previousTimeoutSeconds = statement.getQueryTimeout();
+        statement.setQueryTimeout(timeoutSeconds);
+        this.statement = statement;
+    }
+
+    /**
+     * Unregisters a statement once its query has finished and restores its
+     * previous query timeout.
+     *
+     * @param statement the statement
+     */
+    public synchronized void unregister(Statement statement) {
+        if (this.statement == statement) {
+            this.statement = null;
+            try {
+                statement.setQueryTimeout(previousTimeoutSeconds);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Cancels the query. The statement running it, if any, is cancelled on the
+     * database.
+     */
+    public void cancel() {
+        Statement running;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            running = statement;
+        }
+        if (running != null) {
+            try {
+                running.cancel();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Checks whether the query has been cancelled.
+     *
+     * @return true if cancelled, false otherwise
+     */
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.baum.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+
+import com.example.baum.DatabaseManager;
+import com.example.baum.index.IdentityMap;
+import com.example.baum.index.IntHashMap;
+
+/**
+ * Resolves IDs to the canonical entities of an identity map, reading entities
+ * that are not mapped yet through to the database. Rows created by other
+ * clients after the lists were loaded are found this way, so references to
+ * them never dangle.
+ * <p>
+ * IDs not mapped yet are loaded together in batched {@code WHERE id IN (...)}
+ * queries, never row by row. IDs the database does not know either, like those
+ * of rows deleted in the meantime, are remembered for a short while, so
+ * repeated lookups of them cost no query at all. Methods may be called from
+ * any thread, but block on the database, so not from the JavaFX Application
+ * Thread.
+ *
+ * @param <T> the type of the loaded entities
+ */
+public class ReadThroughLoader<T> {
+    /**
+     * The default time IDs unknown to the database are remembered.
+     */
+    public static final long DEFAULT_NEGATIVE_TTL_MILLIS = 10_000;
+
+    /**
+     * The maximum number of IDs loaded by one query.
+     */
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    private final DatabaseManager databaseManager;
+    private final String selectQuery;
+    private final String idColumn;
+    private final IdentityMap<T> identityMap;
+    private final RowMapper<T> rowMapper;
+    private final long negativeTtlNanos;
+    private final IntHashMap<Long> missingUntil = new IntHashMap<>();
+
+    /**
+     * Constructs a new ReadThroughLoader reading whole rows of a table.
+     *
+     * @param databaseManager the DatabaseManager providing connections
+     * @param table           the table to read
+     * @param identityMap     the identity map of the entities
+     * @param rowMapper       the mapper turning rows not mapped yet into objects
+     */
+    public ReadThroughLoader(DatabaseManager databaseManager, String table, IdentityMap<T> identityMap,
+            RowMapper<T> rowMapper) {
+        this(databaseManager, "SELECT * FROM " + table, "id", identityMap, rowMapper, DEFAULT_NEGATIVE_TTL_MILLIS);
+    }
+
+    /**
+     * Constructs a new ReadThroughLoader reading the rows of a query, like a
+     * JOIN that reads related entities along.
+     *
+     * @param databaseManager   the DatabaseManager providing connections
+     * @param selectQuery       the query without a WHERE clause, selecting the
+     *                          ID first
+     * @param idColumn          the qualified ID column of the query
+     * @param identityMap       the identity map of the entities
+     * @param rowMapper         the mapper turning rows not mapped yet into
+     *                          objects
+     * @param negativeTtlMillis the time IDs unknown to the database are
+     *                          remembered, in milliseconds
+     */
+    public ReadThroughLoader(DatabaseManager databaseManager, String selectQuery, String idColumn,
+            IdentityMap<T> identityMap, RowMapper<T> rowMapper, long negativeTtlMillis) {
+        this.databaseManager = databaseManager;
+        this.selectQuery = selectQuery;
+        this.idColumn = idColumn;
+        this.identityMap = identityMap;
+        this.rowMapper = rowMapper;
+        this.negativeTtlNanos = negativeTtlMillis * 1_000_000;
+    }
+
+    /**
+     * Returns the canonical entity of an ID, loading it if it is not mapped.
+     *
+     * @param id the ID
+     * @return the entity, or null if the database does not know the ID
+     * @throws SQLException if an SQL exception occurs
+     */
+    public T get(int id) throws SQLException {
+        return getAll(new int[] { id }, null).get(id);
+    }
+
+    /**
+     * Returns the canonical entities of IDs, loading those not mapped in
+     * batches. A connection is only borrowed if there are any.
+     *
+     * @param ids          the IDs, may contain duplicates
+     * @param cancellation the cancellation to register the queries with, or null
+     * @return the entities by ID; IDs unknown to the database are missing
+     * @throws SQLException if an SQL exception occurs or the query is cancelled
+     */
+    public IntHashMap<T> getAll(int[] ids, QueryCancellation cancellation) throws SQLException {
+        IntHashMap<T> resolved = new IntHashMap<>(ids.length);
+        IntHashMap<Boolean> pending = new IntHashMap<>();
+        long now = System.nanoTime();
+        for (int id : ids) {
+            if (resolved.containsKey(id) || pending.containsKey(id)) {
+                continue;
+            }
+            T entity = identityMap.get(id);
+            if (entity != null) {
+                resolved.put(id, entity);
+            } else if (!isKnownMissing(id, now)) {
+                pending.put(id, Boolean.TRUE);
+            }
+        }
+        if (!pending.isEmpty()) {
+            int[] missing = pending.keys();
+            try (Connection connection = databaseManager.getConnection()) {
+                load(connection, cancellation, missing, resolved);
+            }
+            for (int id : missing) {
+                if (!resolved.containsKey(id)) {
+                    rememberMissing(id);
+                }
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Loads the rows of IDs in batches, maps them and adds them to the identity
+     * map.
+     *
+     * @param connection   the connection to load on
+     * @param cancellation the cancellation to register the queries with, or null
+     * @param ids          the distinct IDs to load
+     * @param resolved     the map the canonical entities are added to by ID
+     * @throws SQLException if an SQL exception occurs
+     */
+    private void load(Connection connection, QueryCancellation cancellation, int[] ids, IntHashMap<T> resolved)
+            throws SQLException {
+        for (int from = 0; from < ids.length; from += LOAD_BATCH_SIZE) {
+            int to = Math.min(from + LOAD_BATCH_SIZE, ids.length);
+            String loadQuery = selectQuery + " WHERE " + idColumn + " IN ("
+                    + String.join(", ", Collections.nCopies(to - from, "?")) + ")";
+            try (PreparedStatement statement = connection.prepareStatement(loadQuery)) {
+                for (int i = from; i < to; i++) {
+                    statement.setInt(i - from + 1, ids[i]);
+                }
+                if (cancellation != null) {
+                    cancellation.register(statement);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        T entity = identityMap.intern(rowMapper.map(resultSet));
+                        resolved.put(resultSet.getInt(1), entity);
+                    }
+                } finally {
+                    if (cancellation != null) {
+                        cancellation.unregister(statement);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether an ID was recently found missing in the database.
+     *
+     * @param id  the ID
+     * @param now the current {@link System#nanoTime()}
+     * @return true if the ID is known to be missing, false otherwise
+     */
+    private synchronized boolean isKnownMissing(int id, long now) {
+        Long until = missingUntil.get(id);
+        if (until == null) {
+            return false;
+        }
+        if (until - now > 0) {
+            return true;
+        }
+        missingUntil.remove(id);
+        return false;
+    }
+
+    /**
+     * Remembers that an ID is missing in the database.
+     *
+     * @param id the ID
+     */
+    private synchronized void rememberMissing(int id) {
+        missingUntil.put(id, System.nanoTime() + negativeTtlNanos);
+    }
+
+    /**
+     * Forgets the IDs found missing, so they are looked up again. Must be
+     * called when rows were added to the table.
+     */
+    public synchronized void forgetMissing() {
+        missingUntil.clear();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.baum.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a result set to an object.
+ *
+ * @param <T> the type of the mapped objects
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    /**
+     * Maps the current row. Implementations must not move the cursor.
+     *
+     * @param resultSet the result set positioned on the row to map
+     * @return the mapped object
+     * @throws SQLException if a column cannot be read
+     */
+    T map(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,340 @@
+package com.example.baum.database;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings the database schema up to date by applying numbered migrations.
+ * Migrations are SQL scripts packaged as classpath resources and named
+ * {@code V<version>__<description>.sql}. Every applied migration is recorded
+ * with its checksum in the {@code schema_history} table.
+ * <p>
+ * On a current database, startup costs a single query: the history is read and
+ * compared with the packaged migrations, and no DDL runs. A migration changed
+ * after it was applied is reported instead of being silently skipped. A
+ * database created before the history existed is baselined: its tables are kept
+ * and the first migration is recorded without running it.
+ */
+public class SchemaMigrator {
+    /**
+     * The packaged migrations, in the order they are applied. Every script in
+     * the migration resource folder must be listed here.
+     */
+    static final String[] MIGRATIONS = {
+            "V1__baseline.sql",
+            "V2__sort_indexes.sql",
+            "V3__row_versioning.sql",
+            "V4__name_fulltext.sql",
+            "V5__student_phonetic.sql",
+            "V6__student_query_indexes.sql",
+            "V7__deleted_row_purge_index.sql"
+    };
+
+    private static final String RESOURCE_PATH = "/com/example/baum/migration/";
+    private static final String LOCK_NAME = "baum_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+    private static final String MISSING_TABLE_STATE = "42S02";
+
+    /**
+     * A packaged migration.
+     */
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final String script;
+        private final String checksum;
+
+        /**
+         * Constructs a new Migration.
+         *
+         * @param version     the version of the migration
+         * @param description the description of the migration
+         * @param script      the SQL script of the migration
+         * @param checksum    the checksum of the script
+         */
+        Migration(int version, String description, String script, String checksum) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+            this.checksum = checksum;
+        }
+    }
+
+    /**
+     * Constructs a new SchemaMigrator for the packaged migrations.
+     */
+    public SchemaMigrator() {
+    }
+
+    /**
+     * Applies the pending migrations on the specified connection.
+     *
+     * @param connection the connection to migrate on
+     * @return the number of migrations applied
+     * @throws SQLException if a migration fails or an applied migration has
+     *                      been changed
+     */
+    public int migrate(Connection connection) throws SQLException {
+        List<Migration> migrations = loadMigrations();
+        Map<Integer, String> applied = readHistory(connection);
+        if (applied != null && isCurrent(migrations, applied)) {
+            return 0;
+        }
+
+        // Another client may be migrating the same database
+        acquireLock(connection);
+        try {
+            if (applied == null) {
+                createHistoryTable(connection);
+            }
+            applied = readHistory(connection);
+            if (applied.isEmpty() && tableExists(connection, "student")) {
+                Migration baseline = migrations.get(0);
+                recordMigration(connection, baseline, 0);
+                applied.put(baseline.version, baseline.checksum);
+                System.out.println("Baselined the existing schema at version " + baseline.version + ".");
+            }
+
+            int count = 0;
+            for (Migration migration : migrations) {
+                if (applied.containsKey(migration.version)) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                runScript(connection, migration);
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                recordMigration(connection, migration, millis);
+                System.out.println("Applied migration V" + migration.version + " (" + migration.description
+                        + ") in " + millis + " ms.");
+                count++;
+            }
+            return count;
+        } finally {
+            releaseLock(connection);
+        }
+    }
+
+    /**
+     * Checks whether every packaged migration has been applied, and validates
+     * the checksums of the applied ones.
+     *
+     * @param migrations the packaged migrations
+     * @param applied    the checksums of the applied migrations by version
+     * @return true if no migration is pending, false otherwise
+     * @throws SQLException if an applied migration has been changed
+     */
+    private boolean isCurrent(List<Migration> migrations, Map<Integer, String> applied) throws SQLException {
+        boolean current = true;
+        for (Migration migration : migrations) {
+            String checksum = applied.get(migration.version);
+            if (checksum == null) {
+                current = false;
+            } else if (!checksum.equals(migration.checksum)) {
+                throw new SQLException("Migration V" + migration.version + " (" + migration.description
+                        + ") has been changed after it was applied.");
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Runs the statements of a migration as one batch.
+     *
+     * @param connection the connection to run on
+     * @param migration  the migration to run
+     * @throws SQLException if a statement fails
+     */
+    private void runScript(Connection connection, Migration migration) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : SqlScript.split(migration.script)) {
+                statement.addBatch(sql);
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Reads the schema history.
+     *
+     * @param connection the connection to read on
+     * @return the checksums of the applied migrations by version, or null if
+     *         the history table does not exist
+     * @throws SQLException if an SQL exception occurs
+     */
+    private Map<Integer, String> readHistory(Connection connection) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT version, checksum FROM schema_history");
+                ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                applied.put(resultSet.getInt(1), resultSet.getString(2));
+            }
+        } catch (SQLException e) {
+            if (MISSING_TABLE_STATE.equals(e.getSQLState())) {
+                return null;
+            }
+            throw e;
+        }
+        return applied;
+    }
+
+    /**
+     * Creates the schema history table.
+     *
+     * @param connection the connection to use
+     * @throws SQLException if an SQL exception occurs
+     */
+    private void createHistoryTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS `schema_history` ("
+                    + "`version` INT NOT NULL, "
+                    + "`description` VARCHAR(200) NOT NULL, "
+                    + "`checksum` CHAR(64) NOT NULL, "
+                    + "`installed_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                    + "`execution_ms` BIGINT NOT NULL, "
+                    + "PRIMARY KEY (`version`)"
+                    + ") ENGINE = InnoDB");
+        }
+    }
+
+    /**
+     * Records a migration as applied.
+     *
+     * @param connection the connection to use
+     * @param migration  the applied migration
+     * @param millis     the time the migration took
+     * @throws SQLException if an SQL exception occurs
+     */
+    private void recordMigration(Connection connection, Migration migration, long millis) throws SQLException {
+        String insertQuery = "INSERT INTO schema_history (version, description, checksum, execution_ms) "
+                + "VALUES (?, ?, ?, ?)";
+        try (PreparedStatement statement = connection.prepareStatement(insertQuery)) {
+            statement.setInt(1, migration.version);
+            statement.setString(2, migration.description);
+            statement.setString(3, migration.checksum);
+            statement.setLong(4, millis);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Checks whether a table exists in the current database.
+     *
+     * @param connection the connection to use
+     * @param table      the name of the table
+     * @return true if the table exists, false otherwise
+     * @throws SQLException if an SQL exception occurs
+     */
+    private boolean tableExists(Connection connection, String table) throws SQLException {
+        String existsQuery = "SELECT COUNT(*) FROM information_schema.tables "
+                + "WHERE table_schema = DATABASE() AND table_name = ?";
+        try (PreparedStatement statement = connection.prepareStatement(existsQuery)) {
+            statement.setString(1, table);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getInt(1) > 0;
+            }
+        }
+    }
+
+    /**
+     * Acquires the named lock serializing migrations across clients.
+     *
+     * @param connection the connection to hold the lock on
+     * @throws SQLException if the lock cannot be acquired
+     */
+    private void acquireLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            statement.setString(1, LOCK_NAME);
+            statement.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next() || resultSet.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another client to migrate the schema.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases the named lock serializing migrations across clients.
+     *
+     * @param connection the connection holding the lock
+     * @throws SQLException if an SQL exception occurs
+     */
+    private void releaseLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            statement.setString(1, LOCK_NAME);
+            statement.executeQuery().close();
+        }
+    }
+
+    /**
+     * Loads the packaged migrations.
+     *
+     * @return the migrations, in the order they are applied
+     * @throws SQLException if a migration cannot be read or the versions are
+     *                      not numbered consecutively
+     */
+    private List<Migration> loadMigrations() throws SQLException {
+        List<Migration> migrations = new ArrayList<>();
+        for (String name : MIGRATIONS) {
+            int separator = name.indexOf("__");
+            int version = Integer.parseInt(name.substring(1, separator));
+            if (version != migrations.size() + 1) {
+                throw new SQLException("Migration " + name + " is out of sequence; expected version "
+                        + (migrations.size() + 1) + ".");
+            }
+            String description = name.substring(separator + 2, name.length() - ".sql".length()).replace('_', ' ');
+            String script = readResource(name);
+            migrations.add(new Migration(version, description, script, checksum(script)));
+        }
+        return migrations;
+    }
+
+    /**
+     * Reads a migration script from the classpath.
+     *
+     * @param name the file name of the migration
+     * @return the script
+     * @throws SQLException if the script cannot be read
+     */
+    private String readResource(String name) throws SQLException {
+        try (InputStream inputStream = SchemaMigrator.class.getResourceAsStream(RESOURCE_PATH + name)) {
+            if (inputStream == null) {
+                throw new SQLException("Migration " + name + " is missing from the classpath.");
+            }
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Failed to read migration " + name + ".", e);
+        }
+    }
+
+    /**
+     * Computes the checksum of a script. Line endings are normalized, so a
+     * checkout with different line endings does not count as a change.
+     *
+     * @param script the script
+     * @return the SHA-256 checksum in hexadecimal
+     */
+    private static String checksum(String script) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(script.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+}
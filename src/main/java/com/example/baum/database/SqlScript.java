@@ -0,0 +1,112 @@
+package com.example.baum.database;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits SQL scripts into statements. Unlike splitting on every semicolon, a
+ * semicolon inside a string, a quoted identifier or a comment does not end a
+ * statement. Comments are removed from the returned statements.
+ */
+public final class SqlScript {
+
+    private SqlScript() {
+    }
+
+    /**
+     * Splits a script into its statements.
+     *
+     * @param script the SQL script
+     * @return the statements, trimmed and without the terminating semicolons
+     */
+    public static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int length = script.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = script.charAt(i);
+            char next = i + 1 < length ? script.charAt(i + 1) : '\0';
+
+            if (c == '\'' || c == '"' || c == '`') {
+                int end = skipQuoted(script, i, c);
+                current.append(script, i, end);
+                i = end;
+            } else if ((c == '-' && next == '-' && isCommentSpace(script, i + 2)) || c == '#') {
+                // Line comment
+                while (i < length && script.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && next == '*') {
+                int end = script.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                current.append(' ');
+            } else if (c == ';') {
+                addStatement(statements, current);
+                i++;
+            } else {
+                current.append(c);
+                i++;
+            }
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    /**
+     * Finds the end of a quoted string or identifier. A doubled quote character
+     * and, outside backticks, a backslash escape do not end it.
+     *
+     * @param script the SQL script
+     * @param start  the index of the opening quote
+     * @param quote  the quote character
+     * @return the index after the closing quote, or the script length if the
+     *         quote is not closed
+     */
+    private static int skipQuoted(String script, int start, char quote) {
+        int i = start + 1;
+        while (i < script.length()) {
+            char c = script.charAt(i);
+            if (c == '\\' && quote != '`') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < script.length() && script.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return script.length();
+    }
+
+    /**
+     * Checks whether the character after a double dash makes it a comment. MySQL
+     * requires whitespace or the end of the script there.
+     *
+     * @param script the SQL script
+     * @param index  the index after the double dash
+     * @return true if the double dash starts a comment, false otherwise
+     */
+    private static boolean isCommentSpace(String script, int index) {
+        return index >= script.length() || Character.isWhitespace(script.charAt(index));
+    }
+
+    /**
+     * Adds the collected statement to the list unless it is blank, and clears the
+     * buffer.
+     *
+     * @param statements the list of statements
+     * @param current    the buffer holding the statement
+     */
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String statement = current.toString().trim();
+        if (!statement.isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+}
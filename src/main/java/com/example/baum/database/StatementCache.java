@@ -0,0 +1,221 @@
+package com.example.baum.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded LRU cache of prepared statements that belongs to one physical
+ * connection. Statements are keyed by their SQL text. Closing a statement
+ * obtained from the cache returns it to the cache, with its parameters and the
+ * settings a user may have changed reset; statements evicted from the cache or
+ * left over when the connection is closed are closed for real.
+ */
+public class StatementCache {
+    private final Connection connection;
+    private final int maxSize;
+    private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructs a new StatementCache for the specified physical connection.
+     *
+     * @param connection the connection the statements are prepared on
+     * @param maxSize    the maximum number of cached statements
+     */
+    public StatementCache(Connection connection, int maxSize) {
+        this.connection = connection;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns a prepared statement for the specified SQL text, reusing a cached
+     * statement if one is available.
+     *
+     * @param sql               the SQL text of the statement
+     * @param autoGeneratedKeys the auto-generated keys flag, or -1 if the plain
+     *                          {@code prepareStatement(String)} variant was used
+     * @return the prepared statement
+     * @throws SQLException if the statement cannot be prepared
+     */
+    public synchronized PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys < 0 ? sql : autoGeneratedKeys + ":" + sql;
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            hits++;
+            cached.inUse = true;
+            return cached.proxy;
+        }
+
+        misses++;
+        PreparedStatement statement = autoGeneratedKeys < 0
+                ? connection.prepareStatement(sql)
+                : connection.prepareStatement(sql, autoGeneratedKeys);
+        if (cached != null || maxSize <= 0) {
+            // The cached statement is still open elsewhere on this connection,
+            // so hand out a statement that is not cached.
+            return statement;
+        }
+
+        cached = new CachedStatement(statement);
+        cached.inUse = true;
+        statements.put(key, cached);
+        evictOverflow();
+        return cached.proxy;
+    }
+
+    /**
+     * Closes the least recently used statements that are not in use until the
+     * cache fits its maximum size.
+     */
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, CachedStatement>> iterator = statements.entrySet().iterator();
+        while (statements.size() > maxSize && iterator.hasNext()) {
+            CachedStatement cached = iterator.next().getValue();
+            if (!cached.inUse) {
+                iterator.remove();
+                evictions++;
+                closeQuietly(cached.statement);
+            }
+        }
+    }
+
+    /**
+     * Marks a cached statement as available again.
+     *
+     * @param cached the statement returned by its user
+     * @throws SQLException if the statement cannot be reset
+     */
+    private synchronized void release(CachedStatement cached) throws SQLException {
+        cached.inUse = false;
+        try {
+            cached.statement.clearParameters();
+            cached.statement.clearBatch();
+            cached.statement.setQueryTimeout(0);
+            cached.statement.setMaxRows(0);
+            cached.statement.setFetchSize(0);
+        } catch (SQLException e) {
+            statements.values().remove(cached);
+            closeQuietly(cached.statement);
+            throw e;
+        }
+        evictOverflow();
+    }
+
+    /**
+     * Closes all cached statements.
+     */
+    public synchronized void close() {
+        for (CachedStatement cached : statements.values()) {
+            closeQuietly(cached.statement);
+        }
+        statements.clear();
+    }
+
+    /**
+     * Closes a statement, printing any error instead of propagating it.
+     *
+     * @param statement the statement to close
+     */
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the number of statements currently cached.
+     *
+     * @return the number of cached statements
+     */
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    /**
+     * Returns the number of requests served from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of requests that had to prepare a new statement.
+     *
+     * @return the number of cache misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of statements closed because the cache was full.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * A cached statement together with the proxy handed to its users.
+     */
+    private class CachedStatement implements InvocationHandler {
+        private final PreparedStatement statement;
+        private final PreparedStatement proxy;
+        private boolean inUse;
+
+        /**
+         * Constructs a new CachedStatement wrapping the specified statement.
+         *
+         * @param statement the prepared statement to cache
+         */
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (inUse) {
+                        release(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return !inUse || statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (!inUse) {
+                throw new SQLException("The statement has already been closed.");
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
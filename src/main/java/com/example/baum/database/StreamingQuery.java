@@ -0,0 +1,182 @@
+package com.example.baum.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import com.example.baum.DatabaseManager;
+
+/**
+ * Runs a query in streaming mode and hands the mapped rows to a consumer in
+ * chunks. The statement is forward-only and read-only with the MySQL streaming
+ * fetch size, so the driver reads one row at a time instead of buffering the
+ * whole result set before the first row is returned.
+ * <p>
+ * Chunks are delivered through an executor, typically the JavaFX Application
+ * Thread. The reading thread waits while the chunks handed over but not yet
+ * consumed would exceed the memory ceiling, so the memory held by a load stays
+ * bounded however large the table is.
+ *
+ * @param <T> the type of the mapped rows
+ */
+public class StreamingQuery<T> {
+    /**
+     * The fetch size that makes MySQL Connector/J stream rows one by one.
+     */
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private static final int DEFAULT_CHUNK_SIZE = 1000;
+    private static final long DEFAULT_MEMORY_CEILING = 16L * 1024 * 1024;
+    private static final int DEFAULT_ESTIMATED_ROW_BYTES = 256;
+
+    private final DatabaseManager databaseManager;
+    private final String sql;
+    private final RowMapper<T> rowMapper;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private long memoryCeiling = DEFAULT_MEMORY_CEILING;
+    private int estimatedRowBytes = DEFAULT_ESTIMATED_ROW_BYTES;
+
+    /**
+     * Constructs a new StreamingQuery.
+     *
+     * @param databaseManager the DatabaseManager providing connections
+     * @param sql             the query to run
+     * @param rowMapper       the mapper turning rows into objects
+     */
+    public StreamingQuery(DatabaseManager databaseManager, String sql, RowMapper<T> rowMapper) {
+        this.databaseManager = databaseManager;
+        this.sql = sql;
+        this.rowMapper = rowMapper;
+    }
+
+    /**
+     * Sets the number of rows handed to the consumer at once.
+     *
+     * @param chunkSize the rows per chunk, at least 1
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Sets the maximum memory the mapped rows waiting for the consumer may take.
+     *
+     * @param memoryCeiling the ceiling in bytes
+     */
+    public void setMemoryCeiling(long memoryCeiling) {
+        this.memoryCeiling = memoryCeiling;
+    }
+
+    /**
+     * Sets the estimated memory taken by one mapped row, used to convert the
+     * memory ceiling into a number of chunks.
+     *
+     * @param estimatedRowBytes the estimated size of a row in bytes
+     */
+    public void setEstimatedRowBytes(int estimatedRowBytes) {
+        this.estimatedRowBytes = Math.max(1, estimatedRowBytes);
+    }
+
+    /**
+     * Returns the number of chunks that may wait for the consumer at the same
+     * time without exceeding the memory ceiling.
+     *
+     * @return the number of chunks, at least 1
+     */
+    private int maxPendingChunks() {
+        long chunkBytes = (long) chunkSize * estimatedRowBytes;
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, memoryCeiling / chunkBytes));
+    }
+
+    /**
+     * Runs the query and delivers the rows in chunks. Returns once every chunk
+     * has been consumed.
+     *
+     * @param parameters       the query parameters, in order
+     * @param deliveryExecutor the executor the consumer runs on
+     * @param chunkConsumer    the consumer of the chunks
+     * @return the number of rows streamed
+     * @throws SQLException if an SQL exception occurs
+     */
+    public long run(Object[] parameters, Executor deliveryExecutor, Consumer<List<T>> chunkConsumer)
+            throws SQLException {
+        int maxPendingChunks = maxPendingChunks();
+        Semaphore pendingChunks = new Semaphore(maxPendingChunks);
+        long start = System.nanoTime();
+        long rows = 0;
+
+        try (Connection connection = databaseManager.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(STREAMING_FETCH_SIZE);
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                List<T> chunk = new ArrayList<>(chunkSize);
+                while (resultSet.next()) {
+                    chunk.add(rowMapper.map(resultSet));
+                    rows++;
+                    if (chunk.size() == chunkSize) {
+                        deliver(chunk, pendingChunks, deliveryExecutor, chunkConsumer);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    deliver(chunk, pendingChunks, deliveryExecutor, chunkConsumer);
+                }
+            }
+        }
+        // Wait until the consumer has caught up with every delivered chunk
+        acquire(pendingChunks, maxPendingChunks);
+
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.println("Streamed " + rows + " rows in " + millis + " ms ("
+                + (rows * 1000 / millis) + " rows/s)");
+        return rows;
+    }
+
+    /**
+     * Hands a chunk to the consumer, waiting first if too many chunks are still
+     * pending.
+     *
+     * @param chunk            the chunk to deliver
+     * @param pendingChunks    the permits bounding the pending chunks
+     * @param deliveryExecutor the executor the consumer runs on
+     * @param chunkConsumer    the consumer of the chunk
+     * @throws SQLException if the thread is interrupted while waiting
+     */
+    private void deliver(List<T> chunk, Semaphore pendingChunks, Executor deliveryExecutor,
+            Consumer<List<T>> chunkConsumer) throws SQLException {
+        acquire(pendingChunks, 1);
+        deliveryExecutor.execute(() -> {
+            try {
+                chunkConsumer.accept(chunk);
+            } finally {
+                pendingChunks.release();
+            }
+        });
+    }
+
+    /**
+     * Acquires the specified number of permits, waiting until they are available.
+     *
+     * @param semaphore the semaphore to acquire from
+     * @param permits   the number of permits
+     * @throws SQLException if the thread is interrupted while waiting
+     */
+    private static void acquire(Semaphore semaphore, int permits) throws SQLException {
+        try {
+            semaphore.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while streaming rows.", e);
+        }
+    }
+}
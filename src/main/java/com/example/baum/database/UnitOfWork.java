@@ -0,0 +1,217 @@
+package com.example.baum.database;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Groups the writes of several data classes into one database transaction.
+ * While a unit of work runs, every connection borrowed on its thread is the
+ * connection of the unit, so the writes of the data classes join its
+ * transaction and are committed together, with a single commit instead of one
+ * per statement. Calls of {@code close}, {@code commit} and
+ * {@code setAutoCommit} on that connection are ignored, and a
+ * {@code rollback} marks the unit to be rolled back when it completes.
+ * <p>
+ * The in-memory lists are not touched while the unit runs. The data classes
+ * register their list updates with {@link #afterCommit(Runnable)}, and the
+ * updates are applied on the JavaFX Application Thread once the transaction
+ * is committed. If the unit fails, the transaction is rolled back and the
+ * updates are discarded, so the database and the lists stay as they were.
+ * The tables written are invalidated in the query cache again when the unit
+ * completes, so results read inside the uncommitted transaction are not
+ * served afterwards.
+ * <p>
+ * The work runs on a single thread. Asynchronous methods of the data classes
+ * run on other threads and therefore do not join the unit; the work must run
+ * its statements on the calling thread instead.
+ */
+public class UnitOfWork {
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final List<Runnable> commitActions = new ArrayList<>();
+    private final List<Runnable> completionActions = new ArrayList<>();
+    private Connection connection;
+    private Connection boundConnection;
+    private boolean rollbackOnly;
+    private boolean committed;
+
+    /**
+     * Constructs a unit of work that has not been executed yet.
+     */
+    public UnitOfWork() {
+    }
+
+    /**
+     * The writes grouped into a unit of work.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        /**
+         * Runs the writes.
+         *
+         * @param unit the unit of work the writes join
+         * @return the result
+         * @throws SQLException if an SQL exception occurs
+         */
+        T run(UnitOfWork unit) throws SQLException;
+    }
+
+    /**
+     * Returns the unit of work running on the current thread.
+     *
+     * @return the unit of work, or null if none is running
+     */
+    public static UnitOfWork current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs work in a transaction on a connection, committing it if the work
+     * succeeds and rolling it back otherwise. The connection is closed
+     * afterwards. Must not be called on the JavaFX Application Thread.
+     *
+     * @param connection the connection to run the transaction on
+     * @param work       the writes to group
+     * @param <T>        the type of the result
+     * @return the result of the work
+     * @throws SQLException if an SQL exception occurs, the work failed or a
+     *                      unit of work is already running on this thread
+     */
+    public <T> T execute(Connection connection, Work<T> work) throws SQLException {
+        if (CURRENT.get() != null) {
+            connection.close();
+            throw new SQLException("A unit of work is already running on this thread.");
+        }
+        if (this.connection != null) {
+            connection.close();
+            throw new SQLException("The unit of work has already been executed.");
+        }
+        this.connection = connection;
+        try (connection) {
+            connection.setAutoCommit(false);
+            CURRENT.set(this);
+            try {
+                T result = work.run(this);
+                if (rollbackOnly) {
+                    throw new SQLException("The unit of work was rolled back by one of its writes.");
+                }
+                connection.commit();
+                committed = true;
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                throw e;
+            } finally {
+                CURRENT.remove();
+                connection.setAutoCommit(true);
+                for (Runnable action : completionActions) {
+                    action.run();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the connection of this unit. Closing it does not end the
+     * transaction; the connection stays open until the unit completes.
+     *
+     * @return the connection
+     * @throws SQLException if the unit is not running
+     */
+    public Connection getConnection() throws SQLException {
+        if (connection == null || CURRENT.get() != this) {
+            throw new SQLException("The unit of work is not running on this thread.");
+        }
+        if (boundConnection == null) {
+            boundConnection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, this::invokeBound);
+        }
+        return boundConnection;
+    }
+
+    /**
+     * Handles the calls of the connection handed out while the unit runs.
+     *
+     * @param proxy  the connection proxy
+     * @param method the called method
+     * @param args   the arguments of the call
+     * @return the result of the call
+     * @throws Throwable if the call fails
+     */
+    private Object invokeBound(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "close":
+            case "commit":
+            case "setAutoCommit":
+                return null;
+            case "rollback":
+                if (args == null) {
+                    rollbackOnly = true;
+                    return null;
+                }
+                break;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "UnitOfWork[" + connection + "]";
+            default:
+                break;
+        }
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Registers an update of the in-memory state, applied on the JavaFX
+     * Application Thread once the transaction is committed. The updates are
+     * applied in the order they were registered, and discarded if the unit
+     * fails.
+     *
+     * @param action the update
+     */
+    public void afterCommit(Runnable action) {
+        commitActions.add(action);
+    }
+
+    /**
+     * Registers an action run on the thread of the unit once the transaction
+     * is committed or rolled back, like invalidating a cache.
+     *
+     * @param action the action
+     */
+    void afterCompletion(Runnable action) {
+        completionActions.add(action);
+    }
+
+    /**
+     * Applies the in-memory updates registered by the writes. Must be called on
+     * the JavaFX Application Thread after the unit was committed.
+     *
+     * @throws IllegalStateException if the unit was not committed
+     */
+    public void applyCommitted() {
+        if (!committed) {
+            throw new IllegalStateException("The unit of work has not been committed.");
+        }
+        for (Runnable action : commitActions) {
+            action.run();
+        }
+        commitActions.clear();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.baum.index;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Creates the collation keys names are sorted by. The keys follow the German
+ * collation rules, so umlauts sort next to their base letters and case only
+ * decides between otherwise equal names.
+ * <p>
+ * Comparing two collation keys only compares their bytes, while comparing two
+ * strings with a collator decomposes both strings again. The entities therefore
+ * cache the keys of their names, and the tables sort by the cached keys.
+ */
+public final class CollationKeys {
+    /** Collections at least this large get their keys computed in parallel. */
+    public static final int PARALLEL_THRESHOLD = 10_000;
+
+    private static final ThreadLocal<Collator> COLLATOR =
+            ThreadLocal.withInitial(() -> Collator.getInstance(Locale.GERMAN));
+
+    private CollationKeys() {
+    }
+
+    /**
+     * Creates the collation key of a text. Collators are not thread-safe, so
+     * each thread uses its own; keys of different threads compare correctly.
+     *
+     * @param text the text, may be null
+     * @return the collation key, the key of the empty text for null
+     */
+    public static CollationKey of(String text) {
+        return COLLATOR.get().getCollationKey(text != null ? text : "");
+    }
+
+    /**
+     * Computes the keys of all elements of a collection, so a following sort
+     * only compares cached keys. Large collections are processed in parallel.
+     *
+     * @param elements the elements
+     * @param key      the function returning the cached key of an element
+     * @param <T>      the type of the elements
+     */
+    public static <T> void precompute(Collection<T> elements, Function<T, CollationKey> key) {
+        if (elements.size() >= PARALLEL_THRESHOLD) {
+            elements.parallelStream().forEach(key::apply);
+        } else {
+            elements.forEach(key::apply);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.baum.index;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Encodes names with the Cologne phonetics (Kölner Phonetik), a phonetic
+ * algorithm for German. Names that sound alike get the same code, so spelling
+ * variants like Meier, Mayer and Maier are all encoded as {@code 67}.
+ * <p>
+ * Every letter is mapped to a digit depending on its neighbors. Repeated digits
+ * are merged, and vowels are dropped except at the start. Letters other than
+ * A to Z are reduced to their base letter, so umlauts are encoded as their
+ * vowels; other characters are ignored.
+ */
+public final class ColognePhonetic {
+    private static final char START = '/';
+    private static final char IGNORED = '-';
+
+    private ColognePhonetic() {
+    }
+
+    /**
+     * Encodes a text.
+     *
+     * @param text the text to encode, may be null
+     * @return the phonetic code, empty if the text has no letters
+     */
+    public static String encode(String text) {
+        if (text == null) {
+            return "";
+        }
+        String letters = normalize(text);
+        StringBuilder code = new StringBuilder(letters.length());
+        char lastCode = START;
+
+        for (int i = 0; i < letters.length(); i++) {
+            char letter = letters.charAt(i);
+            char previous = i > 0 ? letters.charAt(i - 1) : START;
+            char next = i + 1 < letters.length() ? letters.charAt(i + 1) : START;
+
+            if (letter == 'X' && !isOneOf(previous, "CKQ")) {
+                // Encoded like "KS"
+                lastCode = append(code, '4', lastCode);
+                lastCode = append(code, '8', lastCode);
+                continue;
+            }
+            char digit = digitOf(letter, previous, next, previous < 'A' || previous > 'Z');
+            if (digit == IGNORED) {
+                if (lastCode != START) {
+                    lastCode = IGNORED;
+                }
+                continue;
+            }
+            lastCode = append(code, digit, lastCode);
+        }
+        return code.toString();
+    }
+
+    /**
+     * Maps a letter to its digit.
+     *
+     * @param letter   the uppercase letter
+     * @param previous the letter before it, or a placeholder at the start
+     * @param next     the letter after it, or a placeholder at the end
+     * @param initial  whether the letter starts a word
+     * @return the digit, or a placeholder if the letter is not encoded
+     */
+    private static char digitOf(char letter, char previous, char next, boolean initial) {
+        switch (letter) {
+            case 'A', 'E', 'I', 'J', 'O', 'U', 'Y':
+                return '0';
+            case 'B':
+                return '1';
+            case 'P':
+                return next == 'H' ? '3' : '1';
+            case 'D', 'T':
+                return isOneOf(next, "CSZ") ? '8' : '2';
+            case 'F', 'V', 'W':
+                return '3';
+            case 'G', 'K', 'Q':
+                return '4';
+            case 'X':
+                // Only reached after C, K or Q
+                return '8';
+            case 'C':
+                if (initial) {
+                    return isOneOf(next, "AHKLOQRUX") ? '4' : '8';
+                }
+                return isOneOf(next, "AHKOQUX") && !isOneOf(previous, "SZ") ? '4' : '8';
+            case 'L':
+                return '5';
+            case 'M', 'N':
+                return '6';
+            case 'R':
+                return '7';
+            case 'S', 'Z':
+                return '8';
+            default:
+                return IGNORED;
+        }
+    }
+
+    /**
+     * Appends a digit unless it repeats the previous one, or is a vowel after
+     * the start.
+     *
+     * @param code     the code being built
+     * @param digit    the digit to append
+     * @param lastCode the previous digit, or a placeholder
+     * @return the new previous digit
+     */
+    private static char append(StringBuilder code, char digit, char lastCode) {
+        if (digit != lastCode && (digit != '0' || lastCode == START)) {
+            code.append(digit);
+        }
+        return digit;
+    }
+
+    /**
+     * Uppercases a text and reduces its letters to A to Z.
+     *
+     * @param text the text
+     * @return the normalized text
+     */
+    private static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text.replace("ß", "s"), Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}+", "").toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Checks whether a character is one of the specified characters.
+     *
+     * @param c          the character
+     * @param characters the characters
+     * @return true if it is one of them, false otherwise
+     */
+    private static boolean isOneOf(char c, String characters) {
+        return characters.indexOf(c) >= 0;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.baum.index;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * An index over an observable list of entities that resolves IDs and names in
+ * constant time. The index listens to the list, so every addition, replacement
+ * and removal is reflected immediately. An entity renamed in place is
+ * re-indexed by setting it again at its position in the list. Lookups may be
+ * called from any thread.
+ *
+ * @param <T> the type of the indexed entities
+ */
+public class EntityIndex<T> {
+    private final ToIntFunction<T> idOf;
+    private final Function<T, String> nameOf;
+    private final IntHashMap<T> byId = new IntHashMap<>();
+    private final Map<String, List<T>> byName = new HashMap<>();
+    private final Map<T, String> indexedNames = new IdentityHashMap<>();
+
+    /**
+     * Constructs a new EntityIndex over the specified list and starts keeping it
+     * in sync with the list.
+     *
+     * @param list   the list to index
+     * @param idOf   the function extracting the ID of an entity
+     * @param nameOf the function extracting the name of an entity
+     */
+    public EntityIndex(ObservableList<T> list, ToIntFunction<T> idOf, Function<T, String> nameOf) {
+        this.idOf = idOf;
+        this.nameOf = nameOf;
+        addAll(list);
+        list.addListener((ListChangeListener<T>) change -> {
+            while (change.next()) {
+                if (change.wasPermutated()) {
+                    continue;
+                }
+                removeAll(change.getRemoved());
+                addAll(change.getAddedSubList());
+            }
+        });
+    }
+
+    /**
+     * Adds the specified entities to the index.
+     *
+     * @param entities the entities to add
+     */
+    private synchronized void addAll(List<? extends T> entities) {
+        for (T entity : entities) {
+            byId.put(idOf.applyAsInt(entity), entity);
+            String name = nameOf.apply(entity);
+            byName.computeIfAbsent(name, key -> new ArrayList<>(1)).add(entity);
+            indexedNames.put(entity, name);
+        }
+    }
+
+    /**
+     * Removes the specified entities from the index.
+     *
+     * @param entities the entities to remove
+     */
+    private synchronized void removeAll(List<? extends T> entities) {
+        for (T entity : entities) {
+            int id = idOf.applyAsInt(entity);
+            if (byId.get(id) == entity) {
+                byId.remove(id);
+            }
+            // Entities may have been renamed since they were indexed
+            String name = indexedNames.remove(entity);
+            List<T> named = byName.get(name);
+            if (named != null) {
+                named.remove(entity);
+                if (named.isEmpty()) {
+                    byName.remove(name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the entity with the specified ID.
+     *
+     * @param id the ID to look up
+     * @return the entity, or null if no entity has the ID
+     */
+    public synchronized T getById(int id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Returns the first entity with the specified name.
+     *
+     * @param name the name to look up
+     * @return the entity, or null if no entity has the name
+     */
+    public synchronized T getByName(String name) {
+        List<T> named = byName.get(name);
+        return named == null ? null : named.get(0);
+    }
+
+    /**
+     * Returns the number of indexed entities.
+     *
+     * @return the number of entities
+     */
+    public synchronized int size() {
+        return byId.size();
+    }
+}
@@ -0,0 +1,485 @@
+package com.example.baum.index;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * A typo-tolerant index over the words in the text fields of the entities in
+ * an observable list. The index listens to the list, so every addition,
+ * replacement and removal is reflected immediately. An entity changed in place
+ * is re-indexed with {@link #update(Object)}.
+ * <p>
+ * Words are compared by their trigrams: two spellings of a name share most of
+ * their trigrams even with a letter missing, added or swapped. Every trigram
+ * maps to the entities with a word containing it, so a query only counts the
+ * shared trigrams of the entities found through the trigrams of its own words,
+ * and computes the exact similarity for the best of those. No query compares
+ * the term with every entity. Case and accents are ignored.
+ *
+ * @param <T> the type of the indexed entities
+ */
+public class FuzzyIndex<T> {
+    /**
+     * The lowest similarity, between 0 and 1, of a word to a search word for
+     * the entity to be returned.
+     */
+    private static final double MIN_SIMILARITY = 0.3;
+
+    /**
+     * The number of candidates, per requested result, whose exact similarity is
+     * computed.
+     */
+    private static final int CANDIDATES_PER_RESULT = 8;
+
+    /**
+     * The lowest share of the search trigrams a candidate must contain.
+     */
+    private static final double MIN_SHARED_GRAMS = 0.25;
+
+    /**
+     * Search trigrams contained in more than this share of the entities, like
+     * the first letters of common surnames, say little about a match and are
+     * not counted while others are left.
+     */
+    private static final int COMMON_GRAM_DIVISOR = 16;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MIN_COMPACTION_SLOTS = 1024;
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final List<Function<T, String>> fields;
+    private final Map<T, Integer> slotOf = new IdentityHashMap<>();
+    private final IntHashMap<Postings> postings = new IntHashMap<>();
+    private Object[] entities = new Object[INITIAL_CAPACITY];
+    private String[][] words = new String[INITIAL_CAPACITY][];
+    private int[] sharedGrams = new int[INITIAL_CAPACITY];
+    private int slotCount;
+
+    /**
+     * A scored search result.
+     *
+     * @param slot  the slot of the entity
+     * @param score the similarity of the entity to the search term
+     */
+    private record Match(int slot, double score) {
+    }
+
+    /**
+     * Constructs a new FuzzyIndex over the specified list and starts keeping it
+     * in sync with the list.
+     *
+     * @param list   the list to index
+     * @param fields the functions extracting the searchable fields of an entity
+     */
+    public FuzzyIndex(ObservableList<T> list, List<Function<T, String>> fields) {
+        this.fields = List.copyOf(fields);
+        addAll(list);
+        list.addListener((ListChangeListener<T>) change -> {
+            while (change.next()) {
+                if (change.wasPermutated()) {
+                    continue;
+                }
+                removeAll(change.getRemoved());
+                addAll(change.getAddedSubList());
+            }
+        });
+    }
+
+    /**
+     * Re-indexes an entity whose fields have changed in place.
+     *
+     * @param entity the changed entity
+     */
+    public synchronized void update(T entity) {
+        if (remove(entity)) {
+            add(entity);
+            compactIfSparse();
+        }
+    }
+
+    /**
+     * Returns the entities most similar to the search term. Every word of the
+     * term is compared with the most similar word of an entity, and the
+     * similarities are averaged.
+     *
+     * @param term  the search term
+     * @param limit the maximum number of results
+     * @return the most similar entities, best first
+     */
+    public synchronized List<T> search(String term, int limit) {
+        String[] searchWords = splitWords(term);
+        if (searchWords.length == 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        int[][] searchGrams = new int[searchWords.length][];
+        for (int i = 0; i < searchWords.length; i++) {
+            searchGrams[i] = grams(searchWords[i]);
+        }
+        List<Postings> counted = selectPostings(distinct(searchGrams));
+
+        // Count the search trigrams of every entity sharing at least one
+        int[] touched = new int[16];
+        int touchedCount = 0;
+        int mostShared = 0;
+        for (Postings gramPostings : counted) {
+            for (int i = 0; i < gramPostings.size(); i++) {
+                int slot = gramPostings.get(i);
+                if (entities[slot] == null) {
+                    continue;
+                }
+                if (sharedGrams[slot]++ == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = slot;
+                }
+                mostShared = Math.max(mostShared, sharedGrams[slot]);
+            }
+        }
+
+        int minShared = Math.max(1, (int) Math.ceil(counted.size() * MIN_SHARED_GRAMS));
+        touched = Arrays.copyOf(touched, touchedCount);
+        int[] candidates = selectCandidates(touched, mostShared, minShared, limit * CANDIDATES_PER_RESULT);
+        for (int slot : touched) {
+            sharedGrams[slot] = 0;
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (int slot : candidates) {
+            double score = similarity(searchGrams, words[slot]);
+            if (score >= MIN_SIMILARITY) {
+                matches.add(new Match(slot, score));
+            }
+        }
+        matches.sort((a, b) -> a.score() != b.score()
+                ? Double.compare(b.score(), a.score())
+                : Integer.compare(a.slot(), b.slot()));
+
+        List<T> results = new ArrayList<>();
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            results.add(entityOf(entities[matches.get(i).slot()]));
+        }
+        return results;
+    }
+
+    /**
+     * Looks up the postings of the search trigrams, leaving out the common ones
+     * if most of them are rare.
+     *
+     * @param gramKeys the distinct search trigrams
+     * @return the postings to count
+     */
+    private List<Postings> selectPostings(int[] gramKeys) {
+        List<Postings> all = new ArrayList<>();
+        List<Postings> selected = new ArrayList<>();
+        int commonSize = Math.max(MIN_COMPACTION_SLOTS, slotOf.size() / COMMON_GRAM_DIVISOR);
+        for (int key : gramKeys) {
+            Postings gramPostings = postings.get(key);
+            if (gramPostings == null) {
+                continue;
+            }
+            all.add(gramPostings);
+            if (gramPostings.size() <= commonSize) {
+                selected.add(gramPostings);
+            }
+        }
+        // Too few rare trigrams to find the matches by, as for a common name
+        if (selected.size() * 2 < gramKeys.length) {
+            selected = all;
+        }
+        return selected;
+    }
+
+    /**
+     * Picks the entities sharing the most search trigrams, by bucketing them by
+     * their count.
+     *
+     * @param touched    the slots sharing at least one search trigram
+     * @param mostShared the highest count
+     * @param minShared  the lowest count a candidate must have
+     * @param maximum    the maximum number of candidates
+     * @return the candidate slots
+     */
+    private int[] selectCandidates(int[] touched, int mostShared, int minShared, int maximum) {
+        int[] bucketSizes = new int[mostShared + 1];
+        for (int slot : touched) {
+            bucketSizes[sharedGrams[slot]]++;
+        }
+        int lowestCount = mostShared;
+        int selected = bucketSizes[mostShared];
+        while (lowestCount > minShared && selected < maximum) {
+            lowestCount--;
+            selected += bucketSizes[lowestCount];
+        }
+
+        // The lowest count selected may hold more entities than are needed
+        int[] candidates = new int[Math.min(selected, maximum)];
+        int count = 0;
+        for (int slot : touched) {
+            if (sharedGrams[slot] > lowestCount && count < candidates.length) {
+                candidates[count++] = slot;
+            }
+        }
+        for (int slot : touched) {
+            if (sharedGrams[slot] == lowestCount && count < candidates.length && lowestCount >= minShared) {
+                candidates[count++] = slot;
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    /**
+     * Computes the similarity of an entity to the search words.
+     *
+     * @param searchGrams the trigrams of every search word
+     * @param entityWords the words of the entity
+     * @return the average best similarity, between 0 and 1
+     */
+    private static double similarity(int[][] searchGrams, String[] entityWords) {
+        int[][] entityGrams = new int[entityWords.length][];
+        for (int i = 0; i < entityWords.length; i++) {
+            entityGrams[i] = grams(entityWords[i]);
+        }
+        double total = 0;
+        for (int[] searchWordGrams : searchGrams) {
+            double best = 0;
+            for (int[] entityWordGrams : entityGrams) {
+                best = Math.max(best, dice(searchWordGrams, entityWordGrams));
+            }
+            total += best;
+        }
+        return total / searchGrams.length;
+    }
+
+    /**
+     * Computes the Dice coefficient of two sorted trigram sets.
+     *
+     * @param a the first set
+     * @param b the second set
+     * @return twice the shared trigrams divided by the total trigrams
+     */
+    private static double dice(int[] a, int[] b) {
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return 2.0 * shared / (a.length + b.length);
+    }
+
+    /**
+     * Computes the distinct trigrams of a word. The word is padded with two
+     * spaces in front and one behind, so short words have trigrams and the
+     * first letters weigh more.
+     *
+     * @param word the normalized word
+     * @return the sorted distinct trigram keys
+     */
+    private static int[] grams(String word) {
+        String padded = "  " + word + " ";
+        int[] keys = new int[padded.length() - 2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = Postings.gramKey(padded, i);
+        }
+        Arrays.sort(keys);
+        return distinctSorted(keys);
+    }
+
+    /**
+     * Merges trigram sets.
+     *
+     * @param gramSets the sorted trigram sets
+     * @return the sorted distinct trigrams of all sets
+     */
+    private static int[] distinct(int[][] gramSets) {
+        int[] all = new int[0];
+        for (int[] gramSet : gramSets) {
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + gramSet.length);
+            System.arraycopy(gramSet, 0, all, offset, gramSet.length);
+        }
+        Arrays.sort(all);
+        return distinctSorted(all);
+    }
+
+    /**
+     * Removes the duplicates from a sorted array.
+     *
+     * @param sorted the sorted array
+     * @return the sorted distinct values
+     */
+    private static int[] distinctSorted(int[] sorted) {
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    /**
+     * Splits a text into normalized words: lowercased, without accents and
+     * without punctuation.
+     *
+     * @param text the text
+     * @return the words
+     */
+    private static String[] splitWords(String text) {
+        String normalized = Normalizer.normalize(text.toLowerCase(), Normalizer.Form.NFD);
+        normalized = COMBINING_MARKS.matcher(normalized).replaceAll("");
+        return WORD_SEPARATOR.splitAsStream(normalized)
+                .filter(word -> !word.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Adds the specified entities to the index.
+     *
+     * @param added the entities to add
+     */
+    private synchronized void addAll(List<? extends T> added) {
+        for (T entity : added) {
+            remove(entity);
+            add(entity);
+        }
+    }
+
+    /**
+     * Removes the specified entities from the index.
+     *
+     * @param removed the entities to remove
+     */
+    private synchronized void removeAll(List<? extends T> removed) {
+        for (T entity : removed) {
+            remove(entity);
+        }
+        compactIfSparse();
+    }
+
+    /**
+     * Reclaims the slots freed by removals and updates once there are more of
+     * them than live entities.
+     */
+    private void compactIfSparse() {
+        int freeSlots = slotCount - slotOf.size();
+        if (freeSlots > MIN_COMPACTION_SLOTS && freeSlots > slotOf.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Stores an entity in a new slot and indexes the trigrams of its words.
+     *
+     * @param entity the entity to add
+     */
+    private void add(T entity) {
+        if (slotCount == entities.length) {
+            entities = Arrays.copyOf(entities, slotCount * 2);
+            words = Arrays.copyOf(words, slotCount * 2);
+            sharedGrams = Arrays.copyOf(sharedGrams, slotCount * 2);
+        }
+        int slot = slotCount++;
+        String[] entityWords = wordsOf(entity);
+        entities[slot] = entity;
+        words[slot] = entityWords;
+        slotOf.put(entity, slot);
+        for (String word : entityWords) {
+            for (int key : grams(word)) {
+                Postings gramPostings = postings.get(key);
+                if (gramPostings == null) {
+                    gramPostings = new Postings();
+                    postings.put(key, gramPostings);
+                }
+                gramPostings.add(slot);
+            }
+        }
+    }
+
+    /**
+     * Frees the slot of an entity. Its postings are left in place and skipped
+     * by queries.
+     *
+     * @param entity the entity to remove
+     * @return true if the entity was indexed, false otherwise
+     */
+    private boolean remove(T entity) {
+        Integer slot = slotOf.remove(entity);
+        if (slot == null) {
+            return false;
+        }
+        entities[slot] = null;
+        words[slot] = null;
+        return true;
+    }
+
+    /**
+     * Rebuilds the index from the live entities, reclaiming freed slots.
+     */
+    private void compact() {
+        Object[] live = new Object[slotOf.size()];
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (entities[slot] != null) {
+                live[count++] = entities[slot];
+            }
+        }
+        int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, count)) << 1);
+        entities = new Object[capacity];
+        words = new String[capacity][];
+        sharedGrams = new int[capacity];
+        slotCount = 0;
+        slotOf.clear();
+        postings.clear();
+        for (int i = 0; i < count; i++) {
+            add(entityOf(live[i]));
+        }
+    }
+
+    /**
+     * Collects the normalized words of the fields of an entity.
+     *
+     * @param entity the entity
+     * @return the words
+     */
+    private String[] wordsOf(T entity) {
+        List<String> entityWords = new ArrayList<>();
+        for (Function<T, String> field : fields) {
+            String value = field.apply(entity);
+            if (value != null) {
+                entityWords.addAll(Arrays.asList(splitWords(value)));
+            }
+        }
+        return entityWords.toArray(new String[0]);
+    }
+
+    /**
+     * Casts a stored entity back to its type.
+     *
+     * @param stored the stored entity
+     * @return the entity
+     */
+    @SuppressWarnings("unchecked")
+    private T entityOf(Object stored) {
+        return (T) stored;
+    }
+}
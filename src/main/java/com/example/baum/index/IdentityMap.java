@@ -0,0 +1,135 @@
+package com.example.baum.index;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Maps the IDs of entities to their canonical instances, so every query of a
+ * session resolves an ID to the same instance. Queries look up the IDs of the
+ * rows they read first and only build entities for IDs not mapped yet.
+ * <p>
+ * The loaded entities of a list are canonical and are looked up through the
+ * index of the list, so they take no extra memory here. Other entities are
+ * only held weakly, so entities no longer referenced anywhere are dropped from
+ * the map. Methods may be called from any thread.
+ *
+ * @param <T> the type of the mapped entities
+ */
+public class IdentityMap<T> {
+    private final ToIntFunction<T> idOf;
+    private final IntHashMap<Entry<T>> entries = new IntHashMap<>();
+    private final ReferenceQueue<T> collected = new ReferenceQueue<>();
+    private volatile IntFunction<T> listed = id -> null;
+
+    /**
+     * A weak reference to an entity that remembers its ID, so the entry can be
+     * removed once the entity was collected.
+     *
+     * @param <T> the type of the entity
+     */
+    private static final class Entry<T> extends WeakReference<T> {
+        private final int id;
+
+        /**
+         * Constructs a new Entry.
+         *
+         * @param id     the ID of the entity
+         * @param entity the entity
+         * @param queue  the queue the entry is added to once the entity was
+         *               collected
+         */
+        private Entry(int id, T entity, ReferenceQueue<T> queue) {
+            super(entity, queue);
+            this.id = id;
+        }
+    }
+
+    /**
+     * Constructs a new, empty IdentityMap.
+     *
+     * @param idOf the function extracting the ID of an entity
+     */
+    public IdentityMap(ToIntFunction<T> idOf) {
+        this.idOf = idOf;
+    }
+
+    /**
+     * Makes the entities of a list canonical. They are found through the
+     * specified lookup, which must be thread-safe, before any mapped entity.
+     *
+     * @param listedById the lookup of the listed entities by ID
+     */
+    public void setListed(IntFunction<T> listedById) {
+        this.listed = listedById;
+    }
+
+    /**
+     * Returns the canonical instance of an ID.
+     *
+     * @param id the ID
+     * @return the canonical instance, or null if the ID is not mapped
+     */
+    public synchronized T get(int id) {
+        T listedEntity = listed.apply(id);
+        if (listedEntity != null) {
+            return listedEntity;
+        }
+        expungeCollected();
+        Entry<T> entry = entries.get(id);
+        return entry == null ? null : entry.get();
+    }
+
+    /**
+     * Returns the canonical instance of the ID of an entity, making the entity
+     * canonical if the ID is not mapped yet.
+     *
+     * @param entity the entity
+     * @return the canonical instance
+     */
+    public synchronized T intern(T entity) {
+        T canonical = get(idOf.applyAsInt(entity));
+        if (canonical != null) {
+            return canonical;
+        }
+        put(entity);
+        return entity;
+    }
+
+    /**
+     * Maps an entity to its ID. The entity is canonical unless an entity with
+     * the same ID is listed.
+     *
+     * @param entity the entity
+     */
+    private void put(T entity) {
+        expungeCollected();
+        int id = idOf.applyAsInt(entity);
+        entries.put(id, new Entry<>(id, entity, collected));
+    }
+
+    /**
+     * Returns the number of IDs mapped besides the listed entities, including
+     * those whose entity was collected but not yet removed.
+     *
+     * @return the number of IDs
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes the entries of collected entities.
+     */
+    @SuppressWarnings("unchecked")
+    private void expungeCollected() {
+        Entry<T> entry;
+        while ((entry = (Entry<T>) collected.poll()) != null) {
+            // The ID may have been mapped to another entity since
+            if (entries.get(entry.id) == entry) {
+                entries.remove(entry.id);
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.baum.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A hash map from primitive {@code int} keys to object values.
+ * Keys are stored unboxed in an open-addressing table with linear probing, so
+ * lookups allocate nothing. Null values are not supported.
+ *
+ * @param <V> the type of the values
+ */
+public class IntHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int threshold;
+
+    /**
+     * Constructs an empty IntHashMap.
+     */
+    public IntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty IntHashMap sized for the specified number of entries.
+     *
+     * @param expectedSize the number of entries expected
+     */
+    public IntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Allocates empty tables with the specified capacity.
+     *
+     * @param capacity the capacity, a power of two
+     */
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Computes the home slot of a key.
+     *
+     * @param key the key
+     * @return the index of the slot the probe starts at
+     */
+    private int slot(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (keys.length - 1);
+    }
+
+    /**
+     * Returns the value mapped to the specified key.
+     *
+     * @param key the key to look up
+     * @return the value, or null if the key is not mapped
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the specified key is mapped.
+     *
+     * @param key the key to look up
+     * @return true if the key is mapped, false otherwise
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps the specified key to the specified value.
+     *
+     * @param key   the key
+     * @param value the value, must not be null
+     * @return the value previously mapped to the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported.");
+        }
+        int mask = keys.length - 1;
+        int i = slot(key);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > threshold) {
+            resize();
+        }
+        return null;
+    }
+
+    /**
+     * Removes the mapping of the specified key.
+     *
+     * @param key the key to remove
+     * @return the value that was mapped to the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int mask = keys.length - 1;
+        int i = slot(key);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V removed = (V) values[i];
+                shiftBack(i);
+                size--;
+                return removed;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Closes the gap left by a removed entry by moving later entries of the same
+     * probe sequence back, so lookups never stop early.
+     *
+     * @param gap the index of the removed entry
+     */
+    private void shiftBack(int gap) {
+        int mask = keys.length - 1;
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            if (values[i] == null) {
+                break;
+            }
+            int home = slot(keys[i]);
+            // Move the entry if its home slot is not between the gap and its position
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        values[gap] = null;
+    }
+
+    /**
+     * Doubles the capacity and re-inserts all entries.
+     */
+    @SuppressWarnings("unchecked")
+    private void resize() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(keys.length << 1);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                put(oldKeys[i], (V) oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of mappings.
+     *
+     * @return the number of mappings
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the map is empty.
+     *
+     * @return true if there are no mappings, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all mappings.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Returns the mapped keys.
+     *
+     * @return a new array with all keys, in no particular order
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                result[n++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the mapped values.
+     *
+     * @return a new list with all values, in no particular order
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        for (Object value : values) {
+            if (value != null) {
+                result.add((V) value);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.baum.index;
+
+import java.util.Arrays;
+
+/**
+ * The slots of the entities containing a trigram, in ascending order. Slots
+ * are appended as entities are indexed and are never removed; queries skip the
+ * slots of removed entities.
+ */
+class Postings {
+    private int[] slots = new int[4];
+    private int size;
+
+    /**
+     * Appends a slot unless it is already the last one.
+     *
+     * @param slot the slot to append, not less than the last one
+     */
+    void add(int slot) {
+        if (size > 0 && slots[size - 1] == slot) {
+            return;
+        }
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, size * 2);
+        }
+        slots[size++] = slot;
+    }
+
+    /**
+     * Returns the slot at the specified position.
+     *
+     * @param index the position
+     * @return the slot
+     */
+    int get(int index) {
+        return slots[index];
+    }
+
+    /**
+     * Returns the number of slots.
+     *
+     * @return the number of slots
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Computes the key of the trigram starting at the specified index. Distinct
+     * trigrams may share a key; the indexes check every candidate, so a shared
+     * key only adds candidates.
+     *
+     * @param text  the text
+     * @param index the index of the first character of the trigram
+     * @return the trigram key
+     */
+    static int gramKey(CharSequence text, int index) {
+        return (text.charAt(index) << 20) ^ (text.charAt(index + 1) << 10) ^ text.charAt(index + 2);
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.baum.index;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * A sorted index over the names of the entities in an observable list that
+ * finds the entities whose name, or a word of it, starts with a prefix. The
+ * index listens to the list, so every addition, replacement and removal is
+ * reflected immediately. An entity renamed in place is re-indexed by setting
+ * it again at its position in the list.
+ * <p>
+ * The names are kept in a sorted array, once in full and once from the start
+ * of every further word, so a lookup is a binary search followed by a scan of
+ * the matches. Case and accents are ignored. The index must only be used on the
+ * JavaFX Application Thread.
+ *
+ * @param <T> the type of the indexed entities
+ */
+public class PrefixIndex<T> {
+    /** Changes adding more entities than this are sorted in at once. */
+    private static final int BULK_ADD_THRESHOLD = 64;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final ObservableList<T> list;
+    private final Function<T, String> nameOf;
+    private final Map<T, String[]> indexedKeys = new IdentityHashMap<>();
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private Object[] entities = new Object[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * An entry of the index while it is sorted.
+     *
+     * @param key    the key of the entry
+     * @param entity the entity of the entry
+     */
+    private record Entry(String key, Object entity) {
+    }
+
+    /**
+     * Constructs a new PrefixIndex over the specified list and starts keeping it
+     * in sync with the list.
+     *
+     * @param list   the list to index
+     * @param nameOf the function extracting the name of an entity
+     */
+    public PrefixIndex(ObservableList<T> list, Function<T, String> nameOf) {
+        this.list = list;
+        this.nameOf = nameOf;
+        addAll(list);
+        list.addListener((ListChangeListener<T>) change -> {
+            while (change.next()) {
+                if (change.wasPermutated()) {
+                    continue;
+                }
+                for (T entity : change.getRemoved()) {
+                    remove(entity);
+                }
+                addAll(change.getAddedSubList());
+            }
+        });
+    }
+
+    /**
+     * Returns the indexed list.
+     *
+     * @return the list
+     */
+    public ObservableList<T> getList() {
+        return list;
+    }
+
+    /**
+     * Returns the name of an entity.
+     *
+     * @param entity the entity
+     * @return the name
+     */
+    public String nameOf(T entity) {
+        return nameOf.apply(entity);
+    }
+
+    /**
+     * Finds the entities whose name, or a word of it, starts with a prefix.
+     * Entities are ordered by the matching part of their name.
+     *
+     * @param prefix the prefix; an empty prefix matches every entity
+     * @param limit  the maximum number of entities to return
+     * @return the matching entities
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> search(String prefix, int limit) {
+        String key = normalize(prefix);
+        List<T> results = new ArrayList<>(Math.min(limit, INITIAL_CAPACITY));
+        Set<T> found = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = lowerBound(key); i < size && results.size() < limit && keys[i].startsWith(key); i++) {
+            T entity = (T) entities[i];
+            if (found.add(entity)) {
+                results.add(entity);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Finds the first entity with a name, ignoring case and accents.
+     *
+     * @param name the name
+     * @return the entity, or null if no entity has the name
+     */
+    @SuppressWarnings("unchecked")
+    public T getByName(String name) {
+        String key = normalize(name);
+        for (int i = lowerBound(key); i < size && keys[i].equals(key); i++) {
+            if (isFullName((T) entities[i], key)) {
+                return (T) entities[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of indexed entities.
+     *
+     * @return the number of entities
+     */
+    public int size() {
+        return indexedKeys.size();
+    }
+
+    /**
+     * Adds the specified entities to the index.
+     *
+     * @param added the entities to add
+     */
+    private void addAll(List<? extends T> added) {
+        for (T entity : added) {
+            remove(entity);
+        }
+        boolean bulk = added.size() > BULK_ADD_THRESHOLD;
+        for (T entity : added) {
+            String[] entityKeys = keysOf(nameOf.apply(entity));
+            indexedKeys.put(entity, entityKeys);
+            for (String key : entityKeys) {
+                insert(bulk ? size : lowerBound(key), key, entity);
+            }
+        }
+        if (bulk) {
+            sort();
+        }
+    }
+
+    /**
+     * Removes an entity from the index.
+     *
+     * @param entity the entity to remove
+     */
+    private void remove(T entity) {
+        // Entities may have been renamed since they were indexed
+        String[] entityKeys = indexedKeys.remove(entity);
+        if (entityKeys == null) {
+            return;
+        }
+        for (String key : entityKeys) {
+            for (int i = lowerBound(key); i < size && keys[i].equals(key); i++) {
+                if (entities[i] == entity) {
+                    System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+                    System.arraycopy(entities, i + 1, entities, i, size - i - 1);
+                    size--;
+                    keys[size] = null;
+                    entities[size] = null;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts an entry at a position, growing the arrays if needed.
+     *
+     * @param position the position
+     * @param key      the key of the entry
+     * @param entity   the entity of the entry
+     */
+    private void insert(int position, String key, T entity) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            entities = Arrays.copyOf(entities, size * 2);
+        }
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        System.arraycopy(entities, position, entities, position + 1, size - position);
+        keys[position] = key;
+        entities[position] = entity;
+        size++;
+    }
+
+    /**
+     * Sorts the entries by their keys.
+     */
+    private void sort() {
+        Entry[] entries = new Entry[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = new Entry(keys[i], entities[i]);
+        }
+        Arrays.sort(entries, Comparator.comparing(Entry::key));
+        for (int i = 0; i < size; i++) {
+            keys[i] = entries[i].key();
+            entities[i] = entries[i].entity();
+        }
+    }
+
+    /**
+     * Finds the first entry whose key is not less than a key.
+     *
+     * @param key the key
+     * @return the position of the entry, or the number of entries if none
+     */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Checks whether a key is the full name of an entity rather than a later
+     * part of it.
+     *
+     * @param entity the entity
+     * @param key    the key
+     * @return true if the key is the full name, false otherwise
+     */
+    private boolean isFullName(T entity, String key) {
+        String[] entityKeys = indexedKeys.get(entity);
+        return entityKeys != null && entityKeys[0].equals(key);
+    }
+
+    /**
+     * Returns the keys of a name: the full name, and the rest of the name from
+     * the start of every further word.
+     *
+     * @param name the name, may be null
+     * @return the keys, the full name first
+     */
+    private static String[] keysOf(String name) {
+        String fullName = normalize(name);
+        List<String> entityKeys = new ArrayList<>();
+        entityKeys.add(fullName);
+        for (int i = fullName.indexOf(' '); i >= 0; i = fullName.indexOf(' ', i + 1)) {
+            entityKeys.add(fullName.substring(i + 1));
+        }
+        return entityKeys.toArray(new String[0]);
+    }
+
+    /**
+     * Lowercases a text, strips its accents and collapses its whitespace.
+     *
+     * @param text the text, may be null
+     * @return the normalized text
+     */
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.strip(), Normalizer.Form.NFD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(stripped).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}
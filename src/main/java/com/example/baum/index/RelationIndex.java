@@ -0,0 +1,207 @@
+package com.example.baum.index;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * An index over an observable list of entities that groups them by the ID of
+ * a related entity, like the students of a course. The index listens to the
+ * list, so every addition, replacement and removal is reflected immediately.
+ * An entity related to another entity in place is re-indexed with
+ * {@link #update(Object)} or by setting it again at its position in the list.
+ * <p>
+ * Looking up the entities related to an ID takes time proportional to their
+ * number, independent of the size of the list. Adding and removing an entity
+ * takes constant time: every entity remembers its position in its group, and
+ * removed entities leave a hole that is reclaimed once a group is mostly
+ * holes. The index must only be used on the JavaFX Application Thread.
+ *
+ * @param <T> the type of the indexed entities
+ */
+public class RelationIndex<T> {
+    /** The key of entities without a related entity, which are not indexed. */
+    public static final int NO_RELATION = Integer.MIN_VALUE;
+
+    /**
+     * Groups with fewer holes than this are never compacted.
+     */
+    private static final int MIN_COMPACTION_HOLES = 16;
+
+    private final ToIntFunction<T> relatedIdOf;
+    private final IntHashMap<Group<T>> byRelatedId = new IntHashMap<>();
+    private final Map<T, Entry> entries = new IdentityHashMap<>();
+
+    /**
+     * The entities related to one ID, in the order they were indexed. Removed
+     * entities leave a null hole.
+     *
+     * @param <T> the type of the entities
+     */
+    private static final class Group<T> {
+        private final List<T> slots = new ArrayList<>();
+        private int size;
+    }
+
+    /**
+     * Where an indexed entity is stored.
+     */
+    private static final class Entry {
+        private final int relatedId;
+        private int position;
+
+        /**
+         * Constructs a new Entry.
+         *
+         * @param relatedId the ID of the related entity, or {@link #NO_RELATION}
+         * @param position  the position in the group, or -1 if not grouped
+         */
+        private Entry(int relatedId, int position) {
+            this.relatedId = relatedId;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Constructs a new RelationIndex over the specified list and starts keeping
+     * it in sync with the list.
+     *
+     * @param list        the list to index
+     * @param relatedIdOf the function extracting the ID of the related entity,
+     *                    or {@link #NO_RELATION}
+     */
+    public RelationIndex(ObservableList<T> list, ToIntFunction<T> relatedIdOf) {
+        this.relatedIdOf = relatedIdOf;
+        for (T entity : list) {
+            add(entity);
+        }
+        list.addListener((ListChangeListener<T>) change -> {
+            while (change.next()) {
+                if (change.wasPermutated()) {
+                    continue;
+                }
+                for (T entity : change.getRemoved()) {
+                    remove(entity);
+                }
+                for (T entity : change.getAddedSubList()) {
+                    add(entity);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the entities related to an ID.
+     *
+     * @param relatedId the ID of the related entity
+     * @return a new list of the entities, in the order they were indexed
+     */
+    public List<T> get(int relatedId) {
+        Group<T> group = byRelatedId.get(relatedId);
+        if (group == null) {
+            return new ArrayList<>();
+        }
+        List<T> related = new ArrayList<>(group.size);
+        for (T entity : group.slots) {
+            if (entity != null) {
+                related.add(entity);
+            }
+        }
+        return related;
+    }
+
+    /**
+     * Returns the number of entities related to an ID.
+     *
+     * @param relatedId the ID of the related entity
+     * @return the number of entities
+     */
+    public int count(int relatedId) {
+        Group<T> group = byRelatedId.get(relatedId);
+        return group == null ? 0 : group.size;
+    }
+
+    /**
+     * Re-indexes an entity whose related entity changed in place. Entities not
+     * in the list are ignored.
+     *
+     * @param entity the changed entity
+     */
+    public void update(T entity) {
+        Entry entry = entries.get(entity);
+        if (entry != null && entry.relatedId != relatedIdOf.applyAsInt(entity)) {
+            remove(entity);
+            add(entity);
+        }
+    }
+
+    /**
+     * Adds an entity to the index.
+     *
+     * @param entity the entity to add
+     */
+    private void add(T entity) {
+        // Entities may be set again at their position without being removed
+        remove(entity);
+        int relatedId = relatedIdOf.applyAsInt(entity);
+        if (relatedId == NO_RELATION) {
+            entries.put(entity, new Entry(relatedId, -1));
+            return;
+        }
+        Group<T> group = byRelatedId.get(relatedId);
+        if (group == null) {
+            group = new Group<>();
+            byRelatedId.put(relatedId, group);
+        }
+        entries.put(entity, new Entry(relatedId, group.slots.size()));
+        group.slots.add(entity);
+        group.size++;
+    }
+
+    /**
+     * Removes an entity from the index.
+     *
+     * @param entity the entity to remove
+     */
+    private void remove(T entity) {
+        // Entities may have been related to another entity since they were indexed
+        Entry entry = entries.remove(entity);
+        if (entry == null || entry.position < 0) {
+            return;
+        }
+        Group<T> group = byRelatedId.get(entry.relatedId);
+        group.slots.set(entry.position, null);
+        group.size--;
+        if (group.size == 0) {
+            byRelatedId.remove(entry.relatedId);
+            return;
+        }
+        int holes = group.slots.size() - group.size;
+        if (holes > MIN_COMPACTION_HOLES && holes > group.size) {
+            compact(group);
+        }
+    }
+
+    /**
+     * Drops the holes of a group and moves its entities up, keeping their
+     * order.
+     *
+     * @param group the group
+     */
+    private void compact(Group<T> group) {
+        int position = 0;
+        for (T entity : group.slots) {
+            if (entity != null) {
+                group.slots.set(position, entity);
+                entries.get(entity).position = position;
+                position++;
+            }
+        }
+        group.slots.subList(position, group.slots.size()).clear();
+    }
+}
@@ -0,0 +1,365 @@
+package com.example.baum.index;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A trigram index over the text fields of the entities in an observable list,
+ * answering case-insensitive substring queries without scanning the list. The
+ * index listens to the list, so every addition, replacement and removal is
+ * reflected immediately. An entity changed in place is re-indexed with
+ * {@link #update(Object)}, or by setting it again at its position in the list.
+ * <p>
+ * Every entity is stored in a slot holding its lowercased fields, and every
+ * trigram maps to the slots whose text contains it. A query looks up the
+ * rarest trigram of the term and checks only the slots listed for it. Terms
+ * shorter than a trigram, and terms whose rarest trigram is still too common,
+ * match a large share of the entities anyway; those are answered by a parallel
+ * scan over the stored texts. Results are returned in the order the entities
+ * were indexed.
+ *
+ * @param <T> the type of the indexed entities
+ */
+public class TextIndex<T> {
+    private static final int GRAM_LENGTH = 3;
+    private static final char FIELD_SEPARATOR = '\n';
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * A query whose candidates exceed this share of the entities is answered
+     * by a scan, which is faster than checking the candidates one by one.
+     */
+    private static final int BROAD_QUERY_DIVISOR = 8;
+
+    /**
+     * Scans over fewer entities than this run on the calling thread.
+     */
+    private static final int PARALLEL_SCAN_THRESHOLD = 20_000;
+
+    /**
+     * Slots freed by removals and updates are reclaimed once there are more of them than
+     * this and than live entities.
+     */
+    private static final int MIN_COMPACTION_SLOTS = 1024;
+
+    private final List<Function<T, String>> fields;
+    private final Map<T, Integer> slotOf = new IdentityHashMap<>();
+    private final IntHashMap<Postings> postings = new IntHashMap<>();
+    private Object[] entities = new Object[INITIAL_CAPACITY];
+    private String[] texts = new String[INITIAL_CAPACITY];
+    private int slotCount;
+    private boolean stale;
+
+    /**
+     * Constructs a new TextIndex over the specified list and starts keeping it
+     * in sync with the list.
+     *
+     * @param list   the list to index
+     * @param fields the functions extracting the searchable fields of an entity
+     */
+    public TextIndex(ObservableList<T> list, List<Function<T, String>> fields) {
+        this.fields = List.copyOf(fields);
+        addAll(list);
+        list.addListener((ListChangeListener<T>) change -> {
+            while (change.next()) {
+                if (change.wasPermutated()) {
+                    continue;
+                }
+                removeAll(change.getRemoved());
+                addAll(change.getAddedSubList());
+            }
+        });
+    }
+
+    /**
+     * Re-indexes an entity whose fields have changed in place.
+     *
+     * @param entity the changed entity
+     */
+    public synchronized void update(T entity) {
+        if (remove(entity)) {
+            add(entity);
+            compactIfSparse();
+        }
+    }
+
+    /**
+     * Marks every entity for re-indexing, for changes the index cannot see,
+     * like a renamed entity that the indexed entities refer to. The index is
+     * rebuilt by the next query.
+     */
+    public synchronized void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Returns the number of indexed entities.
+     *
+     * @return the number of entities
+     */
+    public synchronized int size() {
+        return slotOf.size();
+    }
+
+    /**
+     * Returns the entities with a field containing the term, ignoring case.
+     *
+     * @param term the term to search for
+     * @return the matching entities, in the order they were indexed
+     */
+    public synchronized List<T> search(String term) {
+        if (stale) {
+            compact();
+        }
+        String needle = term.toLowerCase();
+        if (needle.length() < GRAM_LENGTH) {
+            return scan(needle);
+        }
+
+        Postings rarest = null;
+        for (int i = 0; i + GRAM_LENGTH <= needle.length(); i++) {
+            Postings candidates = postings.get(Postings.gramKey(needle, i));
+            if (candidates == null) {
+                return new ArrayList<>();
+            }
+            if (rarest == null || candidates.size() < rarest.size()) {
+                rarest = candidates;
+            }
+        }
+        if (rarest.size() > slotOf.size() / BROAD_QUERY_DIVISOR) {
+            return scan(needle);
+        }
+
+        List<T> results = new ArrayList<>();
+        for (int i = 0; i < rarest.size(); i++) {
+            int slot = rarest.get(i);
+            String text = texts[slot];
+            // Removed entities leave their slots in the postings until compaction
+            if (text != null && text.contains(needle)) {
+                results.add(entityAt(slot));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns the candidates with a field containing the term, ignoring case.
+     * Only the candidates are checked, so refining the results of a previous
+     * search with a longer term costs no more than the previous results.
+     *
+     * @param candidates the entities to check
+     * @param term       the term to search for
+     * @return the matching candidates, in the order of the candidates
+     */
+    public synchronized List<T> refine(Collection<? extends T> candidates, String term) {
+        if (stale) {
+            compact();
+        }
+        String needle = term.toLowerCase();
+        List<T> results = new ArrayList<>();
+        for (T candidate : candidates) {
+            if (contains(candidate, needle)) {
+                results.add(candidate);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Checks whether an entity has a field containing the term, ignoring case.
+     *
+     * @param entity the entity to check
+     * @param term   the term to search for
+     * @return true if the entity is indexed and matches, false otherwise
+     */
+    public synchronized boolean matches(T entity, String term) {
+        if (stale) {
+            compact();
+        }
+        return contains(entity, term.toLowerCase());
+    }
+
+    /**
+     * Checks the stored text of an entity for a lowercased term.
+     *
+     * @param entity the entity to check
+     * @param needle the lowercased term
+     * @return true if the entity is indexed and its text contains the term
+     */
+    private boolean contains(T entity, String needle) {
+        Integer slot = slotOf.get(entity);
+        return slot != null && texts[slot].contains(needle);
+    }
+
+    /**
+     * Checks the text of every entity for the term, in parallel for large
+     * indexes.
+     *
+     * @param needle the lowercased term
+     * @return the matching entities, in the order they were indexed
+     */
+    private List<T> scan(String needle) {
+        String[] scannedTexts = texts;
+        IntStream slots = IntStream.range(0, slotCount);
+        if (slotCount >= PARALLEL_SCAN_THRESHOLD) {
+            slots = slots.parallel();
+        }
+        return slots.filter(slot -> scannedTexts[slot] != null && scannedTexts[slot].contains(needle))
+                .mapToObj(this::entityAt)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Adds the specified entities to the index.
+     *
+     * @param added the entities to add
+     */
+    private synchronized void addAll(List<? extends T> added) {
+        for (T entity : added) {
+            remove(entity);
+            add(entity);
+        }
+    }
+
+    /**
+     * Removes the specified entities from the index.
+     *
+     * @param removed the entities to remove
+     */
+    private synchronized void removeAll(List<? extends T> removed) {
+        for (T entity : removed) {
+            remove(entity);
+        }
+        compactIfSparse();
+    }
+
+    /**
+     * Reclaims the slots freed by removals and updates once there are more of
+     * them than live entities.
+     */
+    private void compactIfSparse() {
+        int freeSlots = slotCount - slotOf.size();
+        if (freeSlots > MIN_COMPACTION_SLOTS && freeSlots > slotOf.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Stores an entity in a new slot and indexes its trigrams.
+     *
+     * @param entity the entity to add
+     */
+    private void add(T entity) {
+        if (slotCount == entities.length) {
+            entities = Arrays.copyOf(entities, slotCount * 2);
+            texts = Arrays.copyOf(texts, slotCount * 2);
+        }
+        int slot = slotCount++;
+        String text = textOf(entity);
+        entities[slot] = entity;
+        texts[slot] = text;
+        slotOf.put(entity, slot);
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            int key = Postings.gramKey(text, i);
+            Postings gramPostings = postings.get(key);
+            if (gramPostings == null) {
+                gramPostings = new Postings();
+                postings.put(key, gramPostings);
+            }
+            gramPostings.add(slot);
+        }
+    }
+
+    /**
+     * Frees the slot of an entity. Its postings are left in place and skipped
+     * by queries.
+     *
+     * @param entity the entity to remove
+     * @return true if the entity was indexed, false otherwise
+     */
+    private boolean remove(T entity) {
+        Integer slot = slotOf.remove(entity);
+        if (slot == null) {
+            return false;
+        }
+        entities[slot] = null;
+        texts[slot] = null;
+        return true;
+    }
+
+    /**
+     * Rebuilds the index from the live entities, reclaiming freed slots and
+     * re-reading the fields of every entity.
+     */
+    private void compact() {
+        Object[] live = new Object[slotOf.size()];
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (entities[slot] != null) {
+                live[count++] = entities[slot];
+            }
+        }
+        int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, count)) << 1);
+        entities = new Object[capacity];
+        texts = new String[capacity];
+        slotCount = 0;
+        slotOf.clear();
+        postings.clear();
+        stale = false;
+        for (int i = 0; i < count; i++) {
+            add(entityOf(live[i]));
+        }
+    }
+
+    /**
+     * Builds the lowercased searchable text of an entity. The fields are
+     * separated, so a match cannot span two of them.
+     *
+     * @param entity the entity
+     * @return the searchable text
+     */
+    private String textOf(T entity) {
+        StringBuilder text = new StringBuilder();
+        for (Function<T, String> field : fields) {
+            if (text.length() > 0) {
+                text.append(FIELD_SEPARATOR);
+            }
+            String value = field.apply(entity);
+            if (value != null) {
+                text.append(value.toLowerCase());
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns the entity stored in a slot.
+     *
+     * @param slot the slot
+     * @return the entity
+     */
+    private T entityAt(int slot) {
+        return entityOf(entities[slot]);
+    }
+
+    /**
+     * Casts a stored entity back to its type.
+     *
+     * @param stored the stored entity
+     * @return the entity
+     */
+    @SuppressWarnings("unchecked")
+    private T entityOf(Object stored) {
+        return (T) stored;
+    }
+}
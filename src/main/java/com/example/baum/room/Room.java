@@ -3,12 +3,17 @@ package com.example.baum.room;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 
+import java.text.CollationKey;
+
+import com.example.baum.index.CollationKeys;
+
 /**
  * The Room class represents a room or location.
  */
 public class Room {
     private final int id;
-    private final String name;
+    private String name;
+    private CollationKey nameKey;
 
     /**
      * Constructs a Room object with the specified ID and name.
@@ -39,6 +44,31 @@ public class Room {
         return name;
     }
 
+    /**
+     * Returns the collation key of the name of the room, which the tables sort
+     * by. The key is computed on first use and cached until the name changes.
+     *
+     * @return The collation key of the name.
+     */
+    public CollationKey getNameKey() {
+        CollationKey key = nameKey;
+        if (key == null) {
+            key = CollationKeys.of(name);
+            nameKey = key;
+        }
+        return key;
+    }
+
+    /**
+     * Sets the name of the room.
+     *
+     * @param name The name of the room.
+     */
+    public void setName(String name) {
+        this.name = name;
+        this.nameKey = null;
+    }
+
     /**
      * Returns the name property of the room.
      *
@@ -4,18 +4,41 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import com.example.baum.DatabaseManager;
+import com.example.baum.database.ChangeSet;
+import com.example.baum.database.ChangeTracker;
+import com.example.baum.database.DatabaseExecutor;
+import com.example.baum.database.FullTextSearch;
+import com.example.baum.database.QueryCancellation;
+import com.example.baum.database.ReadThroughLoader;
+import com.example.baum.index.EntityIndex;
+import com.example.baum.index.IdentityMap;
 
 /**
  * The RoomData class manages the data and operations related to rooms.
+ * Every operation is available synchronously and as an asynchronous variant
+ * that runs the database work off the JavaFX Application Thread and applies the
+ * result on it.
  */
 public class RoomData {
+    private static final int SEARCH_LIMIT = 500;
+
     private final ObservableList<Room> roomList;
+    private final EntityIndex<Room> roomIndex;
+    private final IdentityMap<Room> identityMap;
+    private final ReadThroughLoader<Room> loader;
+    private final ChangeTracker changeTracker = new ChangeTracker("room");
+    private final FullTextSearch<Room> nameSearch;
     private final DatabaseManager databaseManager;
 
     /**
@@ -26,6 +49,11 @@ public class RoomData {
     public RoomData(DatabaseManager databaseManager) {
         this.databaseManager = databaseManager;
         roomList = FXCollections.observableArrayList();
+        roomIndex = new EntityIndex<>(roomList, Room::getId, Room::getName);
+        identityMap = databaseManager.getIdentityMap(Room.class, Room::getId);
+        identityMap.setListed(roomIndex::getById);
+        loader = new ReadThroughLoader<>(databaseManager, "room", identityMap, this::mapRow);
+        nameSearch = new FullTextSearch<>(databaseManager, "room", "name", loader);
     }
 
     /**
@@ -41,35 +69,170 @@ public class RoomData {
      * Fetches the rooms from the database and populates the room list.
      */
     public void fetchRoomsFromDatabase() {
-        String selectQuery = "SELECT * FROM room";
         try {
-            Statement statement = databaseManager.getConnection().createStatement();
-            ResultSet resultSet = statement.executeQuery(selectQuery);
-            while (resultSet.next()) {
-                int id = resultSet.getInt("id");
-                String name = resultSet.getString("name");
-
-                Room room = new Room(id, name);
-                roomList.add(room);
-            }
+            mergeRooms(loadRooms());
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Retrieves a room by its ID.
+     * Fetches the rooms from the database in the background and populates the
+     * room list on the JavaFX Application Thread.
      *
-     * @param roomId The ID of the room.
-     * @return The room with the specified ID, or null if not found.
+     * @return A future completed once the room list is populated.
      */
-    public Room getRoomById(int roomId) {
-        for (Room room : roomList) {
-            if (room.getId() == roomId) {
-                return room;
+    public CompletableFuture<Void> fetchRoomsAsync() {
+        return databaseManager.supplyAsync(this::loadRooms)
+                .thenAcceptAsync(this::mergeRooms, DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Synchronizes the room list with the database in the background. Only the
+     * rooms changed or deleted since the last synchronization are fetched. If
+     * the rooms have not been loaded yet, they are fetched in full.
+     *
+     * @return A future completed once the room list is up to date.
+     */
+    public CompletableFuture<Void> syncFromDatabase() {
+        if (!changeTracker.hasWatermark()) {
+            return fetchRoomsAsync();
+        }
+        return databaseManager.supplyAsync(this::loadChanges)
+                .thenAcceptAsync(this::applyChanges, DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Loads the rooms changed or deleted since the last synchronization.
+     *
+     * @return The changes.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private ChangeSet<Room> loadChanges() throws SQLException {
+        String changedQuery = "SELECT * FROM room WHERE updated_at >= ?";
+        try (Connection connection = databaseManager.getConnection()) {
+            return changeTracker.fetchChanges(connection, changedQuery,
+                    resultSet -> new Room(resultSet.getInt("id"), resultSet.getString("name")));
+        }
+    }
+
+    /**
+     * Applies changes loaded from the database to the room list. Changed rooms
+     * are updated in place, so references to them stay valid.
+     *
+     * @param changes The changes to apply.
+     */
+    private void applyChanges(ChangeSet<Room> changes) {
+        if (!changes.isEmpty()) {
+            // Rows written by other clients may change cached query results and
+            // may have been looked up before they existed
+            databaseManager.getQueryCache().invalidate("room");
+            loader.forgetMissing();
+        }
+        for (Room changed : changes.getChanged()) {
+            Room existing = roomIndex.getById(changed.getId());
+            if (existing == null) {
+                roomList.add(changed);
+            } else if (!Objects.equals(existing.getName(), changed.getName())) {
+                existing.setName(changed.getName());
+                roomList.set(roomList.indexOf(existing), existing);
+            }
+        }
+        for (int id : changes.getDeletedIds()) {
+            Room existing = roomIndex.getById(id);
+            if (existing != null) {
+                roomList.remove(existing);
             }
         }
-        return null;
+    }
+
+    /**
+     * Loads all rooms from the database.
+     *
+     * @return The loaded rooms.
+     * @throws SQLException If an SQL error occurs.
+     */
+    private List<Room> loadRooms() throws SQLException {
+        List<Room> rooms = new ArrayList<>();
+        String selectQuery = "SELECT * FROM room";
+        try (Connection connection = databaseManager.getConnection()) {
+            changeTracker.beginFullLoad(connection);
+            try (Statement statement = connection.createStatement();
+                    ResultSet resultSet = statement.executeQuery(selectQuery)) {
+                while (resultSet.next()) {
+                    int id = resultSet.getInt("id");
+                    String name = resultSet.getString("name");
+
+                    Room room = new Room(id, name);
+                    rooms.add(room);
+                }
+            }
+        }
+        return rooms;
+    }
+
+    /**
+     * Adds the specified rooms to the room list, skipping rooms whose ID is
+     * already present so that existing instances stay canonical.
+     *
+     * @param rooms The rooms to add.
+     */
+    private void mergeRooms(List<Room> rooms) {
+        for (Room room : rooms) {
+            resolveRoom(room);
+        }
+    }
+
+    /**
+     * Returns the room in the room list with the same ID as the specified room.
+     * If the list has no such room, the specified room is added and returned,
+     * or the instance already mapped by a search, updated to the specified room.
+     * Must be called on the JavaFX Application Thread.
+     *
+     * @param room The room to resolve.
+     * @return The canonical room instance.
+     */
+    public Room resolveRoom(Room room) {
+        Room existing = roomIndex.getById(room.getId());
+        if (existing != null) {
+            return existing;
+        }
+        // A search may have mapped the room before it was listed
+        Room known = identityMap.get(room.getId());
+        if (known != null && known != room) {
+            known.setName(room.getName());
+            room = known;
+        }
+        roomList.add(room);
+        return room;
+    }
+
+    /**
+     * Retrieves a room from the room list by its ID.
+     *
+     * @param roomId The ID of the room.
+     * @return The room with the specified ID, or null if it is not listed, e.g.
+     *         because another client created it after the list was loaded.
+     */
+    public Room getRoomById(int roomId) {
+        return roomIndex.getById(roomId);
+    }
+
+    /**
+     * Returns the canonical room of an ID read along with another row, like in
+     * a JOIN. A room not known in this session yet is built from the read
+     * columns, so references to it never dangle. May be called from any
+     * thread.
+     *
+     * @param roomId The ID of the room.
+     * @param name   The name of the room as read.
+     * @return The canonical room instance.
+     */
+    public Room mapRoom(int roomId, String name) {
+        Room room = identityMap.get(roomId);
+        return room != null ? room : identityMap.intern(new Room(roomId, name));
     }
 
     /**
@@ -79,12 +242,7 @@ public class RoomData {
      * @return The room with the specified name, or null if not found.
      */
     public Room getRoomByName(String roomName) {
-        for (Room room : roomList) {
-            if (room.getName().equals(roomName)) {
-                return room;
-            }
-        }
-        return null;
+        return roomIndex.getByName(roomName);
     }
 
     /**
@@ -93,17 +251,47 @@ public class RoomData {
      * @param name The name of the room.
      */
     public void addRoom(String name) {
-        String insertQuery = "INSERT INTO room (name) VALUES (?)";
         try {
-            PreparedStatement statement = databaseManager.getConnection().prepareStatement(insertQuery);
+            roomList.add(insertRoom(name));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Adds a new room in the background and appends it to the room list on the
+     * JavaFX Application Thread.
+     *
+     * @param name The name of the room.
+     * @return A future completed with the new room.
+     */
+    public CompletableFuture<Room> addRoomAsync(String name) {
+        return databaseManager.supplyAsync(() -> insertRoom(name))
+                .thenApplyAsync(room -> {
+                    roomList.add(room);
+                    return room;
+                }, DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Inserts a new room into the database.
+     *
+     * @param name The name of the room.
+     * @return The inserted room.
+     * @throws SQLException If an SQL error occurs.
+     */
+    private Room insertRoom(String name) throws SQLException {
+        String insertQuery = "INSERT INTO room (name) VALUES (?)";
+        try (Connection connection = databaseManager.getConnection();
+                PreparedStatement statement = connection.prepareStatement(insertQuery)) {
             statement.setString(1, name);
             statement.executeUpdate();
 
-            int lastInsertedId = getLastInsertedId();
-            Room newRoom = new Room(lastInsertedId, name);
-            roomList.add(newRoom);
-        } catch (SQLException e) {
-            e.printStackTrace();
+            int lastInsertedId = getLastInsertedId(connection);
+            return new Room(lastInsertedId, name);
+        } finally {
+            databaseManager.getQueryCache().invalidate("room");
         }
     }
 
@@ -115,34 +303,79 @@ public class RoomData {
     public void removeRoom(Room room) {
         if (room != null) {
             try {
-                String deleteQuery = "DELETE FROM room WHERE id = ?";
-                PreparedStatement statement = databaseManager.getConnection().prepareStatement(deleteQuery);
-                statement.setInt(1, room.getId());
-                statement.executeUpdate();
+                deleteRoom(room);
                 roomList.remove(room);
             } catch (SQLException e) {
-                // Display an error alert
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setTitle("Error: Delete Room");
-                alert.setHeaderText("Failed to delete the room.");
-                alert.setContentText("The room has associated courses.");
-
-                alert.showAndWait();
+                showDeleteError();
             }
         }
     }
 
+    /**
+     * Removes a room in the background and drops it from the room list on the
+     * JavaFX Application Thread.
+     *
+     * @param room The room to remove.
+     * @return A future completed once the room is removed.
+     */
+    public CompletableFuture<Void> removeRoomAsync(Room room) {
+        if (room == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return databaseManager.runAsync(() -> deleteRoom(room))
+                .whenCompleteAsync((result, error) -> {
+                    if (error == null) {
+                        roomList.remove(room);
+                    } else {
+                        showDeleteError();
+                    }
+                }, DatabaseExecutor.FX_THREAD);
+    }
+
+    /**
+     * Deletes a room from the database.
+     *
+     * @param room The room to delete.
+     * @throws SQLException If an SQL error occurs, e.g. because the room has
+     *                      associated courses.
+     */
+    private void deleteRoom(Room room) throws SQLException {
+        String deleteQuery = "DELETE FROM room WHERE id = ?";
+        try (Connection connection = databaseManager.getConnection();
+                PreparedStatement statement = connection.prepareStatement(deleteQuery)) {
+            statement.setInt(1, room.getId());
+            statement.executeUpdate();
+        } finally {
+            databaseManager.getQueryCache().invalidate("room");
+        }
+    }
+
+    /**
+     * Displays an error alert explaining why a room could not be deleted.
+     */
+    private void showDeleteError() {
+        // Display an error alert
+        Alert alert = new Alert(AlertType.ERROR);
+        alert.setTitle("Error: Delete Room");
+        alert.setHeaderText("Failed to delete the room.");
+        alert.setContentText("The room has associated courses.");
+
+        alert.showAndWait();
+    }
+
     /**
      * Retrieves the ID of the last inserted room.
      *
+     * @param connection The connection the room was inserted on.
      * @return The ID of the last inserted room, or -1 if not found.
      * @throws SQLException If an SQL error occurs.
      */
-    private int getLastInsertedId() throws SQLException {
-        Statement statement = databaseManager.getConnection().createStatement();
-        ResultSet resultSet = statement.executeQuery("SELECT LAST_INSERT_ID()");
-        if (resultSet.next()) {
-            return resultSet.getInt(1);
+    private int getLastInsertedId(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT LAST_INSERT_ID()");
+                ResultSet resultSet = statement.executeQuery()) {
+            if (resultSet.next()) {
+                return resultSet.getInt(1);
+            }
         }
         return -1;
     }
@@ -154,22 +387,63 @@ public class RoomData {
      * @return The list of rooms that match the search term.
      */
     public ObservableList<Room> searchRoomsByName(String searchTerm) {
-        ObservableList<Room> searchResults = FXCollections.observableArrayList();
-        String searchQuery = "SELECT * FROM room WHERE LOWER(name) LIKE ?";
         try {
-            PreparedStatement statement = databaseManager.getConnection().prepareStatement(searchQuery);
-            statement.setString(1, "%" + searchTerm.toLowerCase() + "%");
-            ResultSet resultSet = statement.executeQuery();
-            while (resultSet.next()) {
-                int id = resultSet.getInt("id");
-                String name = resultSet.getString("name");
-
-                Room room = new Room(id, name);
-                searchResults.add(room);
-            }
+            return FXCollections.observableArrayList(queryRoomsByName(searchTerm, null));
         } catch (SQLException e) {
             e.printStackTrace();
+            return FXCollections.observableArrayList();
         }
-        return searchResults;
+    }
+
+    /**
+     * Searches for rooms in the background. The returned future completes on the
+     * JavaFX Application Thread.
+     *
+     * @param searchTerm The search term to match.
+     * @return A future completed with the rooms that match the search term.
+     */
+    public CompletableFuture<ObservableList<Room>> searchRoomsByNameAsync(String searchTerm) {
+        return searchRoomsByNameAsync(searchTerm, null)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Searches for rooms in the background with a query that can be cancelled.
+     * The returned future completes on the JavaFX Application Thread. Failures,
+     * including the cancellation, are left to the caller.
+     *
+     * @param searchTerm   The search term to match.
+     * @param cancellation The cancellation to register the query with, or null.
+     * @return A future completed with the rooms that match the search term.
+     */
+    public CompletableFuture<ObservableList<Room>> searchRoomsByNameAsync(String searchTerm,
+            QueryCancellation cancellation) {
+        return databaseManager.supplyAsync(() -> queryRoomsByName(searchTerm, cancellation))
+                .thenApplyAsync(FXCollections::observableArrayList, DatabaseExecutor.FX_THREAD);
+    }
+
+    /**
+     * Maps a row of the room table to a room. Only rows not resolved through the
+     * identity map are mapped.
+     *
+     * @param resultSet the result set positioned on the row
+     * @return the room
+     * @throws SQLException if an SQL exception occurs
+     */
+    private Room mapRow(ResultSet resultSet) throws SQLException {
+        return new Room(resultSet.getInt("id"), resultSet.getString("name"));
+    }
+
+    /**
+     * Queries the rooms with names matching the specified search term.
+     *
+     * @param searchTerm   The search term to match.
+     * @param cancellation The cancellation to register the query with, or null.
+     * @return The matching rooms.
+     * @throws SQLException If an SQL error occurs or the query is cancelled.
+     */
+    private List<Room> queryRoomsByName(String searchTerm, QueryCancellation cancellation)
+            throws SQLException {
+        return nameSearch.search(searchTerm, SEARCH_LIMIT, cancellation);
     }
 }
@@ -1,31 +1,46 @@
 package com.example.baum.room;
 
+import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
 
+import com.example.baum.BusyIndicator;
+import com.example.baum.SearchPipeline;
+import com.example.baum.TableSorting;
+import com.example.baum.course.Course;
+import com.example.baum.course.CourseData;
+
 /**
  * A custom GridPane that represents the Room pane in the application.
- * It allows adding, removing, and searching for rooms.
+ * It allows adding, removing, and searching for rooms, and lists the courses
+ * held in the selected room.
  */
 public class RoomPane extends GridPane {
 
     private final RoomData roomData;
+    private final CourseData courseData;
     private final TextField nameField;
     private final Label errorLabel;
     private final TableView<Room> roomTableView;
+    private final TableView<Course> courseTableView;
+    private final BusyIndicator busyIndicator = new BusyIndicator();
 
     /**
-     * Constructs a RoomPane with the specified RoomData.
+     * Constructs a RoomPane with the specified RoomData and CourseData.
      *
-     * @param roomData The RoomData object to be used for managing rooms.
+     * @param roomData   The RoomData object to be used for managing rooms.
+     * @param courseData The CourseData object to be used for listing the
+     *                   courses of a room.
      */
-    public RoomPane(RoomData roomData) {
+    public RoomPane(RoomData roomData, CourseData courseData) {
         this.roomData = roomData;
+        this.courseData = courseData;
         this.nameField = createRoomNameField();
         this.errorLabel = createRoomErrorLabel();
         this.roomTableView = createRoomTableView();
+        this.courseTableView = createCourseTableView();
 
         updateRoomTableView();
 
@@ -40,7 +55,8 @@ public class RoomPane extends GridPane {
         Button addButton = createAddRoomButton();
         Button removeButton = createRemoveRoomButton();
 
-        configureLayout(nameField, addButton, removeButton, errorLabel, searchField, roomTableView);
+        configureLayout(nameField, addButton, removeButton, errorLabel, searchField,
+                roomTableView, courseTableView);
     }
 
     // Model
@@ -80,9 +96,11 @@ public class RoomPane extends GridPane {
     private TextField createRoomSearchField() {
         TextField searchField = new TextField();
         searchField.setPromptText("Search Rooms...");
+        SearchPipeline<ObservableList<Room>> searchPipeline =
+                new SearchPipeline<>(roomData::searchRoomsByNameAsync, roomTableView::setItems, busyIndicator);
         searchField.textProperty().addListener((observable, oldValue, newValue) -> {
             String searchTerm = newValue.trim().toLowerCase();
-            roomTableView.setItems(roomData.searchRoomsByName(searchTerm));
+            searchPipeline.submit(searchTerm);
         });
 
         return searchField;
@@ -123,8 +141,35 @@ public class RoomPane extends GridPane {
 
         TableColumn<Room, String> nameColumn = new TableColumn<>("Room Name");
         nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
+        TableSorting.sortByCollationKey(nameColumn, Room::getNameKey);
+
+        table.getColumns().add(nameColumn);
+        table.setSortPolicy(TableSorting::sort);
+
+        // Update the course table when a room is selected
+        table.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
+            courseTableView.setItems(courseData.getRoomCourseList(newSelection));
+        });
+
+        return table;
+    }
+
+    /**
+     * Creates and configures the TableView for displaying the courses of a
+     * room.
+     *
+     * @return The configured TableView.
+     */
+    private TableView<Course> createCourseTableView() {
+        TableView<Course> table = new TableView<>();
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+
+        TableColumn<Course, String> nameColumn = new TableColumn<>("Course Name");
+        nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
+        TableSorting.sortByCollationKey(nameColumn, Course::getNameKey);
 
         table.getColumns().add(nameColumn);
+        table.setSortPolicy(TableSorting::sort);
 
         return table;
     }
@@ -144,9 +189,9 @@ public class RoomPane extends GridPane {
             }
 
             clearValidationError();
-            roomData.addRoom(nameField.getText());
+            busyIndicator.track(roomData.addRoomAsync(nameField.getText()))
+                    .thenRun(this::updateRoomTableView); // Update TableView after adding a room
             nameField.clear();
-            updateRoomTableView(); // Update TableView after adding a room
         });
 
         return addButton;
@@ -163,8 +208,8 @@ public class RoomPane extends GridPane {
         removeButton.setOnAction(e -> {
             Room selected = roomTableView.getSelectionModel().getSelectedItem();
             if (selected != null) {
-                roomData.removeRoom(selected);
-                updateRoomTableView(); // Update TableView after removing a room
+                busyIndicator.track(roomData.removeRoomAsync(selected))
+                        .thenRun(this::updateRoomTableView); // Update TableView after removing a room
             }
         });
 
@@ -182,10 +227,12 @@ public class RoomPane extends GridPane {
      * @param errorLabel   The Label for displaying validation errors.
      * @param searchField  The TextField for searching rooms.
      * @param table        The TableView for displaying rooms.
+     * @param courseTable  The TableView for displaying the courses of the
+     *                     selected room.
      */
     private void configureLayout(TextField nameField, Button addButton,
             Button removeButton, Label errorLabel,
-            TextField searchField, TableView<Room> table) {
+            TextField searchField, TableView<Room> table, TableView<Course> courseTable) {
         this.setHgap(10);
         this.setVgap(10);
         this.setPadding(new Insets(10));
@@ -202,13 +249,17 @@ public class RoomPane extends GridPane {
         this.add(addButton, 0, 1);
         this.add(removeButton, 1, 1);
         this.add(errorLabel, 0, 2, 2, 1);
-        this.add(searchField, 0, 3, 2, 1);
-        this.add(table, 0, 4, 2, 1);
+        this.add(new HBox(10, searchField, busyIndicator), 0, 3, 2, 1);
+        this.add(table, 0, 4);
+        this.add(courseTable, 1, 4);
 
         GridPane.setHgrow(nameField, Priority.ALWAYS);
         GridPane.setHgrow(addButton, Priority.ALWAYS);
         GridPane.setHgrow(removeButton, Priority.ALWAYS);
+        HBox.setHgrow(searchField, Priority.ALWAYS);
         GridPane.setHgrow(table, Priority.ALWAYS);
         GridPane.setVgrow(table, Priority.ALWAYS);
+        GridPane.setHgrow(courseTable, Priority.ALWAYS);
+        GridPane.setVgrow(courseTable, Priority.ALWAYS);
     }
 }
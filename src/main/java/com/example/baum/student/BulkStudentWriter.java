@@ -0,0 +1,155 @@
+package com.example.baum.student;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.function.IntConsumer;
+
+import com.example.baum.DatabaseManager;
+import com.example.baum.database.QueryCancellation;
+
+/**
+ * Writes set-based changes to many students at once: reassigning them to a
+ * course or company, and deleting them. The IDs are split into chunks, and each
+ * chunk is written by a single {@code UPDATE} or {@code DELETE} with an IN list
+ * in its own transaction. Reassigning thousands of students thus takes a few
+ * dozen round trips instead of one per student. Every statement has an IN list
+ * of {@link #CHUNK_SIZE} IDs, the last chunk padded by repeating its last ID,
+ * so each change is a single SQL text in the statement cache instead of one
+ * per chunk length.
+ * <p>
+ * Progress is reported after every committed chunk. A cancelled change rolls
+ * back the chunk being written and stops; the chunks committed before stay
+ * written, and their count is returned. Inside a
+ * {@link com.example.baum.database.UnitOfWork}, the chunks join the
+ * transaction of the unit instead and are committed with it.
+ */
+class BulkStudentWriter {
+    /** The maximum number of students written by one statement. */
+    static final int CHUNK_SIZE = 1000;
+
+    private final DatabaseManager databaseManager;
+
+    /**
+     * Constructs a new BulkStudentWriter.
+     *
+     * @param databaseManager The DatabaseManager used to connect to the database.
+     */
+    BulkStudentWriter(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * Assigns students to a course and/or a company.
+     *
+     * @param ids          The IDs of the students.
+     * @param courseId     The ID of the new course, or null to keep the courses.
+     * @param companyId    The ID of the new company, or null to keep the
+     *                     companies.
+     * @param progress     Receives the number of students written so far after
+     *                     every chunk.
+     * @param cancellation The cancellation stopping the change, or null.
+     * @return The number of students written, from the start of the IDs.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    int reassign(int[] ids, Integer courseId, Integer companyId, IntConsumer progress,
+            QueryCancellation cancellation) throws SQLException {
+        StringBuilder sql = new StringBuilder("UPDATE student SET ");
+        Object[] values;
+        if (courseId != null && companyId != null) {
+            sql.append("course_id = ?, company_id = ?");
+            values = new Object[] { courseId, companyId };
+        } else if (courseId != null) {
+            sql.append("course_id = ?");
+            values = new Object[] { courseId };
+        } else if (companyId != null) {
+            sql.append("company_id = ?");
+            values = new Object[] { companyId };
+        } else {
+            return ids.length;
+        }
+        return write(sql.append(" WHERE id IN (").toString(), values, ids, progress, cancellation);
+    }
+
+    /**
+     * Deletes students.
+     *
+     * @param ids          The IDs of the students.
+     * @param progress     Receives the number of students deleted so far after
+     *                     every chunk.
+     * @param cancellation The cancellation stopping the change, or null.
+     * @return The number of students deleted, from the start of the IDs.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    int delete(int[] ids, IntConsumer progress, QueryCancellation cancellation) throws SQLException {
+        return write("DELETE FROM student WHERE id IN (", new Object[0], ids, progress, cancellation);
+    }
+
+    /**
+     * Writes a statement for every chunk of the IDs, each in its own
+     * transaction.
+     *
+     * @param sqlPrefix    The statement up to the opening parenthesis of the
+     *                     IN list.
+     * @param values       The parameters preceding the IDs.
+     * @param ids          The IDs.
+     * @param progress     Receives the number of IDs written after every chunk.
+     * @param cancellation The cancellation stopping the change, or null.
+     * @return The number of IDs written, from the start of the IDs.
+     * @throws SQLException If an SQL exception occurs other than a cancellation.
+     */
+    private int write(String sqlPrefix, Object[] values, int[] ids, IntConsumer progress,
+            QueryCancellation cancellation) throws SQLException {
+        long start = System.nanoTime();
+        int written = 0;
+        String sql = sqlPrefix + String.join(", ", Collections.nCopies(CHUNK_SIZE, "?")) + ")";
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                while (written < ids.length) {
+                    if (cancellation != null && cancellation.isCancelled()) {
+                        break;
+                    }
+                    int count = Math.min(CHUNK_SIZE, ids.length - written);
+                    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                        int parameter = 1;
+                        for (Object value : values) {
+                            statement.setObject(parameter++, value);
+                        }
+                        for (int i = 0; i < CHUNK_SIZE; i++) {
+                            statement.setInt(parameter++, ids[written + Math.min(i, count - 1)]);
+                        }
+                        if (cancellation != null) {
+                            cancellation.register(statement);
+                        }
+                        try {
+                            statement.executeUpdate();
+                        } finally {
+                            if (cancellation != null) {
+                                cancellation.unregister(statement);
+                            }
+                        }
+                        connection.commit();
+                    } catch (SQLException e) {
+                        connection.rollback();
+                        if (cancellation != null && cancellation.isCancelled()) {
+                            break;
+                        }
+                        throw e;
+                    }
+                    written += count;
+                    progress.accept(written);
+                }
+            } finally {
+                connection.setAutoCommit(true);
+                databaseManager.getQueryCache().invalidate("student");
+            }
+        }
+        if (ids.length > CHUNK_SIZE) {
+            System.out.println("Wrote " + written + " of " + ids.length + " students in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        }
+        return written;
+    }
+}
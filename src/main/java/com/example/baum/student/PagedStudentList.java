@@ -0,0 +1,389 @@
+package com.example.baum.student;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import com.example.baum.DatabaseManager;
+import com.example.baum.database.DatabaseExecutor;
+
+/**
+ * The PagedStudentList class is a read-only observable list of students that
+ * loads its rows from the database page by page on demand.
+ * The list reports the full number of matching students, but only the pages a
+ * TableView actually asks for are loaded, and only a bounded number of pages
+ * stays resident. Rows that are not loaded yet are returned as null and appear
+ * as soon as their page arrives.
+ * <p>
+ * Pages are located by keyset: a page that follows or precedes a resident page
+ * is loaded with a range condition on the sort key instead of an offset, so
+ * scrolling costs the same at any depth. Sorting and filtering are performed by
+ * the database. Must only be used on the JavaFX Application Thread.
+ */
+public class PagedStudentList extends ObservableListBase<Student> {
+    private static final int DEFAULT_PAGE_SIZE = 200;
+    private static final int DEFAULT_MAX_RESIDENT_PAGES = 10;
+
+    /**
+     * The sort orders the database can serve from an index.
+     */
+    private enum SortKey {
+        ID("id", "s.id", student -> student.getId()),
+        NAME("name", "s.name", Student::getName),
+        SURNAME("surname", "s.surname", Student::getSurname),
+        JAVA_SKILLS("javaSkills", "s.javaskills", student -> student.getJavaSkills());
+
+        private final String property;
+        private final String column;
+        private final Function<Student, Object> value;
+
+        /**
+         * Constructs a SortKey.
+         *
+         * @param property the Student property the key sorts by
+         * @param column   the SQL column the key sorts by
+         * @param value    the function reading the key value of a student
+         */
+        SortKey(String property, String column, Function<Student, Object> value) {
+            this.property = property;
+            this.column = column;
+            this.value = value;
+        }
+    }
+
+    private final DatabaseManager databaseManager;
+    private final StudentHydrator studentHydrator;
+    private final UnaryOperator<List<Student>> resolver;
+    private final int pageSize;
+    private final Map<Integer, List<Student>> residentPages;
+    private final Set<Integer> loadingPages = new HashSet<>();
+    private final Map<Integer, Object[]> firstKeys = new HashMap<>();
+    private final Map<Integer, Object[]> lastKeys = new HashMap<>();
+
+    private SortKey sortKey = SortKey.ID;
+    private boolean ascending = true;
+    private String filterCondition;
+    private Object[] filterParameters = new Object[0];
+    private int size;
+    private int generation;
+
+    /**
+     * Constructs a new PagedStudentList with the default page size and number of
+     * resident pages. The list is empty until {@link #reload()} is called.
+     *
+     * @param databaseManager The DatabaseManager used to run the queries.
+     * @param studentHydrator The StudentHydrator loading the pages.
+     * @param resolver        The function resolving the courses and companies
+     *                        of loaded students to their canonical instances.
+     */
+    public PagedStudentList(DatabaseManager databaseManager, StudentHydrator studentHydrator,
+            UnaryOperator<List<Student>> resolver) {
+        this(databaseManager, studentHydrator, resolver, DEFAULT_PAGE_SIZE, DEFAULT_MAX_RESIDENT_PAGES);
+    }
+
+    /**
+     * Constructs a new PagedStudentList. The list is empty until
+     * {@link #reload()} is called.
+     *
+     * @param databaseManager  The DatabaseManager used to run the queries.
+     * @param studentHydrator  The StudentHydrator loading the pages.
+     * @param resolver         The function resolving the courses and companies
+     *                         of loaded students to their canonical instances.
+     * @param pageSize         The number of students per page.
+     * @param maxResidentPages The maximum number of pages kept in memory.
+     */
+    public PagedStudentList(DatabaseManager databaseManager, StudentHydrator studentHydrator,
+            UnaryOperator<List<Student>> resolver, int pageSize, int maxResidentPages) {
+        this.databaseManager = databaseManager;
+        this.studentHydrator = studentHydrator;
+        this.resolver = resolver;
+        this.pageSize = pageSize;
+        this.residentPages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Student>> eldest) {
+                return size() > maxResidentPages;
+            }
+        };
+    }
+
+    /**
+     * Returns the student at the specified position. If its page is not
+     * resident, the page is requested and null is returned until it arrives.
+     *
+     * @param index The position of the student.
+     * @return The student, or null if it is not loaded yet.
+     */
+    @Override
+    public Student get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int page = index / pageSize;
+        List<Student> rows = residentPages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return null;
+        }
+        int offset = index % pageSize;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    /**
+     * Returns the number of students matching the current filter.
+     *
+     * @return The number of students.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the database can sort by the specified Student property.
+     *
+     * @param property The name of the property.
+     * @return true if the property can be sorted by, false otherwise.
+     */
+    public static boolean isSortable(String property) {
+        for (SortKey key : SortKey.values()) {
+            if (key.property.equals(property)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sorts the list by the specified Student property and reloads it.
+     * Properties the database cannot sort by fall back to the ID order.
+     *
+     * @param property  The name of the property, or null for the ID order.
+     * @param ascending Whether to sort in ascending order.
+     * @return A future completed once the list is reloaded.
+     */
+    public CompletableFuture<Void> setSort(String property, boolean ascending) {
+        SortKey key = SortKey.ID;
+        for (SortKey candidate : SortKey.values()) {
+            if (candidate.property.equals(property)) {
+                key = candidate;
+            }
+        }
+        this.sortKey = key;
+        this.ascending = ascending;
+        return reload();
+    }
+
+    /**
+     * Restricts the list to students whose name, surname, course or company
+     * contains the search term, and reloads it.
+     *
+     * @param searchTerm The search term, or null or empty to show all students.
+     * @return A future completed once the list is reloaded.
+     */
+    public CompletableFuture<Void> setFilter(String searchTerm) {
+        if (searchTerm == null || searchTerm.isEmpty()) {
+            filterCondition = null;
+            filterParameters = new Object[0];
+        } else {
+            String pattern = "%" + searchTerm.toLowerCase() + "%";
+            filterCondition = "(LOWER(s.name) LIKE ? OR LOWER(s.surname) LIKE ? "
+                    + "OR LOWER(c.name) LIKE ? OR LOWER(co.name) LIKE ?)";
+            filterParameters = new Object[] { pattern, pattern, pattern, pattern };
+        }
+        return reload();
+    }
+
+    /**
+     * Drops all resident pages and counts the matching students again. Pages are
+     * loaded again as they are displayed.
+     *
+     * @return A future completed once the new size is known.
+     */
+    public CompletableFuture<Void> reload() {
+        int reloadGeneration = ++generation;
+        residentPages.clear();
+        loadingPages.clear();
+        firstKeys.clear();
+        lastKeys.clear();
+
+        String condition = filterCondition;
+        Object[] parameters = filterParameters;
+        return databaseManager.supplyAsync(() -> studentHydrator.count(condition, parameters))
+                .thenAcceptAsync(count -> {
+                    if (reloadGeneration != generation) {
+                        return;
+                    }
+                    int oldSize = size;
+                    size = count;
+                    beginChange();
+                    nextRemove(0, Collections.nCopies(oldSize, (Student) null));
+                    nextAdd(0, size);
+                    endChange();
+                }, DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Loads a page in the background unless it is already being loaded. Once the
+     * page arrives, its rows are reported as replaced.
+     *
+     * @param page The index of the page.
+     */
+    private void requestPage(int page) {
+        if (!loadingPages.add(page)) {
+            return;
+        }
+        int requestGeneration = generation;
+        PageQuery query = pageQuery(page);
+
+        databaseManager.supplyAsync(() -> studentHydrator.query(query.condition, query.orderBy, pageSize,
+                query.offset, query.parameters))
+                .thenAcceptAsync(rows -> {
+                    if (requestGeneration != generation) {
+                        return;
+                    }
+                    loadingPages.remove(page);
+                    if (query.reversed) {
+                        Collections.reverse(rows);
+                    }
+                    resolver.apply(rows);
+                    residentPages.put(page, rows);
+                    if (!rows.isEmpty()) {
+                        firstKeys.put(page, keyOf(rows.get(0)));
+                        lastKeys.put(page, keyOf(rows.get(rows.size() - 1)));
+                    }
+
+                    int from = page * pageSize;
+                    int to = Math.min(size, from + pageSize);
+                    if (from < to) {
+                        beginChange();
+                        nextReplace(from, to, Collections.nCopies(to - from, (Student) null));
+                        endChange();
+                    }
+                }, DatabaseExecutor.FX_THREAD)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        DatabaseExecutor.runOnFxThread(() -> loadingPages.remove(page));
+                        DatabaseExecutor.unwrap(error).printStackTrace();
+                    }
+                });
+    }
+
+    /**
+     * Builds the query for a page. A page next to a page with known boundary
+     * keys is located by keyset, any other page by offset.
+     *
+     * @param page The index of the page.
+     * @return The query for the page.
+     */
+    private PageQuery pageQuery(int page) {
+        String column = sortKey.column;
+        String forward = ascending ? "ASC" : "DESC";
+        String backward = ascending ? "DESC" : "ASC";
+        Object[] previousLast = lastKeys.get(page - 1);
+        Object[] nextFirst = firstKeys.get(page + 1);
+
+        if (previousLast != null || nextFirst != null) {
+            boolean reversed = previousLast == null;
+            Object[] key = reversed ? nextFirst : previousLast;
+            String operator = ascending != reversed ? ">" : "<";
+            String direction = reversed ? backward : forward;
+            StringBuilder condition = new StringBuilder();
+            List<Object> parameters = new ArrayList<>();
+            if (sortKey == SortKey.ID) {
+                condition.append("s.id ").append(operator).append(" ?");
+                parameters.add(key[1]);
+            } else {
+                condition.append("(").append(column).append(", s.id) ").append(operator).append(" (?, ?)");
+                parameters.add(key[0]);
+                parameters.add(key[1]);
+            }
+            appendFilter(condition, parameters);
+            return new PageQuery(condition.toString(), orderBy(direction), 0, parameters.toArray(), reversed);
+        }
+
+        StringBuilder condition = new StringBuilder();
+        List<Object> parameters = new ArrayList<>();
+        appendFilter(condition, parameters);
+        return new PageQuery(condition.length() > 0 ? condition.toString() : null, orderBy(forward),
+                page * pageSize, parameters.toArray(), false);
+    }
+
+    /**
+     * Appends the current filter to a page condition.
+     *
+     * @param condition  The condition to extend.
+     * @param parameters The parameters of the condition to extend.
+     */
+    private void appendFilter(StringBuilder condition, List<Object> parameters) {
+        if (filterCondition != null) {
+            if (condition.length() > 0) {
+                condition.append(" AND ");
+            }
+            condition.append(filterCondition);
+            Collections.addAll(parameters, filterParameters);
+        }
+    }
+
+    /**
+     * Builds the ORDER BY clause of the current sort key. The ID breaks ties, so
+     * the order is total and keyset conditions are exact.
+     *
+     * @param direction The SQL direction, ASC or DESC.
+     * @return The ORDER BY clause without the keywords.
+     */
+    private String orderBy(String direction) {
+        if (sortKey == SortKey.ID) {
+            return "s.id " + direction;
+        }
+        return sortKey.column + " " + direction + ", s.id " + direction;
+    }
+
+    /**
+     * Returns the keyset key of a student: its sort value and its ID.
+     *
+     * @param student The student.
+     * @return The key of the student.
+     */
+    private Object[] keyOf(Student student) {
+        return new Object[] { sortKey.value.apply(student), student.getId() };
+    }
+
+    /**
+     * The SQL parts of a page query.
+     */
+    private static class PageQuery {
+        private final String condition;
+        private final String orderBy;
+        private final int offset;
+        private final Object[] parameters;
+        private final boolean reversed;
+
+        /**
+         * Constructs a new PageQuery.
+         *
+         * @param condition  The SQL condition, or null.
+         * @param orderBy    The SQL order.
+         * @param offset     The number of rows to skip.
+         * @param parameters The parameters of the condition.
+         * @param reversed   Whether the rows come in reverse display order.
+         */
+        PageQuery(String condition, String orderBy, int offset, Object[] parameters, boolean reversed) {
+            this.condition = condition;
+            this.orderBy = orderBy;
+            this.offset = offset;
+            this.parameters = parameters;
+            this.reversed = reversed;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.baum.student;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.baum.DatabaseManager;
+import com.example.baum.index.ColognePhonetic;
+
+/**
+ * Computes the missing phonetic codes of the students in the database. Students
+ * written by this application get their codes when they are written; the job
+ * fills in the codes of students created before the codes existed or by other
+ * clients.
+ * <p>
+ * The IDs of the students missing codes are split into ranges that are filled
+ * in parallel, each in batches on its own connection. The job only touches
+ * rows without codes, so it can be interrupted and run again, and costs a
+ * single indexed query once every row has its codes. The row timestamps are
+ * kept, so the backfill does not make clients synchronize every student again.
+ */
+public class PhoneticBackfill {
+    private static final int PARALLELISM = 4;
+    private static final int BATCH_SIZE = 1000;
+
+    private final DatabaseManager databaseManager;
+
+    /**
+     * Constructs a new PhoneticBackfill.
+     *
+     * @param databaseManager The DatabaseManager used to connect to the database.
+     */
+    public PhoneticBackfill(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * Starts filling in the missing phonetic codes in the background.
+     *
+     * @return A future completed with the number of students updated.
+     */
+    public CompletableFuture<Long> runAsync() {
+        return databaseManager.supplyAsync(this::findMissingRange).thenCompose(range -> {
+            if (range == null) {
+                return CompletableFuture.completedFuture(0L);
+            }
+            long start = System.nanoTime();
+            AtomicLong updated = new AtomicLong();
+            List<CompletableFuture<Void>> partitions = new ArrayList<>();
+            long span = (long) range[1] - range[0] + 1;
+            for (int i = 0; i < PARALLELISM; i++) {
+                int from = (int) (range[0] + span * i / PARALLELISM);
+                int to = (int) (range[0] + span * (i + 1) / PARALLELISM - 1);
+                if (from <= to) {
+                    partitions.add(databaseManager.runAsync(() -> updated.addAndGet(fillRange(from, to))));
+                }
+            }
+            return CompletableFuture.allOf(partitions.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+                System.out.println("Backfilled the phonetic codes of " + updated.get() + " students in "
+                        + (System.nanoTime() - start) / 1_000_000 + " ms.");
+                return updated.get();
+            });
+        });
+    }
+
+    /**
+     * Finds the range of IDs of the students missing phonetic codes.
+     *
+     * @return The lowest and highest ID, or null if no student misses codes.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private int[] findMissingRange() throws SQLException {
+        String rangeQuery = "SELECT MIN(id), MAX(id) FROM student WHERE name_phonetic IS NULL";
+        try (Connection connection = databaseManager.getConnection();
+                PreparedStatement statement = connection.prepareStatement(rangeQuery);
+                ResultSet resultSet = statement.executeQuery()) {
+            if (!resultSet.next() || resultSet.getObject(1) == null) {
+                return null;
+            }
+            return new int[] { resultSet.getInt(1), resultSet.getInt(2) };
+        }
+    }
+
+    /**
+     * Fills in the phonetic codes of the students in an ID range, batch by
+     * batch.
+     *
+     * @param from The lowest ID of the range.
+     * @param to   The highest ID of the range.
+     * @return The number of students updated.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private long fillRange(int from, int to) throws SQLException {
+        String selectQuery = "SELECT id, name, surname FROM student "
+                + "WHERE name_phonetic IS NULL AND id >= ? AND id <= ? ORDER BY id LIMIT " + BATCH_SIZE;
+        String updateQuery = "UPDATE student SET name_phonetic = ?, surname_phonetic = ?, updated_at = updated_at "
+                + "WHERE id = ?";
+        long updated = 0;
+        int next = from;
+        try (Connection connection = databaseManager.getConnection();
+                PreparedStatement select = connection.prepareStatement(selectQuery);
+                PreparedStatement update = connection.prepareStatement(updateQuery)) {
+            while (next <= to) {
+                select.setInt(1, next);
+                select.setInt(2, to);
+                int lastId = -1;
+                try (ResultSet resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        lastId = resultSet.getInt("id");
+                        update.setString(1, ColognePhonetic.encode(resultSet.getString("name")));
+                        update.setString(2, ColognePhonetic.encode(resultSet.getString("surname")));
+                        update.setInt(3, lastId);
+                        update.addBatch();
+                    }
+                }
+                if (lastId < 0) {
+                    break;
+                }
+                updated += update.executeBatch().length;
+                next = lastId + 1;
+            }
+        }
+        return updated;
+    }
+}
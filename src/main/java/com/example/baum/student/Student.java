@@ -4,6 +4,9 @@ import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import com.example.baum.company.Company;
 import com.example.baum.course.Course;
+import com.example.baum.index.CollationKeys;
+
+import java.text.CollationKey;
 
 /**
  * The Student class represents a student with relevant information such as ID,
@@ -13,7 +16,9 @@ import com.example.baum.course.Course;
 public class Student {
     private int id;
     private String name;
+    private CollationKey nameKey;
     private String surname;
+    private CollationKey surnameKey;
     private int javaSkills;
     private Course course;
     private Company company;
@@ -62,6 +67,21 @@ public class Student {
         return name;
     }
 
+    /**
+     * Returns the collation key of the name of the student, which the tables sort
+     * by. The key is computed on first use and cached until the name changes.
+     *
+     * @return The collation key of the name.
+     */
+    public CollationKey getNameKey() {
+        CollationKey key = nameKey;
+        if (key == null) {
+            key = CollationKeys.of(name);
+            nameKey = key;
+        }
+        return key;
+    }
+
     /**
      * Sets the name of the student.
      *
@@ -69,6 +89,7 @@ public class Student {
      */
     public void setName(String name) {
         this.name = name;
+        this.nameKey = null;
     }
 
     /**
@@ -80,6 +101,21 @@ public class Student {
         return surname;
     }
 
+    /**
+     * Returns the collation key of the surname of the student, which the tables sort
+     * by. The key is computed on first use and cached until the surname changes.
+     *
+     * @return The collation key of the surname.
+     */
+    public CollationKey getSurnameKey() {
+        CollationKey key = surnameKey;
+        if (key == null) {
+            key = CollationKeys.of(surname);
+            surnameKey = key;
+        }
+        return key;
+    }
+
     /**
      * Sets the surname of the student.
      *
@@ -87,6 +123,7 @@ public class Student {
      */
     public void setSurname(String surname) {
         this.surname = surname;
+        this.surnameKey = null;
     }
 
     /**
@@ -1,27 +1,76 @@
 package com.example.baum.student;
 
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 import com.example.baum.DatabaseManager;
 import com.example.baum.company.Company;
 import com.example.baum.company.CompanyData;
 import com.example.baum.course.Course;
 import com.example.baum.course.CourseData;
+import com.example.baum.database.ChangeSet;
+import com.example.baum.database.ChangeTracker;
+import com.example.baum.database.DatabaseExecutor;
+import com.example.baum.database.QueryCancellation;
+import com.example.baum.index.ColognePhonetic;
+import com.example.baum.index.EntityIndex;
+import com.example.baum.index.FuzzyIndex;
+import com.example.baum.index.IdentityMap;
+import com.example.baum.index.IntHashMap;
+import com.example.baum.index.RelationIndex;
+import com.example.baum.index.TextIndex;
 
 /**
  * A class that manages student data, including fetching from a database,
  * adding, removing, searching, and updating students.
+ * Every database operation is available synchronously and as an asynchronous
+ * variant that runs the database work off the JavaFX Application Thread and
+ * applies the result on it.
  */
 public class StudentData {
+    private static final int DEFAULT_STREAMING_CHUNK_SIZE = 2000;
+    private static final long DEFAULT_STREAMING_MEMORY_CEILING = 32L * 1024 * 1024;
+    private static final int DEFAULT_PAGED_MODE_THRESHOLD = 50_000;
+    private static final int FUZZY_SEARCH_LIMIT = 100;
+    private static final int PHONETIC_SEARCH_LIMIT = 500;
+
     private final ObservableList<Student> studentList;
     private final DatabaseManager databaseManager;
     private final CourseData courseData;
     private final CompanyData companyData;
+    private final StudentHydrator studentHydrator;
+    private final BulkStudentWriter bulkWriter;
+    private final PagedStudentList pagedStudentList;
+    private final ChangeTracker changeTracker = new ChangeTracker("student");
+    private final EntityIndex<Student> studentIndex;
+    private final IdentityMap<Student> identityMap;
+    private final TextIndex<Student> searchIndex;
+    private final FuzzyIndex<Student> fuzzyIndex;
+    private final RelationIndex<Student> studentsByCourse;
+    private final RelationIndex<Student> studentsByCompany;
+    private final StudentQueryPlanner queryPlanner = new StudentQueryPlanner();
+    private boolean listComplete;
+    private int pagedModeThreshold = DEFAULT_PAGED_MODE_THRESHOLD;
+    private boolean pagedMode;
+    private int streamingChunkSize = DEFAULT_STREAMING_CHUNK_SIZE;
+    private long streamingMemoryCeiling = DEFAULT_STREAMING_MEMORY_CEILING;
 
     /**
      * Constructs a StudentData object with the specified dependencies.
@@ -36,7 +85,31 @@ public class StudentData {
         this.databaseManager = databaseManager;
         this.courseData = courseData;
         this.companyData = companyData;
+        this.studentHydrator = new StudentHydrator(databaseManager, courseData, companyData);
+        this.bulkWriter = new BulkStudentWriter(databaseManager);
+        this.pagedStudentList = new PagedStudentList(databaseManager, studentHydrator, this::resolveReferences);
         studentList = FXCollections.observableArrayList();
+        studentIndex = new EntityIndex<>(studentList, Student::getId, Student::getSurname);
+        identityMap = databaseManager.getIdentityMap(Student.class, Student::getId);
+        identityMap.setListed(studentIndex::getById);
+        searchIndex = new TextIndex<>(studentList, List.of(Student::getName, Student::getSurname,
+                student -> student.getCourse().getName(), student -> student.getCompany().getName()));
+        fuzzyIndex = new FuzzyIndex<>(studentList, List.of(Student::getName, Student::getSurname));
+        studentsByCourse = new RelationIndex<>(studentList, student -> student.getCourse() != null
+                ? student.getCourse().getId() : RelationIndex.NO_RELATION);
+        studentsByCompany = new RelationIndex<>(studentList, student -> student.getCompany() != null
+                ? student.getCompany().getId() : RelationIndex.NO_RELATION);
+
+        // Renamed courses and companies are set again in their lists
+        ListChangeListener<Object> renameListener = change -> {
+            while (change.next()) {
+                if (change.wasReplaced()) {
+                    searchIndex.invalidate();
+                }
+            }
+        };
+        courseData.getCourseList().addListener(renameListener);
+        companyData.getCompanyList().addListener(renameListener);
     }
 
     /**
@@ -48,35 +121,220 @@ public class StudentData {
         return studentList;
     }
 
+    /**
+     * Returns the paged view of the students, which is used instead of the
+     * student list when there are too many students to hold in memory.
+     *
+     * @return The paged student list.
+     */
+    public PagedStudentList getPagedStudentList() {
+        return pagedStudentList;
+    }
+
+    /**
+     * Checks whether the students are too many to hold in memory, in which case
+     * the student list stays empty and the paged student list is populated
+     * instead. Decided by the last fetch.
+     *
+     * @return true if the paged student list is in use, false otherwise.
+     */
+    public boolean isPagedMode() {
+        return pagedMode;
+    }
+
+    /**
+     * Sets the number of students above which the students are no longer held
+     * in memory but paged from the database.
+     *
+     * @param pagedModeThreshold The number of students.
+     */
+    public void setPagedModeThreshold(int pagedModeThreshold) {
+        this.pagedModeThreshold = pagedModeThreshold;
+    }
+
     /**
      * Fetches students from the database and populates the student list.
      */
     public void fetchStudentsFromDatabase() {
         studentList.clear();
-        String selectQuery = "SELECT * FROM student";
+        listComplete = false;
         try {
-            Statement statement = databaseManager.getConnection().createStatement();
-            ResultSet resultSet = statement.executeQuery(selectQuery);
-            while (resultSet.next()) {
-                int id = resultSet.getInt("id");
-                String name = resultSet.getString("name");
-                String surname = resultSet.getString("surname");
-                int javaskills = resultSet.getInt("javaskills");
-                int courseId = resultSet.getInt("course_id");
-                int companyId = resultSet.getInt("company_id");
-
-                Course course = courseData.getCourseById(courseId);
-                Company company = companyData.getCompanyById(companyId);
-
-                Student student = new Student(name, surname, javaskills, course, company);
-                student.setId(id); // Set the ID of the student
-                studentList.add(student);
-            }
+            studentList.addAll(resolveReferences(loadStudents()));
+            listComplete = true;
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Sets the number of students appended to the student list at once while
+     * streaming.
+     *
+     * @param streamingChunkSize The number of students per chunk.
+     */
+    public void setStreamingChunkSize(int streamingChunkSize) {
+        this.streamingChunkSize = streamingChunkSize;
+    }
+
+    /**
+     * Sets the maximum memory that streamed students waiting to be appended to
+     * the student list may take.
+     *
+     * @param streamingMemoryCeiling The ceiling in bytes.
+     */
+    public void setStreamingMemoryCeiling(long streamingMemoryCeiling) {
+        this.streamingMemoryCeiling = streamingMemoryCeiling;
+    }
+
+    /**
+     * Fetches students from the database in the background and replaces the
+     * content of the student list on the JavaFX Application Thread. The rows are
+     * streamed and appended chunk by chunk, so the table is never buffered as a
+     * whole. Courses, rooms and companies are loaded by the same query, so this
+     * does not depend on the other lists being loaded.
+     * If there are more students than the paged mode threshold, the student list
+     * is emptied and the paged student list is reloaded instead.
+     *
+     * @return A future completed once the students are available.
+     */
+    public CompletableFuture<Void> fetchStudentsAsync() {
+        return databaseManager.supplyAsync(() -> studentHydrator.count(null))
+                .thenComposeAsync(count -> {
+                    pagedMode = count > pagedModeThreshold;
+                    listComplete = false;
+                    if (pagedMode) {
+                        studentList.clear();
+                        return pagedStudentList.reload();
+                    }
+                    return databaseManager.runAsync(() -> {
+                        beginFullLoad();
+                        DatabaseExecutor.runOnFxThread(studentList::clear);
+                        studentHydrator.streamAll(streamingChunkSize, streamingMemoryCeiling,
+                                DatabaseExecutor.FX_THREAD, chunk -> studentList.addAll(resolveReferences(chunk)));
+                    }).thenRunAsync(() -> listComplete = true, DatabaseExecutor.FX_THREAD);
+                }, DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Loads all students with their courses, rooms and companies from the
+     * database.
+     *
+     * @return The loaded students.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private List<Student> loadStudents() throws SQLException {
+        beginFullLoad();
+        return studentHydrator.loadAll();
+    }
+
+    /**
+     * Records that all students are being loaded, so later synchronizations only
+     * fetch what changed from now on.
+     *
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private void beginFullLoad() throws SQLException {
+        try (Connection connection = databaseManager.getConnection()) {
+            changeTracker.beginFullLoad(connection);
+        }
+    }
+
+    /**
+     * Synchronizes the students with the database in the background. Only the
+     * students changed or deleted since the last synchronization are fetched and
+     * applied to the student list on the JavaFX Application Thread. If the
+     * students have not been loaded yet, or are paged, this is a full fetch.
+     *
+     * @return A future completed once the students are up to date.
+     */
+    public CompletableFuture<Void> syncFromDatabase() {
+        if (pagedMode || !changeTracker.hasWatermark()) {
+            return fetchStudentsAsync();
+        }
+        return databaseManager.supplyAsync(() -> studentHydrator.fetchChanges(changeTracker))
+                .thenAcceptAsync(this::applyChanges, DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Applies changes loaded from the database to the student list. Changed
+     * students are updated in place, so selections and references stay valid.
+     * The list is scanned once, however many students changed.
+     *
+     * @param changes The changes to apply.
+     */
+    private void applyChanges(ChangeSet<Student> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        // Rows written by other clients may change cached query results
+        databaseManager.getQueryCache().invalidate("student");
+        IntHashMap<Student> changedById = new IntHashMap<>(changes.getChanged().size());
+        for (Student changed : resolveReferences(changes.getChanged())) {
+            changedById.put(changed.getId(), changed);
+        }
+        IntHashMap<Boolean> deletedIds = new IntHashMap<>(changes.getDeletedIds().length);
+        for (int id : changes.getDeletedIds()) {
+            deletedIds.put(id, Boolean.TRUE);
+            changedById.remove(id);
+        }
+
+        List<Integer> removedPositions = new ArrayList<>();
+        for (int i = 0; i < studentList.size(); i++) {
+            Student student = studentList.get(i);
+            if (deletedIds.containsKey(student.getId())) {
+                removedPositions.add(i);
+                continue;
+            }
+            Student changed = changedById.remove(student.getId());
+            if (changed != null && !hasSameDetails(student, changed)) {
+                student.setName(changed.getName());
+                student.setSurname(changed.getSurname());
+                student.setJavaSkills(changed.getJavaSkills());
+                student.setCourse(changed.getCourse());
+                student.setCompany(changed.getCompany());
+                studentList.set(i, student);
+            }
+        }
+        for (int i = removedPositions.size() - 1; i >= 0; i--) {
+            studentList.remove((int) removedPositions.get(i));
+        }
+        // Whatever was not matched is new
+        studentList.addAll(changedById.values());
+    }
+
+    /**
+     * Checks whether two students have the same details.
+     *
+     * @param student The first student.
+     * @param other   The second student.
+     * @return true if all details are equal, false otherwise.
+     */
+    private static boolean hasSameDetails(Student student, Student other) {
+        return Objects.equals(student.getName(), other.getName())
+                && Objects.equals(student.getSurname(), other.getSurname())
+                && student.getJavaSkills() == other.getJavaSkills()
+                && student.getCourse() == other.getCourse()
+                && student.getCompany() == other.getCompany();
+    }
+
+    /**
+     * Replaces the courses and companies of the specified students with the
+     * canonical instances from the course and company lists, adding those not
+     * loaded yet. Must be called on the JavaFX Application Thread.
+     *
+     * @param students The students to resolve.
+     * @return The same students.
+     */
+    private List<Student> resolveReferences(List<Student> students) {
+        for (Student student : students) {
+            student.setCourse(courseData.resolveCourse(student.getCourse()));
+            student.setCompany(companyData.resolveCompany(student.getCompany()));
+        }
+        return students;
+    }
+
     /**
      * Adds a student with the specified details to the database and the student
      * list.
@@ -88,25 +346,85 @@ public class StudentData {
      * @param companyId  The ID of the company associated with the student.
      */
     public void addStudent(String name, String surname, int javaskills, int courseId, int companyId) {
-        String insertQuery = "INSERT INTO student (name, surname, javaskills, course_id, company_id) VALUES (?, ?, ?, ?, ?)";
         try {
-            PreparedStatement statement = databaseManager.getConnection().prepareStatement(insertQuery);
+            studentList.add(insertStudent(name, surname, javaskills, courseData.fetchCourseById(courseId),
+                    companyData.fetchCompanyById(companyId)));
+            clearFields();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Adds a student in the background and appends it to the student list on the
+     * JavaFX Application Thread.
+     *
+     * @param name       The name of the student.
+     * @param surname    The surname of the student.
+     * @param javaskills The Java skills level of the student.
+     * @param courseId   The ID of the course associated with the student.
+     * @param companyId  The ID of the company associated with the student.
+     * @return A future completed with the new student.
+     */
+    public CompletableFuture<Student> addStudentAsync(String name, String surname, int javaskills, int courseId,
+            int companyId) {
+        // Read through, as another client may have created the course or company
+        return databaseManager.supplyAsync(() -> insertStudent(name, surname, javaskills,
+                        courseData.fetchCourseById(courseId), companyData.fetchCompanyById(companyId)))
+                .thenApplyAsync(student -> {
+                    appendToList(student);
+                    clearFields();
+                    return student;
+                }, DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Appends a new student to the student list, or reloads the current page in
+     * paged mode.
+     *
+     * @param student The new student.
+     */
+    private void appendToList(Student student) {
+        if (pagedMode) {
+            pagedStudentList.reload();
+        } else {
+            studentList.add(student);
+        }
+    }
+
+    /**
+     * Inserts a student into the database.
+     *
+     * @param name       The name of the student.
+     * @param surname    The surname of the student.
+     * @param javaskills The Java skills level of the student.
+     * @param course     The course associated with the student.
+     * @param company    The company associated with the student.
+     * @return The inserted student.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private Student insertStudent(String name, String surname, int javaskills, Course course, Company company)
+            throws SQLException {
+        String insertQuery = "INSERT INTO student (name, surname, javaskills, course_id, company_id, "
+                + "name_phonetic, surname_phonetic) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (Connection connection = databaseManager.getConnection();
+                PreparedStatement statement = connection.prepareStatement(insertQuery)) {
             statement.setString(1, name);
             statement.setString(2, surname);
             statement.setInt(3, javaskills);
-            statement.setInt(4, courseId);
-            statement.setInt(5, companyId);
+            statement.setInt(4, course.getId());
+            statement.setInt(5, company.getId());
+            statement.setString(6, ColognePhonetic.encode(name));
+            statement.setString(7, ColognePhonetic.encode(surname));
             statement.executeUpdate();
 
-            int lastInsertedId = getLastInsertedId();
-            Course course = courseData.getCourseById(courseId);
-            Company company = companyData.getCompanyById(companyId);
+            int lastInsertedId = getLastInsertedId(connection);
             Student newStudent = new Student(name, surname, javaskills, course, company);
             newStudent.setId(lastInsertedId); // Set the ID of the new student
-            studentList.add(newStudent);
-            clearFields();
-        } catch (SQLException e) {
-            e.printStackTrace();
+            return newStudent;
+        } finally {
+            databaseManager.getQueryCache().invalidate("student");
         }
     }
 
@@ -117,11 +435,8 @@ public class StudentData {
      */
     public void removeStudent(Student student) {
         if (student != null) {
-            String deleteQuery = "DELETE FROM student WHERE id = ?";
             try {
-                PreparedStatement statement = databaseManager.getConnection().prepareStatement(deleteQuery);
-                statement.setInt(1, student.getId());
-                statement.executeUpdate();
+                deleteStudents(List.of(student));
                 studentList.remove(student);
             } catch (SQLException e) {
                 e.printStackTrace();
@@ -129,6 +444,20 @@ public class StudentData {
         }
     }
 
+    /**
+     * Removes the specified student in the background and drops it from the
+     * student list on the JavaFX Application Thread.
+     *
+     * @param student The student to be removed.
+     * @return A future completed once the student is removed.
+     */
+    public CompletableFuture<Void> removeStudentAsync(Student student) {
+        if (student == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return removeStudentsAsync(List.of(student));
+    }
+
     /**
      * Searches for students in the student list by name.
      *
@@ -144,17 +473,257 @@ public class StudentData {
                         .collect(Collectors.toList()));
     }
 
+    /**
+     * Searches the students by name, surname, course name and company name.
+     * The search is answered by an index kept in sync with the student list.
+     *
+     * @param searchText The text to search for, ignoring case.
+     * @return The observable list of students matching the search text.
+     */
+    public ObservableList<Student> searchStudents(String searchText) {
+        return FXCollections.observableArrayList(searchIndex.search(searchText));
+    }
+
+    /**
+     * Searches the students whose name or surname is spelled most like the
+     * search text. Typos, case and accents are tolerated.
+     *
+     * @param searchText The text to search for.
+     * @return The most similar students, best first.
+     */
+    public List<Student> fuzzySearchStudents(String searchText) {
+        return fuzzyIndex.search(searchText, FUZZY_SEARCH_LIMIT);
+    }
+
+    /**
+     * Searches the students whose name or surname sounds like the search text in
+     * the background. Every word of the search text must sound like the name or
+     * the surname, which is looked up by its phonetic code in an index. Works in
+     * paged mode too.
+     *
+     * @param searchText The text to search for.
+     * @return A future completed on the JavaFX Application Thread with the
+     *         matching students, ordered by surname and name.
+     */
+    public CompletableFuture<ObservableList<Student>> phoneticSearchStudentsAsync(String searchText) {
+        return phoneticSearchStudentsAsync(searchText, null)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Searches the students whose name or surname sounds like the search text in
+     * the background with a query that can be cancelled. Failures, including
+     * the cancellation, are left to the caller.
+     *
+     * @param searchText   The text to search for.
+     * @param cancellation The cancellation to register the query with, or null.
+     * @return A future completed on the JavaFX Application Thread with the
+     *         matching students, ordered by surname and name.
+     */
+    public CompletableFuture<ObservableList<Student>> phoneticSearchStudentsAsync(String searchText,
+            QueryCancellation cancellation) {
+        return databaseManager.supplyAsync(() -> queryPhonetic(searchText, cancellation))
+                .thenApplyAsync(students -> FXCollections.observableArrayList(toLoadedStudents(students)),
+                        DatabaseExecutor.FX_THREAD);
+    }
+
+    /**
+     * Queries the students whose name or surname sounds like every word of the
+     * search text.
+     *
+     * @param searchText   The text to search for.
+     * @param cancellation The cancellation to register the query with, or null.
+     * @return The matching students.
+     * @throws SQLException If an SQL exception occurs or the query is cancelled.
+     */
+    private List<Student> queryPhonetic(String searchText, QueryCancellation cancellation) throws SQLException {
+        StringBuilder condition = new StringBuilder();
+        List<Object> parameters = new ArrayList<>();
+        for (String word : searchText.trim().split("\\s+")) {
+            String code = ColognePhonetic.encode(word);
+            if (code.isEmpty()) {
+                continue;
+            }
+            if (condition.length() > 0) {
+                condition.append(" AND ");
+            }
+            condition.append("(s.name_phonetic = ? OR s.surname_phonetic = ?)");
+            parameters.add(code);
+            parameters.add(code);
+        }
+        if (condition.length() == 0) {
+            return new ArrayList<>();
+        }
+        return studentHydrator.query(cancellation, condition.toString(), "s.surname, s.name, s.id",
+                PHONETIC_SEARCH_LIMIT, 0, parameters.toArray());
+    }
+
+    /**
+     * Retrieves the students enrolled in a course. While every student is held
+     * in the student list, the students are taken from an index of the list
+     * without querying the database; otherwise they are queried.
+     * Must be called on the JavaFX Application Thread.
+     *
+     * @param course The course.
+     * @return A future completed on the JavaFX Application Thread with the
+     *         students enrolled in the course.
+     */
+    public CompletableFuture<ObservableList<Student>> getCourseStudentsAsync(Course course) {
+        if (course == null) {
+            return CompletableFuture.completedFuture(FXCollections.observableArrayList());
+        }
+        if (listComplete && !pagedMode) {
+            return CompletableFuture.completedFuture(
+                    FXCollections.observableArrayList(studentsByCourse.get(course.getId())));
+        }
+        return databaseManager.supplyAsync(() -> studentHydrator.loadByCourse(course.getId()))
+                .thenApplyAsync(students -> FXCollections.observableArrayList(toLoadedStudents(students)),
+                        DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Retrieves the students associated with a company. While every student is
+     * held in the student list, the students are taken from an index of the
+     * list without querying the database; otherwise they are queried.
+     * Must be called on the JavaFX Application Thread.
+     *
+     * @param company The company.
+     * @return A future completed on the JavaFX Application Thread with the
+     *         students associated with the company, ordered by surname and name
+     *         if queried.
+     */
+    public CompletableFuture<ObservableList<Student>> getCompanyStudentsAsync(Company company) {
+        if (company == null) {
+            return CompletableFuture.completedFuture(FXCollections.observableArrayList());
+        }
+        if (listComplete && !pagedMode) {
+            return CompletableFuture.completedFuture(
+                    FXCollections.observableArrayList(studentsByCompany.get(company.getId())));
+        }
+        return databaseManager.supplyAsync(() -> studentHydrator.query("s.company_id = ?", "s.surname, s.name, s.id",
+                        Integer.MAX_VALUE, 0, company.getId()))
+                .thenApplyAsync(students -> FXCollections.observableArrayList(toLoadedStudents(students)),
+                        DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Queries the students matching every criterion of a query in the
+     * background. Depending on the estimated cost, the query is evaluated
+     * against the student list or compiled to an indexed SQL query; both
+     * return the same students in the same order. Works in paged mode too.
+     * Must be called on the JavaFX Application Thread.
+     *
+     * @param query The query.
+     * @return A future completed on the JavaFX Application Thread with the
+     *         matching students, ordered by surname, name and ID.
+     */
+    public CompletableFuture<ObservableList<Student>> queryStudentsAsync(StudentQuery query) {
+        StudentQueryPlanner.Plan plan = queryPlanner.choose(query, listComplete && !pagedMode, studentList.size(),
+                courseData.getCourseList().size(), companyData.getCompanyList().size());
+        if (plan == StudentQueryPlanner.Plan.MEMORY) {
+            return CompletableFuture.completedFuture(FXCollections.observableArrayList(filterStudents(query)));
+        }
+        return databaseManager.supplyAsync(() -> queryDatabase(query))
+                .thenApplyAsync(students -> FXCollections.observableArrayList(toLoadedStudents(students)),
+                        DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Evaluates a query against the student list.
+     *
+     * @param query The query.
+     * @return The matching students, ordered by surname, name and ID.
+     */
+    private List<Student> filterStudents(StudentQuery query) {
+        return studentList.stream()
+                .filter(query.toPredicate())
+                .sorted(StudentQuery.ORDER)
+                .limit(query.getLimit())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Evaluates a query in the database.
+     *
+     * @param query The query.
+     * @return The matching students, ordered by surname, name and ID.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private List<Student> queryDatabase(StudentQuery query) throws SQLException {
+        List<Object> parameters = new ArrayList<>();
+        String condition = query.toSqlCondition(parameters);
+        return studentHydrator.query(condition, query.toSqlOrder(), query.getLimit(), 0, parameters.toArray());
+    }
+
+    /**
+     * Replaces queried students with their canonical instances, so edits made
+     * through search results reach the listed students, and every query
+     * returns the same instance for a student not in the list. Students not
+     * in the list keep their canonical course and company.
+     *
+     * @param students The queried students.
+     * @return The canonical instances of the students.
+     */
+    private List<Student> toLoadedStudents(List<Student> students) {
+        List<Student> loaded = new ArrayList<>(students.size());
+        for (Student student : resolveReferences(students)) {
+            loaded.add(identityMap.intern(student));
+        }
+        return loaded;
+    }
+
+    /**
+     * Starts filling in the phonetic codes of students that have none in the
+     * background.
+     *
+     * @return A future completed with the number of students updated.
+     */
+    public CompletableFuture<Long> backfillPhoneticCodesAsync() {
+        return new PhoneticBackfill(databaseManager).runAsync()
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Searches the specified students by name, surname, course name and company
+     * name. Only the candidates are checked, which makes narrowing down the
+     * results of a previous search cheap.
+     *
+     * @param candidates The students to check.
+     * @param searchText The text to search for, ignoring case.
+     * @return The candidates matching the search text, in their order.
+     */
+    public List<Student> refineSearch(Collection<Student> candidates, String searchText) {
+        return searchIndex.refine(candidates, searchText);
+    }
+
+    /**
+     * Checks whether a student matches the search text by name, surname, course
+     * name or company name.
+     *
+     * @param student    The student to check.
+     * @param searchText The text to search for, ignoring case.
+     * @return true if the student is in the student list and matches.
+     */
+    public boolean matchesSearch(Student student, String searchText) {
+        return searchIndex.matches(student, searchText);
+    }
+
     /**
      * Retrieves the ID of the last inserted student from the database.
      *
+     * @param connection The connection the student was inserted on.
      * @return The ID of the last inserted student.
      * @throws SQLException If an SQL exception occurs.
      */
-    private int getLastInsertedId() throws SQLException {
-        Statement statement = databaseManager.getConnection().createStatement();
-        ResultSet resultSet = statement.executeQuery("SELECT LAST_INSERT_ID()");
-        if (resultSet.next()) {
-            return resultSet.getInt(1);
+    private int getLastInsertedId(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT LAST_INSERT_ID()");
+                ResultSet resultSet = statement.executeQuery()) {
+            if (resultSet.next()) {
+                return resultSet.getInt(1);
+            }
         }
         return -1;
     }
@@ -180,39 +749,265 @@ public class StudentData {
      */
     public void updateStudent(Student student) {
         if (student != null) {
-            String updateQuery = "UPDATE student SET name = ?, surname = ?, javaskills = ?, course_id = ?, company_id = ? WHERE id = ?";
+            searchIndex.update(student);
+            fuzzyIndex.update(student);
+            studentsByCourse.update(student);
+            studentsByCompany.update(student);
             try {
-                PreparedStatement statement = databaseManager.getConnection().prepareStatement(updateQuery);
+                writeStudents(List.of(student), List.of(student));
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Updates the details of the specified student in the database in the
+     * background. The student is changed in memory on the JavaFX Application
+     * Thread once the change is committed, and stays unchanged if it fails.
+     *
+     * @param student The student to be updated.
+     * @param details A copy of the student holding the new details.
+     * @return A future completed once the student is written and changed.
+     */
+    public CompletableFuture<Void> updateStudentAsync(Student student, Student details) {
+        if (student == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return updateStudentsAsync(List.of(student), List.of(details));
+    }
+
+    /**
+     * Updates the details of the specified students in the database in the
+     * background, in one transaction. The students are changed in memory on
+     * the JavaFX Application Thread once the transaction is committed, and
+     * stay unchanged if it fails.
+     *
+     * @param students The students to be updated.
+     * @param details  Copies of the students holding their new details, in the
+     *                 order of the students.
+     * @return A future completed once all students are written and changed.
+     */
+    public CompletableFuture<Void> updateStudentsAsync(List<Student> students, List<Student> details) {
+        List<Student> toUpdate = new ArrayList<>(students);
+        List<Student> toWrite = new ArrayList<>(details);
+        return databaseManager.transactAsync(unit -> {
+            writeStudents(toUpdate, toWrite);
+            unit.afterCommit(() -> {
+                for (int i = 0; i < toUpdate.size(); i++) {
+                    applyDetails(toUpdate.get(i), toWrite.get(i));
+                }
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Copies new details into a student and re-indexes it.
+     *
+     * @param student The student to change.
+     * @param details A copy of the student holding the new details.
+     */
+    private void applyDetails(Student student, Student details) {
+        student.setName(details.getName());
+        student.setSurname(details.getSurname());
+        student.setJavaSkills(details.getJavaSkills());
+        student.setCourse(details.getCourse());
+        student.setCompany(details.getCompany());
+        searchIndex.update(student);
+        fuzzyIndex.update(student);
+        studentsByCourse.update(student);
+        studentsByCompany.update(student);
+    }
+
+    /**
+     * Writes the details of the specified students to the database.
+     *
+     * @param students The students to be written.
+     * @param details  The students holding the details to write, in the order
+     *                 of the students; may be the students themselves.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private void writeStudents(List<Student> students, List<Student> details) throws SQLException {
+        String updateQuery = "UPDATE student SET name = ?, surname = ?, javaskills = ?, course_id = ?, company_id = ?, "
+                + "name_phonetic = ?, surname_phonetic = ? WHERE id = ?";
+        try (Connection connection = databaseManager.getConnection();
+                PreparedStatement statement = connection.prepareStatement(updateQuery)) {
+            for (int i = 0; i < students.size(); i++) {
+                Student student = details.get(i);
                 statement.setString(1, student.getName());
                 statement.setString(2, student.getSurname());
                 statement.setInt(3, student.getJavaSkills());
                 statement.setInt(4, student.getCourse().getId());
                 statement.setInt(5, student.getCompany().getId());
-                statement.setInt(6, student.getId());
+                statement.setString(6, ColognePhonetic.encode(student.getName()));
+                statement.setString(7, ColognePhonetic.encode(student.getSurname()));
+                statement.setInt(8, students.get(i).getId());
                 statement.executeUpdate();
-            } catch (SQLException e) {
-                e.printStackTrace();
             }
+        } finally {
+            databaseManager.getQueryCache().invalidate("student");
         }
     }
 
+    /**
+     * Assigns many students to a course and/or a company in the background,
+     * with one UPDATE per chunk of students instead of one per student. The
+     * students written are updated in memory on the JavaFX Application Thread,
+     * also when the change is cancelled or fails part way.
+     *
+     * @param students     The students to be reassigned.
+     * @param course       The new course, or null to keep the courses.
+     * @param company      The new company, or null to keep the companies.
+     * @param progress     Receives the share of the students written, between 0
+     *                     and 1, on the JavaFX Application Thread; may be null.
+     * @param cancellation The cancellation stopping the change, or null.
+     * @return A future completed with the number of students reassigned.
+     */
+    public CompletableFuture<Integer> reassignStudentsAsync(List<Student> students, Course course, Company company,
+            DoubleConsumer progress, QueryCancellation cancellation) {
+        List<Student> toWrite = new ArrayList<>(students);
+        int[] ids = toIds(toWrite);
+        Integer courseId = course != null ? course.getId() : null;
+        Integer companyId = company != null ? company.getId() : null;
+        AtomicInteger written = new AtomicInteger();
+        return databaseManager.supplyAsync(() -> bulkWriter.reassign(ids, courseId, companyId,
+                        trackProgress(written, ids.length, progress), cancellation))
+                .handleAsync((count, error) -> {
+                    for (Student student : toWrite.subList(0, written.get())) {
+                        if (course != null) {
+                            student.setCourse(course);
+                        }
+                        if (company != null) {
+                            student.setCompany(company);
+                        }
+                        searchIndex.update(student);
+                        studentsByCourse.update(student);
+                        studentsByCompany.update(student);
+                    }
+                    if (pagedMode) {
+                        pagedStudentList.reload();
+                    }
+                    if (error != null) {
+                        throw new CompletionException(error);
+                    }
+                    return written.get();
+                }, DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
     /**
      * Removes multiple students from the database and the student list.
      *
      * @param selectedStudents The list of students to be removed.
      */
     public void removeStudents(ObservableList<Student> selectedStudents) {
-        String deleteQuery = "DELETE FROM student WHERE id = ?";
+        List<Student> toRemove = new ArrayList<>(selectedStudents);
         try {
-            PreparedStatement statement = databaseManager.getConnection().prepareStatement(deleteQuery);
-            for (Student student : selectedStudents) {
-                statement.setInt(1, student.getId());
-                statement.addBatch();
-            }
-            statement.executeBatch();
-            studentList.removeAll(selectedStudents);
+            deleteStudents(toRemove);
+            removeFromList(toRemove);
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Removes multiple students in the background and drops them from the
+     * student list on the JavaFX Application Thread.
+     *
+     * @param selectedStudents The list of students to be removed.
+     * @return A future completed once the students are removed.
+     */
+    public CompletableFuture<Void> removeStudentsAsync(List<Student> selectedStudents) {
+        return removeStudentsAsync(selectedStudents, null, null).thenAccept(count -> { });
+    }
+
+    /**
+     * Removes multiple students in the background, chunk by chunk in separate
+     * transactions, and drops the students deleted from the student list on
+     * the JavaFX Application Thread, also when the removal is cancelled or
+     * fails part way.
+     *
+     * @param selectedStudents The list of students to be removed.
+     * @param progress         Receives the share of the students deleted,
+     *                         between 0 and 1, on the JavaFX Application
+     *                         Thread; may be null.
+     * @param cancellation     The cancellation stopping the removal, or null.
+     * @return A future completed with the number of students removed.
+     */
+    public CompletableFuture<Integer> removeStudentsAsync(List<Student> selectedStudents, DoubleConsumer progress,
+            QueryCancellation cancellation) {
+        List<Student> toRemove = new ArrayList<>(selectedStudents);
+        int[] ids = toIds(toRemove);
+        AtomicInteger deleted = new AtomicInteger();
+        return databaseManager.supplyAsync(() -> bulkWriter.delete(ids,
+                        trackProgress(deleted, ids.length, progress), cancellation))
+                .handleAsync((count, error) -> {
+                    if (pagedMode) {
+                        pagedStudentList.reload();
+                    } else {
+                        removeFromList(toRemove.subList(0, deleted.get()));
+                    }
+                    if (error != null) {
+                        throw new CompletionException(error);
+                    }
+                    return deleted.get();
+                }, DatabaseExecutor.FX_THREAD)
+                .whenComplete(DatabaseExecutor::printError);
+    }
+
+    /**
+     * Drops students from the student list. The students are looked up in a
+     * set, so dropping many students scans the list only once.
+     *
+     * @param students The students to drop.
+     */
+    private void removeFromList(List<Student> students) {
+        Set<Student> toRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+        toRemove.addAll(students);
+        studentList.removeAll(toRemove);
+    }
+
+    /**
+     * Creates the progress callback of a bulk change, which remembers the
+     * number of students written and reports their share.
+     *
+     * @param written  Receives the number of students written.
+     * @param total    The number of students to write.
+     * @param progress Receives the share of the students written on the JavaFX
+     *                 Application Thread, or null.
+     * @return The callback.
+     */
+    private static IntConsumer trackProgress(AtomicInteger written, int total, DoubleConsumer progress) {
+        return count -> {
+            written.set(count);
+            if (progress != null) {
+                DatabaseExecutor.runOnFxThread(() -> progress.accept((double) count / total));
+            }
+        };
+    }
+
+    /**
+     * Returns the IDs of students.
+     *
+     * @param students The students.
+     * @return The IDs, in the order of the students.
+     */
+    private static int[] toIds(List<Student> students) {
+        int[] ids = new int[students.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = students.get(i).getId();
+        }
+        return ids;
+    }
+
+    /**
+     * Deletes the specified students from the database, chunk by chunk.
+     *
+     * @param students The students to be deleted.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private void deleteStudents(List<Student> students) throws SQLException {
+        bulkWriter.delete(toIds(students), count -> { }, null);
+    }
 }
@@ -0,0 +1,84 @@
+package com.example.baum.student;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * The predicate filtering the student table by the search text. The matching
+ * students are computed once when the filter is created, so the filtered list
+ * only looks them up. When the search text extends the previous one, only the
+ * students matching the previous search text are checked again.
+ * <p>
+ * Students added to the student list after the filter was applied are checked
+ * against the search text when the filtered list tests them.
+ */
+class StudentFilter implements Predicate<Student> {
+    private final StudentData studentData;
+    private final String searchText;
+    private final Set<Student> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean applied;
+
+    /**
+     * Constructs a new StudentFilter.
+     *
+     * @param studentData the StudentData answering the search
+     * @param searchText  the lowercased search text
+     * @param matches     the students matching the search text
+     */
+    private StudentFilter(StudentData studentData, String searchText, List<Student> matches) {
+        this.studentData = studentData;
+        this.searchText = searchText;
+        this.matches.addAll(matches);
+    }
+
+    /**
+     * Creates the filter for a search text, refining the previous filter if the
+     * search text extends its search text.
+     *
+     * @param studentData the StudentData answering the search
+     * @param previous    the filter applied so far, or null
+     * @param searchText  the search text, not empty
+     * @return the filter
+     */
+    static StudentFilter create(StudentData studentData, StudentFilter previous, String searchText) {
+        String term = searchText.toLowerCase();
+        List<Student> matches;
+        if (previous != null && term.contains(previous.searchText)) {
+            matches = studentData.refineSearch(previous.matches, term);
+        } else {
+            matches = studentData.searchStudents(term);
+        }
+        return new StudentFilter(studentData, term, matches);
+    }
+
+    /**
+     * Marks the filter as applied to the filtered list. From then on, students
+     * not known to match are checked against the search text, as they have
+     * been added or replaced in the student list since.
+     */
+    void markApplied() {
+        applied = true;
+    }
+
+    /**
+     * Checks whether a student matches the search text.
+     *
+     * @param student the student to check
+     * @return true if the student matches, false otherwise
+     */
+    @Override
+    public boolean test(Student student) {
+        if (matches.contains(student)) {
+            return true;
+        }
+        if (applied && studentData.matchesSearch(student, searchText)) {
+            matches.add(student);
+            return true;
+        }
+        return false;
+    }
+}
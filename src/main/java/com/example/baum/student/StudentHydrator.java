@@ -0,0 +1,378 @@
+package com.example.baum.student;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import com.example.baum.DatabaseManager;
+import com.example.baum.company.Company;
+import com.example.baum.company.CompanyData;
+import com.example.baum.course.Course;
+import com.example.baum.course.CourseData;
+import com.example.baum.database.ChangeSet;
+import com.example.baum.database.ChangeTracker;
+import com.example.baum.database.QueryCancellation;
+import com.example.baum.database.RowMapper;
+import com.example.baum.database.StreamingQuery;
+import com.example.baum.index.IdentityMap;
+import com.example.baum.index.IntHashMap;
+import com.example.baum.room.Room;
+
+/**
+ * The StudentHydrator class loads students together with their course, the
+ * course's room and their company in a single JOIN query.
+ * Related entities are resolved through the identity maps of the session,
+ * which look up the loaded lists first. Entities not known yet, like courses
+ * and companies created by other clients, are built from the joined columns
+ * and mapped, so students never reference null, no related entity costs an
+ * extra lookup, and every query shares the same course, room and company
+ * instances.
+ */
+public class StudentHydrator {
+    private static final String FROM_CLAUSE = "FROM student s "
+            + "JOIN course c ON c.id = s.course_id "
+            + "JOIN room r ON r.id = c.room_id "
+            + "JOIN company co ON co.id = s.company_id";
+    private static final String SELECT_QUERY = "SELECT s.id, s.name, s.surname, s.javaskills, "
+            + "s.course_id, c.name AS course_name, c.room_id, r.name AS room_name, "
+            + "s.company_id, co.name AS company_name " + FROM_CLAUSE;
+
+    /**
+     * The approximate heap taken by a student and its strings.
+     */
+    private static final int ESTIMATED_STUDENT_BYTES = 160;
+
+    /**
+     * The maximum number of students loaded by ID in one query.
+     */
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    /**
+     * The time course rosters are served from the query cache, bounding how
+     * long enrollments by other clients may go unnoticed.
+     */
+    private static final long ROSTER_CACHE_TTL_MILLIS = 60_000;
+
+    private final DatabaseManager databaseManager;
+    private final CourseData courseData;
+    private final CompanyData companyData;
+    private final IdentityMap<Student> identityMap;
+
+    /**
+     * Constructs a new StudentHydrator.
+     *
+     * @param databaseManager The DatabaseManager used to connect to the database.
+     * @param courseData      The CourseData object providing loaded courses and
+     *                        rooms.
+     * @param companyData     The CompanyData object providing loaded companies.
+     */
+    public StudentHydrator(DatabaseManager databaseManager, CourseData courseData, CompanyData companyData) {
+        this.databaseManager = databaseManager;
+        this.courseData = courseData;
+        this.companyData = companyData;
+        this.identityMap = databaseManager.getIdentityMap(Student.class, Student::getId);
+    }
+
+    /**
+     * Loads all students.
+     *
+     * @return The loaded students.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    public List<Student> loadAll() throws SQLException {
+        try (Connection connection = databaseManager.getConnection();
+                PreparedStatement statement = connection.prepareStatement(SELECT_QUERY);
+                ResultSet resultSet = statement.executeQuery()) {
+            return hydrate(resultSet);
+        }
+    }
+
+    /**
+     * Loads the students enrolled in a course. Only the IDs of the students are
+     * queried, and cached in the query cache until the student table is
+     * written; they are resolved through the identity map of the students, and
+     * only students not mapped yet are loaded.
+     *
+     * @param courseId The ID of the course.
+     * @return The canonical instances of the students enrolled in the course.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    public List<Student> loadByCourse(int courseId) throws SQLException {
+        int[] ids = databaseManager.getQueryCache().load("student.course_id:" + courseId, ROSTER_CACHE_TTL_MILLIS,
+                () -> queryIdsByCourse(courseId), "student");
+        return resolve(ids);
+    }
+
+    /**
+     * Queries the IDs of the students enrolled in a course.
+     *
+     * @param courseId The ID of the course.
+     * @return The IDs of the students.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private int[] queryIdsByCourse(int courseId) throws SQLException {
+        int[] ids = new int[16];
+        int count = 0;
+        try (Connection connection = databaseManager.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT id FROM student WHERE course_id = ?")) {
+            statement.setInt(1, courseId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2);
+                    }
+                    ids[count++] = resultSet.getInt(1);
+                }
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Resolves student IDs to their canonical instances. Students not mapped yet
+     * are loaded in batches and added to the identity map; a connection is only
+     * borrowed if there are any.
+     *
+     * @param ids The IDs of the students.
+     * @return The students, in the order of the IDs; IDs of students deleted in
+     *         the meantime are skipped.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private List<Student> resolve(int[] ids) throws SQLException {
+        IntHashMap<Student> resolved = new IntHashMap<>(ids.length);
+        List<Integer> missing = new ArrayList<>();
+        for (int id : ids) {
+            Student student = identityMap.get(id);
+            if (student != null) {
+                resolved.put(id, student);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            try (Connection connection = databaseManager.getConnection()) {
+                load(connection, missing, resolved);
+            }
+        }
+
+        List<Student> students = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Student student = resolved.get(id);
+            if (student != null) {
+                students.add(student);
+            }
+        }
+        return students;
+    }
+
+    /**
+     * Loads students not mapped yet in batches and adds them to the identity
+     * map.
+     *
+     * @param connection The connection to load on.
+     * @param missing    The IDs of the students to load.
+     * @param resolved   The map the canonical instances are added to by ID.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private void load(Connection connection, List<Integer> missing, IntHashMap<Student> resolved)
+            throws SQLException {
+        for (int from = 0; from < missing.size(); from += LOAD_BATCH_SIZE) {
+            List<Integer> batch = missing.subList(from, Math.min(from + LOAD_BATCH_SIZE, missing.size()));
+            String loadQuery = SELECT_QUERY + " WHERE s.id IN ("
+                    + String.join(", ", Collections.nCopies(batch.size(), "?")) + ")";
+            try (PreparedStatement statement = connection.prepareStatement(loadQuery)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    statement.setInt(i + 1, batch.get(i));
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    for (Student student : hydrate(resultSet)) {
+                        resolved.put(student.getId(), identityMap.intern(student));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the students matching a condition in the specified order. The
+     * condition and order may refer to the aliases {@code s} (student),
+     * {@code c} (course), {@code r} (room) and {@code co} (company).
+     *
+     * @param condition  The SQL condition, or null to match all students.
+     * @param orderBy    The SQL order, or null for no particular order.
+     * @param limit      The maximum number of students to load.
+     * @param offset     The number of matching students to skip.
+     * @param parameters The parameters of the condition, in order.
+     * @return The loaded students.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    public List<Student> query(String condition, String orderBy, int limit, int offset, Object... parameters)
+            throws SQLException {
+        return query(null, condition, orderBy, limit, offset, parameters);
+    }
+
+    /**
+     * Loads the students matching a condition in the specified order with a
+     * query that can be cancelled. The condition and order may refer to the
+     * same aliases as {@link #query(String, String, int, int, Object...)}.
+     *
+     * @param cancellation The cancellation to register the query with, or null.
+     * @param condition    The SQL condition, or null to match all students.
+     * @param orderBy      The SQL order, or null for no particular order.
+     * @param limit        The maximum number of students to load.
+     * @param offset       The number of matching students to skip.
+     * @param parameters   The parameters of the condition, in order.
+     * @return The loaded students.
+     * @throws SQLException If an SQL exception occurs or the query is cancelled.
+     */
+    public List<Student> query(QueryCancellation cancellation, String condition, String orderBy, int limit,
+            int offset, Object... parameters) throws SQLException {
+        StringBuilder sql = new StringBuilder(SELECT_QUERY);
+        if (condition != null) {
+            sql.append(" WHERE ").append(condition);
+        }
+        if (orderBy != null) {
+            sql.append(" ORDER BY ").append(orderBy);
+        }
+        sql.append(" LIMIT ").append(limit);
+        if (offset > 0) {
+            sql.append(" OFFSET ").append(offset);
+        }
+        try (Connection connection = databaseManager.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            if (cancellation != null) {
+                cancellation.register(statement);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return hydrate(resultSet);
+            } finally {
+                if (cancellation != null) {
+                    cancellation.unregister(statement);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the students matching a condition.
+     *
+     * @param condition  The SQL condition, or null to count all students.
+     * @param parameters The parameters of the condition, in order.
+     * @return The number of matching students.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    public int count(String condition, Object... parameters) throws SQLException {
+        String sql = "SELECT COUNT(*) " + FROM_CLAUSE + (condition != null ? " WHERE " + condition : "");
+        try (Connection connection = databaseManager.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Loads the students changed or deleted since the last synchronization of
+     * the specified tracker.
+     *
+     * @param changeTracker The tracker of the student table.
+     * @return The changes.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    public ChangeSet<Student> fetchChanges(ChangeTracker changeTracker) throws SQLException {
+        try (Connection connection = databaseManager.getConnection()) {
+            return changeTracker.fetchChanges(connection, SELECT_QUERY + " WHERE s.updated_at >= ?", newRowMapper());
+        }
+    }
+
+    /**
+     * Streams all students in chunks without buffering the whole table. Returns
+     * once every chunk has been consumed.
+     *
+     * @param chunkSize        The number of students per chunk.
+     * @param memoryCeiling    The maximum memory in bytes that students waiting
+     *                         for the consumer may take.
+     * @param deliveryExecutor The executor the consumer runs on.
+     * @param chunkConsumer    The consumer of the chunks.
+     * @return The number of students streamed.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    public long streamAll(int chunkSize, long memoryCeiling, Executor deliveryExecutor,
+            Consumer<List<Student>> chunkConsumer) throws SQLException {
+        StreamingQuery<Student> query = new StreamingQuery<>(databaseManager, SELECT_QUERY, newRowMapper());
+        query.setChunkSize(chunkSize);
+        query.setMemoryCeiling(memoryCeiling);
+        query.setEstimatedRowBytes(ESTIMATED_STUDENT_BYTES);
+        return query.run(new Object[0], deliveryExecutor, chunkConsumer);
+    }
+
+    /**
+     * Builds the students of a result set produced by the JOIN query.
+     *
+     * @param resultSet The result set to read.
+     * @return The students, in result set order.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    private List<Student> hydrate(ResultSet resultSet) throws SQLException {
+        List<Student> students = new ArrayList<>();
+        RowMapper<Student> rowMapper = newRowMapper();
+        while (resultSet.next()) {
+            students.add(rowMapper.map(resultSet));
+        }
+        return students;
+    }
+
+    /**
+     * Creates a row mapper for the JOIN query. The mapper remembers the related
+     * entities it has resolved, so every student it maps shares the same course,
+     * room and company instances.
+     *
+     * @return A new row mapper.
+     */
+    private RowMapper<Student> newRowMapper() {
+        IntHashMap<Room> rooms = new IntHashMap<>();
+        IntHashMap<Course> courses = new IntHashMap<>();
+        IntHashMap<Company> companies = new IntHashMap<>();
+
+        return resultSet -> {
+            int courseId = resultSet.getInt("course_id");
+            Course course = courses.get(courseId);
+            if (course == null) {
+                int roomId = resultSet.getInt("room_id");
+                Room room = rooms.get(roomId);
+                if (room == null) {
+                    room = courseData.getRoomData().mapRoom(roomId, resultSet.getString("room_name"));
+                    rooms.put(roomId, room);
+                }
+                course = courseData.mapCourse(courseId, resultSet.getString("course_name"), room);
+                courses.put(courseId, course);
+            }
+
+            int companyId = resultSet.getInt("company_id");
+            Company company = companies.get(companyId);
+            if (company == null) {
+                company = companyData.mapCompany(companyId, resultSet.getString("company_name"));
+                companies.put(companyId, company);
+            }
+
+            Student student = new Student(resultSet.getString("name"), resultSet.getString("surname"),
+                    resultSet.getInt("javaskills"), course, company);
+            student.setId(resultSet.getInt("id"));
+            return student;
+        };
+    }
+}
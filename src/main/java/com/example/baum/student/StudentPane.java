@@ -1,14 +1,22 @@
 package com.example.baum.student;
 
+import com.example.baum.BusyIndicator;
+import com.example.baum.SearchPipeline;
+import com.example.baum.TableSorting;
+import com.example.baum.TypeaheadComboBox;
 import com.example.baum.company.Company;
 import com.example.baum.company.CompanyData;
 import com.example.baum.course.Course;
 import com.example.baum.course.CourseData;
+import com.example.baum.database.DatabaseExecutor;
+import com.example.baum.database.QueryCancellation;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
@@ -17,25 +25,39 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.DoubleConsumer;
 
 /**
  * The StudentPane class represents a custom JavaFX GridPane that displays and
  * manages student data.
  */
 public class StudentPane extends GridPane {
+    /** The number of students from which a bulk change shows its progress. */
+    private static final int BULK_PROGRESS_THRESHOLD = BulkStudentWriter.CHUNK_SIZE;
+
     private TableView<Student> studentTable;
+    private FilteredList<Student> filteredStudents;
+    private SortedList<Student> sortedStudents;
+    private StudentFilter studentFilter;
+    private SearchPipeline<ObservableList<Student>> phoneticSearch;
     private TextField nameField;
     private TextField surnameField;
     private TextField searchField;
+    private ComboBox<StudentSearchMode> searchModeComboBox;
     private Label errorLabel;
     private Slider javaSkillsSlider;
-    private ComboBox<Course> courseComboBox;
-    private ComboBox<Company> companyComboBox;
+    private TypeaheadComboBox<Course> courseComboBox;
+    private TypeaheadComboBox<Company> companyComboBox;
     private Button addEditButton;
     private Button removeButton;
     private Button deselectButton;
     private Button batchChangeButton;
+    private final BusyIndicator busyIndicator = new BusyIndicator();
     private final StudentData studentData;
     private final CourseData courseData;
     private final CompanyData companyData;
@@ -62,7 +84,13 @@ public class StudentPane extends GridPane {
         this.focusedProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue) {
                 requestFocus();
-                studentData.fetchStudentsFromDatabase();
+                busyIndicator.track(studentData.syncFromDatabase()).thenRun(() -> {
+                    // Switch the table over if the fetch changed between in-memory and paged mode
+                    boolean showingPaged = studentTable.getItems() == studentData.getPagedStudentList();
+                    if (studentData.isPagedMode() != showingPaged) {
+                        updateRoomTableView();
+                    }
+                });
             }
         });
     }
@@ -73,12 +101,17 @@ public class StudentPane extends GridPane {
     private void createAndLayoutComponents() {
         studentTable = createTableView();
         searchField = createTextField("Search Students, Courses or Companies...");
+        searchModeComboBox = new ComboBox<>(FXCollections.observableArrayList(StudentSearchMode.values()));
+        searchModeComboBox.setValue(StudentSearchMode.CONTAINS);
+        phoneticSearch = new SearchPipeline<>(
+                (searchText, cancellation) -> studentData.phoneticSearchStudentsAsync(searchText, cancellation),
+                this::showSearchResults, busyIndicator);
         nameField = createTextField("Name");
         surnameField = createTextField("Surname");
         javaSkillsSlider = createSlider();
         Label javaSkillsLabel = new Label("Java Skills");
-        courseComboBox = createComboBox(courseData.getCourseList(), "Select Course");
-        companyComboBox = createComboBox(companyData.getCompanyList(), "Select Company");
+        courseComboBox = new TypeaheadComboBox<>(courseData.getNamePrefixIndex(), "Select Course");
+        companyComboBox = new TypeaheadComboBox<>(companyData.getNamePrefixIndex(), "Select Company");
         errorLabel = new Label();
         addEditButton = new Button("Add Student");
         removeButton = new Button("Remove Student");
@@ -89,7 +122,9 @@ public class StudentPane extends GridPane {
         configureFormFields();
         configureButtons();
 
-        VBox vBox = createVBox(searchField, studentTable);
+        HBox searchBox = new HBox(10, searchField, searchModeComboBox, busyIndicator);
+        HBox.setHgrow(searchField, Priority.ALWAYS);
+        VBox vBox = createVBox(searchBox, studentTable);
         VBox formBox = createFormBox(nameField, surnameField, courseComboBox, companyComboBox, javaSkillsLabel,
                 javaSkillsSlider, addEditButton, batchChangeButton, removeButton, deselectButton, errorLabel);
 
@@ -104,10 +139,21 @@ public class StudentPane extends GridPane {
     }
 
     /**
-     * Updates the TableView with the latest room list.
+     * Updates the TableView with the latest student list, or with the paged
+     * student list if there are too many students to hold in memory.
      */
     private void updateRoomTableView() {
-        studentTable.setItems(studentData.getStudentList());
+        studentTable.setItems(currentStudentList());
+    }
+
+    /**
+     * Returns the list the student table shows.
+     *
+     * @return The paged student list in paged mode, the filtered and sorted
+     *         student list otherwise.
+     */
+    private ObservableList<Student> currentStudentList() {
+        return studentData.isPagedMode() ? studentData.getPagedStudentList() : sortedStudents;
     }
 
     /**
@@ -117,12 +163,47 @@ public class StudentPane extends GridPane {
      */
     private TableView<Student> createTableView() {
         TableView<Student> tableView = new TableView<>();
-        tableView.setItems(studentData.getStudentList());
+        filteredStudents = new FilteredList<>(studentData.getStudentList());
+        sortedStudents = new SortedList<>(filteredStudents);
+        TableSorting.bind(sortedStudents, tableView);
+        tableView.setItems(currentStudentList());
         tableView.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
         tableView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        tableView.setSortPolicy(this::sortStudents);
         return tableView;
     }
 
+    /**
+     * Sorts the student table. In paged mode the sort is pushed down to the
+     * database, which only sorts by indexed columns; other columns are refused.
+     * The filtered student list is sorted by its bound comparator, search
+     * results by their collation keys.
+     *
+     * @param tableView The student table.
+     * @return true if the table was sorted, false otherwise.
+     */
+    private boolean sortStudents(TableView<Student> tableView) {
+        if (tableView.getItems() == sortedStudents) {
+            return true;
+        }
+        if (tableView.getItems() != studentData.getPagedStudentList()) {
+            return TableSorting.sort(tableView);
+        }
+        PagedStudentList pagedStudentList = studentData.getPagedStudentList();
+        if (tableView.getSortOrder().isEmpty()) {
+            busyIndicator.track(pagedStudentList.setSort(null, true));
+            return true;
+        }
+        TableColumn<Student, ?> column = tableView.getSortOrder().get(0);
+        String property = column.getId();
+        if (!PagedStudentList.isSortable(property)) {
+            return false;
+        }
+        busyIndicator.track(pagedStudentList.setSort(property,
+                column.getSortType() == TableColumn.SortType.ASCENDING));
+        return true;
+    }
+
     /**
      * Creates a TextField object with the specified prompt text.
      *
@@ -150,20 +231,11 @@ public class StudentPane extends GridPane {
         return slider;
     }
 
-    private <T> ComboBox<T> createComboBox(ObservableList<T> items, String promptText) {
-        ComboBox<T> comboBox = new ComboBox<>(items);
-        comboBox.setMaxWidth(Double.MAX_VALUE);
-        comboBox.setPromptText(promptText);
-        return comboBox;
-    }
-
     /**
-     * Creates a ComboBox object with the specified items and prompt text.
+     * Creates a VBox container with the specified nodes.
      *
-     * @param items      The list of items to be displayed in the ComboBox.
-     * @param promptText The text to be displayed as a prompt in the ComboBox.
-     * @param <T>        The type of items in the ComboBox.
-     * @return The configured ComboBox object.
+     * @param nodes The nodes to be added to the VBox.
+     * @return The configured VBox container.
      */
     private VBox createVBox(Node... nodes) {
         VBox vBox = new VBox(10, nodes);
@@ -199,6 +271,12 @@ public class StudentPane extends GridPane {
         TableColumn<Student, Integer> javaSkillsColumn = createColumn("Java Skills", "javaSkills");
         TableColumn<Student, Course> courseColumn = createColumn("Course", "course");
         TableColumn<Student, Company> companyColumn = createColumn("Company", "company");
+        TableSorting.sortByCollationKey(nameColumn, Student::getNameKey);
+        TableSorting.sortByCollationKey(surnameColumn, Student::getSurnameKey);
+        TableSorting.sortByCollationKey(courseColumn,
+                student -> student.getCourse() != null ? student.getCourse().getNameKey() : null);
+        TableSorting.sortByCollationKey(companyColumn,
+                student -> student.getCompany() != null ? student.getCompany().getNameKey() : null);
 
         javaSkillsColumn.setCellFactory(column -> new TableCell<Student, Integer>() {
             private final ProgressBar progressBar = new ProgressBar();
@@ -245,6 +323,7 @@ public class StudentPane extends GridPane {
      */
     private <T> TableColumn<Student, T> createColumn(String title, String property) {
         TableColumn<Student, T> column = new TableColumn<>(title);
+        column.setId(property);
         column.setCellValueFactory(new PropertyValueFactory<>(property));
         return column;
     }
@@ -349,15 +428,15 @@ public class StudentPane extends GridPane {
                         if (doNotShowAgainCheckbox.isSelected()) {
                             doNotShowAgain = true;
                         }
-                        studentData.removeStudents(selectedStudents);
+                        removeStudents(selectedStudents);
                         clearForm();
                     }
                 } else {
-                    studentData.removeStudents(selectedStudents);
+                    removeStudents(selectedStudents);
                     clearForm();
                 }
             } else if (selectedStudents.size() == 1) {
-                studentData.removeStudent(selectedStudents.get(0));
+                busyIndicator.track(studentData.removeStudentAsync(selectedStudents.get(0)));
                 clearForm();
             }
             updateRoomTableView();
@@ -416,6 +495,10 @@ public class StudentPane extends GridPane {
         searchField.textProperty().addListener((observable, oldText, newText) -> {
             searchStudents(newText);
         });
+        searchModeComboBox.valueProperty().addListener((observable, oldMode, newMode) -> {
+            studentFilter = null;
+            searchStudents(searchField.getText());
+        });
 
         addEditButton.setOnAction(event -> {
             if (selectedStudent.get() == null) {
@@ -449,15 +532,15 @@ public class StudentPane extends GridPane {
                         if (doNotShowAgainCheckbox.isSelected()) {
                             doNotShowAgain = true;
                         }
-                        studentData.removeStudents(selectedStudents);
+                        removeStudents(selectedStudents);
                         clearForm();
                     }
                 } else {
-                    studentData.removeStudents(selectedStudents);
+                    removeStudents(selectedStudents);
                     clearForm();
                 }
             } else if (selectedStudents.size() == 1) {
-                studentData.removeStudent(selectedStudents.get(0));
+                busyIndicator.track(studentData.removeStudentAsync(selectedStudents.get(0)));
                 clearForm();
             }
             updateRoomTableView();
@@ -501,7 +584,8 @@ public class StudentPane extends GridPane {
             Course course = courseComboBox.getValue();
             Company company = companyComboBox.getValue();
 
-            studentData.addStudent(name, surname, javaSkills, course.getId(), company.getId());
+            busyIndicator.track(studentData.addStudentAsync(name, surname, javaSkills, course.getId(),
+                    company.getId()));
             clearForm();
             deselect();
         }
@@ -523,14 +607,11 @@ public class StudentPane extends GridPane {
             Course newCourse = courseComboBox.getValue();
             Company newCompany = companyComboBox.getValue();
 
-            student.setName(newName);
-            student.setSurname(newSurname);
-            student.setJavaSkills(newJavaSkills);
-            student.setCourse(newCourse);
-            student.setCompany(newCompany);
+            // The student itself changes once the update is committed
+            Student details = new Student(newName, newSurname, newJavaSkills, newCourse, newCompany);
 
-            studentData.updateStudent(student);
-            studentTable.refresh();
+            busyIndicator.track(studentData.updateStudentAsync(student, details))
+                    .thenRun(studentTable::refresh);
             clearForm();
             deselect();
             studentTable.getSelectionModel().clearSelection();
@@ -593,25 +674,51 @@ public class StudentPane extends GridPane {
     }
 
     /**
-     * Searches for students based on the given search text and updates the
-     * TableView with the filtered results.
+     * Searches for students based on the given search text and filters the
+     * TableView by the results. The table keeps its items list, so its sort
+     * order and selection survive the search.
      *
      * @param searchText the text to search for
      */
     private void searchStudents(String searchText) {
-        String searchTerm = searchText.toLowerCase();
-        ObservableList<Student> filteredList = FXCollections.observableArrayList();
-
-        for (Student student : studentData.getStudentList()) {
-            if (student.getName().toLowerCase().contains(searchTerm)
-                    || student.getSurname().toLowerCase().contains(searchTerm)
-                    || student.getCourse().getName().toLowerCase().contains(searchTerm)
-                    || student.getCompany().getName().toLowerCase().contains(searchTerm)) {
-                filteredList.add(student);
-            }
+        phoneticSearch.cancel();
+        if (searchModeComboBox.getValue() == StudentSearchMode.PHONETIC && !searchText.isBlank()) {
+            studentFilter = null;
+            phoneticSearch.submit(searchText);
+            return;
         }
+        if (studentData.isPagedMode()) {
+            studentTable.setItems(studentData.getPagedStudentList());
+            busyIndicator.track(studentData.getPagedStudentList().setFilter(searchText));
+            return;
+        }
+        if (searchModeComboBox.getValue() == StudentSearchMode.FUZZY && !searchText.isBlank()) {
+            studentFilter = null;
+            showSearchResults(FXCollections.observableArrayList(studentData.fuzzySearchStudents(searchText)));
+            return;
+        }
+        if (searchText.isEmpty()) {
+            studentFilter = null;
+            filteredStudents.setPredicate(null);
+        } else {
+            studentFilter = StudentFilter.create(studentData, studentFilter, searchText);
+            filteredStudents.setPredicate(studentFilter);
+            studentFilter.markApplied();
+        }
+        if (studentTable.getItems() != sortedStudents) {
+            studentTable.setItems(sortedStudents);
+        }
+    }
 
-        studentTable.setItems(filteredList);
+    /**
+     * Shows ranked search results in the TableView in their own order, best
+     * match first.
+     *
+     * @param results the search results
+     */
+    private void showSearchResults(ObservableList<Student> results) {
+        studentTable.getSortOrder().clear();
+        studentTable.setItems(results);
     }
 
     /**
@@ -663,8 +770,10 @@ public class StudentPane extends GridPane {
             grid.setVgap(10);
             grid.setPadding(new Insets(10));
 
-            ComboBox<Course> newCourseComboBox = createComboBox(courseData.getCourseList(), "Select New Course");
-            ComboBox<Company> newCompanyComboBox = createComboBox(companyData.getCompanyList(), "Select New Company");
+            ComboBox<Course> newCourseComboBox =
+                    new TypeaheadComboBox<>(courseData.getNamePrefixIndex(), "Select New Course");
+            ComboBox<Company> newCompanyComboBox =
+                    new TypeaheadComboBox<>(companyData.getNamePrefixIndex(), "Select New Company");
 
             grid.add(new Label("New Course:"), 0, 0);
             grid.add(newCourseComboBox, 1, 0);
@@ -693,22 +802,61 @@ public class StudentPane extends GridPane {
 
             Optional<BatchChangeResult> result = dialog.showAndWait();
             result.ifPresent(batchChangeResult -> {
-                for (Student student : selectedStudents) {
-                    if (batchChangeResult.newCourse != null) {
-                        student.setCourse(batchChangeResult.newCourse);
-                    }
-                    if (batchChangeResult.newCompany != null) {
-                        student.setCompany(batchChangeResult.newCompany);
-                    }
-                    // Update the student in the database
-                    studentData.updateStudent(student);
-                }
-                studentTable.refresh();
+                // Update the students in the database, a chunk at a time
+                List<Student> students = new ArrayList<>(selectedStudents);
+                runBulkChange("Reassigning", students.size(),
+                        (progress, cancellation) -> studentData.reassignStudentsAsync(students,
+                                batchChangeResult.newCourse, batchChangeResult.newCompany, progress, cancellation))
+                        .thenRun(studentTable::refresh);
                 deselect();
             });
         }
     }
 
+    /**
+     * Removes the selected students in the background, a chunk at a time.
+     *
+     * @param selectedStudents The students to remove.
+     */
+    private void removeStudents(List<Student> selectedStudents) {
+        List<Student> students = new ArrayList<>(selectedStudents);
+        runBulkChange("Removing", students.size(),
+                (progress, cancellation) -> studentData.removeStudentsAsync(students, progress, cancellation));
+    }
+
+    /**
+     * Runs a change of many students in the background. Large changes show
+     * their progress in a dialog, which cancels the change when it is closed
+     * early; the students changed until then stay changed.
+     *
+     * @param action The action shown in the dialog, like "Removing".
+     * @param count  The number of students changed.
+     * @param change Starts the change with a progress callback and a
+     *               cancellation.
+     * @return A future completed with the number of students changed.
+     */
+    private CompletableFuture<Integer> runBulkChange(String action, int count,
+            BiFunction<DoubleConsumer, QueryCancellation, CompletableFuture<Integer>> change) {
+        QueryCancellation cancellation = new QueryCancellation(0);
+        if (count < BULK_PROGRESS_THRESHOLD) {
+            return busyIndicator.track(change.apply(null, cancellation));
+        }
+
+        ProgressBar progressBar = new ProgressBar(0);
+        progressBar.setPrefWidth(300);
+        Alert dialog = new Alert(Alert.AlertType.NONE);
+        dialog.setTitle("Batch Change");
+        dialog.setHeaderText(action + " " + count + " students...");
+        dialog.getDialogPane().setContent(progressBar);
+        dialog.getButtonTypes().setAll(ButtonType.CANCEL);
+        dialog.setOnHidden(event -> cancellation.cancel());
+
+        CompletableFuture<Integer> task = change.apply(progressBar::setProgress, cancellation);
+        dialog.show();
+        task.whenComplete((changed, error) -> DatabaseExecutor.runOnFxThread(dialog::close));
+        return busyIndicator.track(task);
+    }
+
     /**
      * Helper class to store the result of a batch change operation.
      * It encapsulates the new course and new company selected for the batch change.
@@ -729,9 +877,14 @@ public class StudentPane extends GridPane {
             this.newCompany = newCompany;
         }
     }
+    /**
+     * Brings the students up to date with the database in the background and
+     * shows the full student list once they are. Only changed students are
+     * fetched.
+     */
     public void reloadData() {
-        studentData.fetchStudentsFromDatabase();
-        updateRoomTableView();
+        busyIndicator.track(studentData.syncFromDatabase())
+                .thenRun(this::updateRoomTableView);
     }
 
 }
@@ -0,0 +1,324 @@
+package com.example.baum.student;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import com.example.baum.company.Company;
+import com.example.baum.course.Course;
+import com.example.baum.database.FullTextSearch;
+
+/**
+ * A query for students by several criteria: a range of Java skills, a set of
+ * courses, a set of companies and a prefix of the name or surname. A student
+ * must meet every criterion set. Queries are created with a {@link Builder}
+ * and are immutable.
+ * <p>
+ * A query compiles to a parameterized SQL condition served by the indexes on
+ * the student table, and to a predicate for the student list. Both match the
+ * same students and order them by surname, name and ID, so it hardly matters
+ * which one {@link StudentData#queryStudentsAsync(StudentQuery)} chooses; only
+ * the collation of the names may differ slightly between the database and the
+ * application.
+ */
+public final class StudentQuery {
+    /** The maximum number of students a query returns unless set otherwise. */
+    public static final int DEFAULT_LIMIT = 10_000;
+
+    /** The order of the results, matching the SQL order. */
+    static final Comparator<Student> ORDER = Comparator.comparing(Student::getSurnameKey)
+            .thenComparing(Student::getNameKey)
+            .thenComparingInt(Student::getId);
+
+    private static final int MIN_JAVA_SKILLS = 0;
+    private static final int MAX_JAVA_SKILLS = 100;
+
+    private final int minJavaSkills;
+    private final int maxJavaSkills;
+    private final Set<Integer> courseIds;
+    private final Set<Integer> companyIds;
+    private final String namePrefix;
+    private final int limit;
+
+    /**
+     * Constructs a new StudentQuery from a builder.
+     *
+     * @param builder the builder
+     */
+    private StudentQuery(Builder builder) {
+        this.minJavaSkills = builder.minJavaSkills;
+        this.maxJavaSkills = builder.maxJavaSkills;
+        this.courseIds = builder.courseIds == null ? null : Set.copyOf(builder.courseIds);
+        this.companyIds = builder.companyIds == null ? null : Set.copyOf(builder.companyIds);
+        this.namePrefix = builder.namePrefix;
+        this.limit = builder.limit;
+    }
+
+    /**
+     * Creates a builder for a query matching all students.
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the maximum number of students the query returns.
+     *
+     * @return the limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Checks whether the query restricts the Java skills.
+     *
+     * @return true if the range excludes some skill levels, false otherwise
+     */
+    boolean hasJavaSkillsRange() {
+        return minJavaSkills > MIN_JAVA_SKILLS || maxJavaSkills < MAX_JAVA_SKILLS;
+    }
+
+    /**
+     * Returns the share of all skill levels within the Java skills range.
+     *
+     * @return the share, between 0 and 1
+     */
+    double javaSkillsShare() {
+        int levels = Math.min(maxJavaSkills, MAX_JAVA_SKILLS) - Math.max(minJavaSkills, MIN_JAVA_SKILLS) + 1;
+        levels = Math.max(0, levels);
+        return (double) levels / (MAX_JAVA_SKILLS - MIN_JAVA_SKILLS + 1);
+    }
+
+    /**
+     * Returns the IDs of the courses the students must be enrolled in.
+     *
+     * @return the IDs, or null if any course matches
+     */
+    Set<Integer> getCourseIds() {
+        return courseIds;
+    }
+
+    /**
+     * Returns the IDs of the companies the students must be associated with.
+     *
+     * @return the IDs, or null if any company matches
+     */
+    Set<Integer> getCompanyIds() {
+        return companyIds;
+    }
+
+    /**
+     * Returns the prefix the name or the surname must start with.
+     *
+     * @return the prefix, or null if any name matches
+     */
+    String getNamePrefix() {
+        return namePrefix;
+    }
+
+    /**
+     * Compiles the query to an SQL condition on the aliases of
+     * {@link StudentHydrator#query}. Every criterion is a range, IN list or
+     * prefix match on an indexed column.
+     *
+     * @param parameters the list the parameters of the condition are added to
+     * @return the condition, or null if the query matches all students
+     */
+    String toSqlCondition(List<Object> parameters) {
+        List<String> conditions = new ArrayList<>();
+        if (hasJavaSkillsRange()) {
+            conditions.add("s.javaskills BETWEEN ? AND ?");
+            parameters.add(minJavaSkills);
+            parameters.add(maxJavaSkills);
+        }
+        if (courseIds != null) {
+            conditions.add(inList("s.course_id", courseIds, parameters));
+        }
+        if (companyIds != null) {
+            conditions.add(inList("s.company_id", companyIds, parameters));
+        }
+        if (namePrefix != null) {
+            conditions.add("(s.name LIKE ? OR s.surname LIKE ?)");
+            String pattern = FullTextSearch.toPrefixPattern(namePrefix);
+            parameters.add(pattern);
+            parameters.add(pattern);
+        }
+        return conditions.isEmpty() ? null : String.join(" AND ", conditions);
+    }
+
+    /**
+     * Returns the SQL order of the results.
+     *
+     * @return the order
+     */
+    String toSqlOrder() {
+        return "s.surname, s.name, s.id";
+    }
+
+    /**
+     * Compiles the query to a predicate. Only the criteria set are checked,
+     * the cheap comparisons first, so most students are rejected before the
+     * names are compared.
+     *
+     * @return the predicate
+     */
+    Predicate<Student> toPredicate() {
+        Predicate<Student> predicate = student -> true;
+        if (hasJavaSkillsRange()) {
+            int min = minJavaSkills;
+            int max = maxJavaSkills;
+            predicate = predicate.and(student -> student.getJavaSkills() >= min && student.getJavaSkills() <= max);
+        }
+        if (courseIds != null) {
+            Set<Integer> ids = courseIds;
+            predicate = predicate.and(student -> student.getCourse() != null
+                    && ids.contains(student.getCourse().getId()));
+        }
+        if (companyIds != null) {
+            Set<Integer> ids = companyIds;
+            predicate = predicate.and(student -> student.getCompany() != null
+                    && ids.contains(student.getCompany().getId()));
+        }
+        if (namePrefix != null) {
+            String prefix = namePrefix;
+            predicate = predicate.and(student -> startsWithIgnoreCase(student.getName(), prefix)
+                    || startsWithIgnoreCase(student.getSurname(), prefix));
+        }
+        return predicate;
+    }
+
+    /**
+     * Builds an IN list over the specified IDs.
+     *
+     * @param column     the column
+     * @param ids        the IDs
+     * @param parameters the list the IDs are added to
+     * @return the condition
+     */
+    private static String inList(String column, Set<Integer> ids, List<Object> parameters) {
+        if (ids.isEmpty()) {
+            return "FALSE";
+        }
+        parameters.addAll(ids);
+        return column + " IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+    }
+
+    /**
+     * Checks whether a text starts with a prefix, ignoring case.
+     *
+     * @param text   the text, may be null
+     * @param prefix the prefix
+     * @return true if the text starts with the prefix, false otherwise
+     */
+    private static boolean startsWithIgnoreCase(String text, String prefix) {
+        return text != null && text.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    /**
+     * Builds a {@link StudentQuery}. Criteria not set match every student.
+     */
+    public static final class Builder {
+        private int minJavaSkills = MIN_JAVA_SKILLS;
+        private int maxJavaSkills = MAX_JAVA_SKILLS;
+        private Set<Integer> courseIds;
+        private Set<Integer> companyIds;
+        private String namePrefix;
+        private int limit = DEFAULT_LIMIT;
+
+        /**
+         * Constructs a new Builder.
+         */
+        private Builder() {
+        }
+
+        /**
+         * Restricts the Java skills of the students to a range.
+         *
+         * @param min the lowest Java skills level, inclusive
+         * @param max the highest Java skills level, inclusive
+         * @return this builder
+         */
+        public Builder javaSkillsBetween(int min, int max) {
+            if (min > max) {
+                throw new IllegalArgumentException("Empty Java skills range: " + min + " to " + max);
+            }
+            this.minJavaSkills = min;
+            this.maxJavaSkills = max;
+            return this;
+        }
+
+        /**
+         * Restricts the students to those enrolled in one of the specified
+         * courses.
+         *
+         * @param courses the courses
+         * @return this builder
+         */
+        public Builder inCourses(Collection<Course> courses) {
+            courseIds = new LinkedHashSet<>();
+            for (Course course : courses) {
+                courseIds.add(course.getId());
+            }
+            return this;
+        }
+
+        /**
+         * Restricts the students to those associated with one of the
+         * specified companies.
+         *
+         * @param companies the companies
+         * @return this builder
+         */
+        public Builder atCompanies(Collection<Company> companies) {
+            companyIds = new LinkedHashSet<>();
+            for (Company company : companies) {
+                companyIds.add(company.getId());
+            }
+            return this;
+        }
+
+        /**
+         * Restricts the students to those whose name or surname starts with a
+         * prefix, ignoring case.
+         *
+         * @param prefix the prefix; blank for any name
+         * @return this builder
+         */
+        public Builder namePrefix(String prefix) {
+            this.namePrefix = prefix == null || prefix.isBlank() ? null : prefix.strip().toLowerCase(Locale.ROOT);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of students the query returns.
+         *
+         * @param limit the limit
+         * @return this builder
+         */
+        public Builder limit(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Negative limit: " + limit);
+            }
+            this.limit = limit;
+            return this;
+        }
+
+        /**
+         * Builds the query.
+         *
+         * @return the query
+         */
+        public StudentQuery build() {
+            return new StudentQuery(this);
+        }
+    }
+}
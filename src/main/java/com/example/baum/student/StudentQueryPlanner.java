@@ -0,0 +1,94 @@
+package com.example.baum.student;
+
+/**
+ * Chooses how a {@link StudentQuery} is answered: by filtering the student
+ * list in memory, or by a query to the database.
+ * <p>
+ * Filtering the list checks every listed student, but each check takes
+ * nanoseconds. The database only reads the matching rows through its indexes,
+ * but every query pays for the round trip, and every matching row for its
+ * transfer and hydration. The planner estimates the matching rows from the
+ * selectivity of the criteria and picks the cheaper path. Without a complete
+ * student list, as in paged mode, the database is always used.
+ */
+class StudentQueryPlanner {
+    /** The estimated cost of checking one listed student, in nanoseconds. */
+    private static final double MEMORY_CHECK_NANOS = 15;
+
+    /** The estimated cost of a database round trip, in nanoseconds. */
+    private static final double ROUND_TRIP_NANOS = 2_000_000;
+
+    /** The estimated cost of transferring and hydrating one row, in nanoseconds. */
+    private static final double ROW_NANOS = 3_000;
+
+    /** The estimated share of names starting with one given letter. */
+    private static final double FIRST_LETTER_SHARE = 1.0 / 20;
+
+    /** The estimated share of names with a given letter after a given start. */
+    private static final double NEXT_LETTER_SHARE = 1.0 / 8;
+
+    /**
+     * The ways to answer a query.
+     */
+    enum Plan {
+        MEMORY,
+        DATABASE
+    }
+
+    /**
+     * Chooses the plan for a query.
+     *
+     * @param query        the query
+     * @param listComplete whether the student list holds every student
+     * @param listSize     the number of listed students
+     * @param courseCount  the number of courses
+     * @param companyCount the number of companies
+     * @return the cheaper plan
+     */
+    Plan choose(StudentQuery query, boolean listComplete, int listSize, int courseCount, int companyCount) {
+        if (!listComplete) {
+            return Plan.DATABASE;
+        }
+        double memoryCost = listSize * MEMORY_CHECK_NANOS;
+        double estimatedRows = Math.min(query.getLimit(),
+                listSize * estimateSelectivity(query, courseCount, companyCount));
+        double databaseCost = ROUND_TRIP_NANOS + estimatedRows * ROW_NANOS;
+        return memoryCost <= databaseCost ? Plan.MEMORY : Plan.DATABASE;
+    }
+
+    /**
+     * Estimates the share of the students matching a query, assuming the
+     * criteria are independent and the students spread evenly.
+     *
+     * @param query        the query
+     * @param courseCount  the number of courses
+     * @param companyCount the number of companies
+     * @return the estimated share, between 0 and 1
+     */
+    private double estimateSelectivity(StudentQuery query, int courseCount, int companyCount) {
+        double selectivity = query.javaSkillsShare();
+        if (query.getCourseIds() != null) {
+            selectivity *= share(query.getCourseIds().size(), courseCount);
+        }
+        if (query.getCompanyIds() != null) {
+            selectivity *= share(query.getCompanyIds().size(), companyCount);
+        }
+        if (query.getNamePrefix() != null) {
+            int length = query.getNamePrefix().length();
+            // The prefix may match the name or the surname
+            selectivity *= Math.min(1, 2 * FIRST_LETTER_SHARE * Math.pow(NEXT_LETTER_SHARE, length - 1));
+        }
+        return selectivity;
+    }
+
+    /**
+     * Returns the share of a number of values among all values.
+     *
+     * @param selected the number of selected values
+     * @param total    the number of values
+     * @return the share, between 0 and 1
+     */
+    private static double share(int selected, int total) {
+        return total <= 0 ? 1 : Math.min(1, (double) selected / total);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.baum.student;
+
+/**
+ * The ways the student search box matches students.
+ */
+public enum StudentSearchMode {
+    /**
+     * Matches students whose name, surname, course or company contains the
+     * search text.
+     */
+    CONTAINS("Contains"),
+
+    /**
+     * Matches the students whose name or surname is spelled most like the
+     * search text, best first, tolerating typos.
+     */
+    FUZZY("Similar Names"),
+
+    /**
+     * Matches the students whose name or surname sounds like the search text,
+     * looked up by their phonetic codes in the database.
+     */
+    PHONETIC("Sounds Like");
+
+    private final String label;
+
+    /**
+     * Constructs a search mode with the specified label.
+     *
+     * @param label the label shown in the search mode selection
+     */
+    StudentSearchMode(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Returns the label shown in the search mode selection.
+     *
+     * @return the label
+     */
+    @Override
+    public String toString() {
+        return label;
+    }
+}
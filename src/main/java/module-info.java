@@ -1,5 +1,5 @@
 module com.example.baum {
-    requires javafx.controls;
+    requires transitive javafx.controls;
     requires javafx.fxml;
     requires transitive javafx.base;
     requires transitive javafx.graphics;
@@ -14,6 +14,8 @@ module com.example.baum {
     opens com.example.baum.course to javafx.base;
 
     exports com.example.baum;
+    exports com.example.baum.database;
+    exports com.example.baum.index;
     exports com.example.baum.room;
     exports com.example.baum.company;
     exports com.example.baum.student;
@@ -0,0 +1,5 @@
+-- Indexes backing the sort orders of the paged student table.
+-- The id tie-breaker makes the keyset conditions exact.
+CREATE INDEX `idx_student_name` ON `student` (`name`, `id`);
+CREATE INDEX `idx_student_surname` ON `student` (`surname`, `id`);
+CREATE INDEX `idx_student_javaskills` ON `student` (`javaskills`, `id`);
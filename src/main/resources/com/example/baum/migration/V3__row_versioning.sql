@@ -0,0 +1,37 @@
+-- Row versioning for incremental synchronization: every row records when it
+-- last changed, and every deleted row leaves a tombstone.
+ALTER TABLE `room`
+  ADD COLUMN `updated_at` TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+  ADD INDEX `idx_room_updated_at` (`updated_at`);
+
+ALTER TABLE `course`
+  ADD COLUMN `updated_at` TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+  ADD INDEX `idx_course_updated_at` (`updated_at`);
+
+ALTER TABLE `company`
+  ADD COLUMN `updated_at` TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+  ADD INDEX `idx_company_updated_at` (`updated_at`);
+
+ALTER TABLE `student`
+  ADD COLUMN `updated_at` TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+  ADD INDEX `idx_student_updated_at` (`updated_at`);
+
+CREATE TABLE IF NOT EXISTS `deleted_row` (
+  `table_name` VARCHAR(64) NOT NULL,
+  `row_id` INT NOT NULL,
+  `deleted_at` TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+  INDEX `idx_deleted_row_table_deleted_at` (`table_name`, `deleted_at`)
+)
+ENGINE = InnoDB;
+
+CREATE TRIGGER `trg_room_deleted` AFTER DELETE ON `room`
+  FOR EACH ROW INSERT INTO `deleted_row` (`table_name`, `row_id`) VALUES ('room', OLD.id);
+
+CREATE TRIGGER `trg_course_deleted` AFTER DELETE ON `course`
+  FOR EACH ROW INSERT INTO `deleted_row` (`table_name`, `row_id`) VALUES ('course', OLD.id);
+
+CREATE TRIGGER `trg_company_deleted` AFTER DELETE ON `company`
+  FOR EACH ROW INSERT INTO `deleted_row` (`table_name`, `row_id`) VALUES ('company', OLD.id);
+
+CREATE TRIGGER `trg_student_deleted` AFTER DELETE ON `student`
+  FOR EACH ROW INSERT INTO `deleted_row` (`table_name`, `row_id`) VALUES ('student', OLD.id);
@@ -0,0 +1,13 @@
+-- Name search: ngram FULLTEXT indexes for ranked infix matching, and plain
+-- indexes serving the prefix fallback.
+ALTER TABLE `room`
+  ADD FULLTEXT INDEX `ft_room_name` (`name`) WITH PARSER ngram,
+  ADD INDEX `idx_room_name` (`name`);
+
+ALTER TABLE `course`
+  ADD FULLTEXT INDEX `ft_course_name` (`name`) WITH PARSER ngram,
+  ADD INDEX `idx_course_name` (`name`);
+
+ALTER TABLE `company`
+  ADD FULLTEXT INDEX `ft_company_name` (`name`) WITH PARSER ngram,
+  ADD INDEX `idx_company_name` (`name`);
@@ -0,0 +1,8 @@
+-- Cologne phonetic codes of the student names, for the phonetic search.
+-- The codes are computed by the application, which also backfills the codes of
+-- the rows that existed before this migration.
+ALTER TABLE `student`
+  ADD COLUMN `name_phonetic` VARCHAR(255) NULL,
+  ADD COLUMN `surname_phonetic` VARCHAR(255) NULL,
+  ADD INDEX `idx_student_name_phonetic` (`name_phonetic`),
+  ADD INDEX `idx_student_surname_phonetic` (`surname_phonetic`);
@@ -0,0 +1,6 @@
+-- Composite indexes for the student queries combining a course or company set
+-- with a Java skills range: the IN list selects index ranges on the first
+-- column, and the skills range is resolved within each of them.
+ALTER TABLE `student`
+  ADD INDEX `idx_student_course_javaskills` (`course_id`, `javaskills`),
+  ADD INDEX `idx_student_company_javaskills` (`Company_id`, `javaskills`);
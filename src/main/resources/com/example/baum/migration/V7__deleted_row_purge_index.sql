@@ -0,0 +1,4 @@
+-- Index for purging expired tombstones of all tables at once, which the
+-- (table_name, deleted_at) index cannot serve.
+ALTER TABLE `deleted_row`
+  ADD INDEX `idx_deleted_row_deleted_at` (`deleted_at`);
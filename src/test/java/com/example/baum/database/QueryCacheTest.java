@@ -0,0 +1,146 @@
+package com.example.baum.database;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class QueryCacheTest {
+    private static final long TTL_MILLIS = 60_000;
+
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    /**
+     * Returns a loader counting its calls.
+     *
+     * @param ids the IDs to load
+     * @return the loader
+     */
+    private QueryCache.Loader loader(int... ids) {
+        return () -> {
+            loadCount.incrementAndGet();
+            return ids;
+        };
+    }
+
+    @Test
+    void servesRepeatedQueriesFromTheCache() throws SQLException {
+        QueryCache cache = new QueryCache(10, 1_000_000);
+
+        int[] first = cache.load("q", TTL_MILLIS, loader(1, 2, 3), "student");
+        int[] second = cache.load("q", TTL_MILLIS, loader(4), "student");
+
+        assertArrayEquals(new int[] { 1, 2, 3 }, first);
+        assertSame(first, second);
+        assertEquals(1, loadCount.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRatio());
+    }
+
+    @Test
+    void reloadsExpiredEntries() throws SQLException {
+        QueryCache cache = new QueryCache(10, 1_000_000);
+
+        cache.load("q", 0, loader(1), "student");
+        int[] reloaded = cache.load("q", 0, loader(2), "student");
+
+        assertArrayEquals(new int[] { 2 }, reloaded);
+        assertEquals(2, loadCount.get());
+        assertEquals(1, cache.getExpirations());
+    }
+
+    @Test
+    void invalidatesOnlyEntriesReadingTheWrittenTable() throws SQLException {
+        QueryCache cache = new QueryCache(10, 1_000_000);
+        cache.load("students", TTL_MILLIS, loader(1), "student", "course");
+        cache.load("rooms", TTL_MILLIS, loader(2), "room");
+
+        cache.invalidate("course");
+
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getInvalidations());
+        cache.load("rooms", TTL_MILLIS, loader(3), "room");
+        cache.load("students", TTL_MILLIS, loader(4), "student", "course");
+        assertEquals(3, loadCount.get());
+    }
+
+    @Test
+    void doesNotCacheALoadOverlappingAWrite() throws SQLException {
+        QueryCache cache = new QueryCache(10, 1_000_000);
+
+        cache.load("q", TTL_MILLIS, () -> {
+            cache.invalidate("student");
+            return new int[] { 1 };
+        }, "student");
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void cachesALoadOverlappingAWriteOfAnotherTable() throws SQLException {
+        QueryCache cache = new QueryCache(10, 1_000_000);
+
+        cache.load("q", TTL_MILLIS, () -> {
+            cache.invalidate("room");
+            return new int[] { 1 };
+        }, "student");
+
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() throws SQLException {
+        QueryCache cache = new QueryCache(2, 1_000_000);
+        cache.load("a", TTL_MILLIS, loader(1), "t");
+        cache.load("b", TTL_MILLIS, loader(2), "t");
+        cache.load("a", TTL_MILLIS, loader(1), "t");
+
+        cache.load("c", TTL_MILLIS, loader(3), "t");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        cache.load("a", TTL_MILLIS, loader(1), "t");
+        assertEquals(3, loadCount.get());
+        cache.load("b", TTL_MILLIS, loader(2), "t");
+        assertEquals(4, loadCount.get());
+    }
+
+    @Test
+    void staysWithinItsByteBound() throws SQLException {
+        QueryCache cache = new QueryCache(100, 1_000);
+
+        cache.load("small", TTL_MILLIS, loader(1), "t");
+        cache.load("large", TTL_MILLIS, loader(new int[200]), "t");
+
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(96 + 2 * "large".length() + 4 * 200, cache.getBytes());
+    }
+
+    @Test
+    void doesNotKeepAnEntryLargerThanTheByteBound() throws SQLException {
+        QueryCache cache = new QueryCache(100, 1_000);
+
+        cache.load("huge", TTL_MILLIS, loader(new int[300]), "t");
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+    }
+
+    @Test
+    void doesNotCacheFailedLoads() {
+        QueryCache cache = new QueryCache(10, 1_000_000);
+
+        assertThrows(SQLException.class, () -> cache.load("q", TTL_MILLIS, () -> {
+            throw new SQLException("failed");
+        }, "t"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getMisses());
+    }
+}
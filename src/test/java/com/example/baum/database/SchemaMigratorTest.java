@@ -0,0 +1,48 @@
+package com.example.baum.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+class SchemaMigratorTest {
+    private static final Path MIGRATION_DIRECTORY = Path.of("src/main/resources/com/example/baum/migration");
+
+    @Test
+    void listsEveryPackagedMigrationInVersionOrder() throws IOException {
+        List<String> packaged;
+        try (Stream<Path> files = Files.list(MIGRATION_DIRECTORY)) {
+            packaged = files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.matches("V\\d+__.+\\.sql"))
+                    .sorted((a, b) -> Integer.compare(version(a), version(b)))
+                    .toList();
+        }
+
+        assertEquals(packaged, List.of(SchemaMigrator.MIGRATIONS));
+    }
+
+    @Test
+    void everyMigrationSplitsIntoStatements() throws IOException {
+        for (String name : SchemaMigrator.MIGRATIONS) {
+            String script = Files.readString(MIGRATION_DIRECTORY.resolve(name));
+
+            assertFalse(SqlScript.split(script).isEmpty(), name);
+        }
+    }
+
+    /**
+     * Returns the version of a migration file name.
+     *
+     * @param name the file name
+     * @return the version
+     */
+    private static int version(String name) {
+        return Integer.parseInt(name.substring(1, name.indexOf("__")));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.baum.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SqlScriptTest {
+
+    @Test
+    void splitsOnSemicolonsAndTrims() {
+        assertEquals(List.of("CREATE TABLE a (id INT)", "DROP TABLE b"),
+                SqlScript.split("  CREATE TABLE a (id INT);\n\nDROP TABLE b;  \n"));
+    }
+
+    @Test
+    void keepsALastStatementWithoutSemicolon() {
+        assertEquals(List.of("SELECT 1", "SELECT 2"), SqlScript.split("SELECT 1; SELECT 2"));
+    }
+
+    @Test
+    void skipsEmptyStatements() {
+        assertEquals(List.of("SELECT 1"), SqlScript.split(";;SELECT 1;;\n;"));
+    }
+
+    @Test
+    void keepsSemicolonsInsideQuotes() {
+        assertEquals(List.of("INSERT INTO t VALUES ('a;b', \"c;d\")", "SELECT `x;y` FROM t"),
+                SqlScript.split("INSERT INTO t VALUES ('a;b', \"c;d\"); SELECT `x;y` FROM t;"));
+    }
+
+    @Test
+    void handlesDoubledAndEscapedQuotes() {
+        assertEquals(List.of("SELECT 'it''s; fine'", "SELECT 'back\\'slash;'"),
+                SqlScript.split("SELECT 'it''s; fine'; SELECT 'back\\'slash;';"));
+    }
+
+    @Test
+    void removesLineComments() {
+        assertEquals(List.of("SELECT 1", "SELECT 2"),
+                SqlScript.split("-- first; comment\nSELECT 1; # second; comment\nSELECT 2;"));
+    }
+
+    @Test
+    void keepsADoubleDashWithoutFollowingSpace() {
+        assertEquals(List.of("SELECT 5--1"), SqlScript.split("SELECT 5--1;"));
+    }
+
+    @Test
+    void replacesBlockCommentsWithASpace() {
+        assertEquals(List.of("SELECT 1 FROM t"), SqlScript.split("SELECT 1/* a; b */FROM t;"));
+    }
+
+    @Test
+    void keepsCommentMarkersInsideStrings() {
+        assertEquals(List.of("SELECT '-- not a comment', '/* nor this */'"),
+                SqlScript.split("SELECT '-- not a comment', '/* nor this */';"));
+    }
+
+    @Test
+    void toleratesUnterminatedQuotesAndComments() {
+        assertEquals(List.of("SELECT 'open;"), SqlScript.split("SELECT 'open;"));
+        assertEquals(List.of("SELECT 1"), SqlScript.split("SELECT 1; /* open"));
+    }
+}
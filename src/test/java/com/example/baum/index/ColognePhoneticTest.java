@@ -0,0 +1,51 @@
+package com.example.baum.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class ColognePhoneticTest {
+
+    @Test
+    void encodesReferenceExamples() {
+        assertEquals("65752682", ColognePhonetic.encode("Müller-Lüdenscheidt"));
+        assertEquals("3412", ColognePhonetic.encode("Wikipedia"));
+        assertEquals("17863", ColognePhonetic.encode("Breschnew"));
+    }
+
+    @Test
+    void encodesSpellingVariantsAlike() {
+        assertEquals("67", ColognePhonetic.encode("Meier"));
+        assertEquals("67", ColognePhonetic.encode("Mayer"));
+        assertEquals("67", ColognePhonetic.encode("Maier"));
+        assertEquals(ColognePhonetic.encode("Schmidt"), ColognePhonetic.encode("Schmitt"));
+        assertEquals(ColognePhonetic.encode("Fassbinder"), ColognePhonetic.encode("Faßbinder"));
+    }
+
+    @Test
+    void keepsOnlyALeadingVowel() {
+        assertEquals("06", ColognePhonetic.encode("Anna"));
+        assertEquals("0485", ColognePhonetic.encode("Axel"));
+    }
+
+    @Test
+    void encodesXAsKsUnlessAfterCkOrQ() {
+        assertEquals("4837", ColognePhonetic.encode("Xaver"));
+        assertEquals("148", ColognePhonetic.encode("Becks"));
+    }
+
+    @Test
+    void encodesCByItsNeighbors() {
+        assertEquals("468", ColognePhonetic.encode("Chemnitz"));
+        assertEquals("47823", ColognePhonetic.encode("Christoph"));
+        assertEquals("8627", ColognePhonetic.encode("Schneider"));
+    }
+
+    @Test
+    void ignoresCaseAndNonLetters() {
+        assertEquals(ColognePhonetic.encode("Zimmermann"), ColognePhonetic.encode("ZIMMER mann!"));
+        assertEquals("", ColognePhonetic.encode("123"));
+        assertEquals("", ColognePhonetic.encode(""));
+        assertEquals("", ColognePhonetic.encode(null));
+    }
+}
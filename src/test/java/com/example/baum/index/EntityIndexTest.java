@@ -0,0 +1,83 @@
+package com.example.baum.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.baum.room.Room;
+
+class EntityIndexTest {
+
+    @Test
+    void indexesTheInitialList() {
+        Room first = new Room(1, "A101");
+        Room second = new Room(2, "B202");
+        ObservableList<Room> rooms = FXCollections.observableArrayList(first, second);
+
+        EntityIndex<Room> index = new EntityIndex<>(rooms, Room::getId, Room::getName);
+
+        assertEquals(2, index.size());
+        assertSame(first, index.getById(1));
+        assertSame(second, index.getByName("B202"));
+    }
+
+    @Test
+    void followsAdditionsAndRemovals() {
+        ObservableList<Room> rooms = FXCollections.observableArrayList();
+        EntityIndex<Room> index = new EntityIndex<>(rooms, Room::getId, Room::getName);
+        Room room = new Room(5, "Lab");
+
+        rooms.add(room);
+        assertSame(room, index.getById(5));
+
+        rooms.remove(room);
+        assertNull(index.getById(5));
+        assertNull(index.getByName("Lab"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void reindexesARenamedEntitySetAgain() {
+        Room room = new Room(1, "Old");
+        ObservableList<Room> rooms = FXCollections.observableArrayList(room);
+        EntityIndex<Room> index = new EntityIndex<>(rooms, Room::getId, Room::getName);
+
+        room.setName("New");
+        rooms.set(0, room);
+
+        assertNull(index.getByName("Old"));
+        assertSame(room, index.getByName("New"));
+        assertSame(room, index.getById(1));
+    }
+
+    @Test
+    void keepsOtherEntitiesWithTheSameName() {
+        Room first = new Room(1, "Hall");
+        Room second = new Room(2, "Hall");
+        ObservableList<Room> rooms = FXCollections.observableArrayList(first, second);
+        EntityIndex<Room> index = new EntityIndex<>(rooms, Room::getId, Room::getName);
+
+        rooms.remove(first);
+
+        assertSame(second, index.getByName("Hall"));
+    }
+
+    @Test
+    void ignoresSorting() {
+        Room first = new Room(1, "B");
+        Room second = new Room(2, "A");
+        ObservableList<Room> rooms = FXCollections.observableArrayList(first, second);
+        EntityIndex<Room> index = new EntityIndex<>(rooms, Room::getId, Room::getName);
+
+        FXCollections.sort(rooms, (a, b) -> a.getName().compareTo(b.getName()));
+
+        assertEquals(2, index.size());
+        assertSame(first, index.getById(1));
+        assertSame(second, index.getByName("A"));
+    }
+}
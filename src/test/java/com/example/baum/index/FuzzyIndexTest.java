@@ -0,0 +1,90 @@
+package com.example.baum.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import org.junit.jupiter.api.Test;
+
+class FuzzyIndexTest {
+    private final Person mueller = new Person("Jürgen", "Müller");
+    private final Person schneider = new Person("Katharina", "Schneider");
+    private final Person fischer = new Person("Stefan", "Fischer");
+    private final ObservableList<Person> people = FXCollections.observableArrayList(mueller, schneider, fischer);
+    private final FuzzyIndex<Person> index = new FuzzyIndex<>(people,
+            List.of(Person::getFirstName, Person::getLastName));
+
+    @Test
+    void findsExactWords() {
+        assertEquals(List.of(schneider), index.search("Schneider", 10));
+    }
+
+    @Test
+    void toleratesTypos() {
+        assertEquals(schneider, index.search("Schnieder", 10).get(0));
+        assertEquals(fischer, index.search("Fisher", 10).get(0));
+        assertEquals(schneider, index.search("Katarina", 10).get(0));
+    }
+
+    @Test
+    void ignoresCaseAndAccents() {
+        assertEquals(mueller, index.search("JURGEN MULLER", 10).get(0));
+    }
+
+    @Test
+    void returnsNothingForUnrelatedTermsOrNoWords() {
+        assertEquals(List.of(), index.search("Wolkenkratzer", 10));
+        assertEquals(List.of(), index.search(" ,. ", 10));
+        assertEquals(List.of(), index.search("Fischer", 0));
+    }
+
+    @Test
+    void ranksTheClosestMatchFirstAndHonorsTheLimit() {
+        Person fischbach = new Person("Stefan", "Fischbach");
+        people.add(fischbach);
+
+        List<Person> results = index.search("Stefan Fischer", 1);
+
+        assertEquals(List.of(fischer), results);
+        assertTrue(index.search("Stefan Fischer", 10).contains(fischbach));
+    }
+
+    @Test
+    void findsTyposAmongManyEntities() {
+        List<Person> filler = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            filler.add(new Person("Anna", "Name" + i));
+        }
+        people.addAll(filler);
+
+        assertEquals(schneider, index.search("Schneidr", 5).get(0));
+    }
+
+    @Test
+    void followsRemovalsAndUpdates() {
+        people.remove(fischer);
+        assertFalse(index.search("Fischer", 10).contains(fischer));
+
+        mueller.lastName = "Wagner";
+        index.update(mueller);
+        assertEquals(mueller, index.search("Wagner", 10).get(0));
+        assertFalse(index.search("Müller", 10).contains(mueller));
+    }
+
+    @Test
+    void staysCorrectAcrossCompactions() {
+        for (int i = 0; i < 3000; i++) {
+            mueller.lastName = "Name" + i;
+            index.update(mueller);
+        }
+
+        assertEquals(mueller, index.search("Name2999", 10).get(0));
+        assertEquals(schneider, index.search("Schneider", 10).get(0));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.baum.index;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class IntHashMapTest {
+
+    @Test
+    void putReplacesAndReturnsPreviousValue() {
+        IntHashMap<String> map = new IntHashMap<>();
+
+        assertNull(map.put(7, "a"));
+        assertEquals("a", map.put(7, "b"));
+        assertEquals("b", map.get(7));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void handlesNegativeAndZeroKeys() {
+        IntHashMap<String> map = new IntHashMap<>();
+        map.put(0, "zero");
+        map.put(-1, "minus one");
+        map.put(Integer.MIN_VALUE, "min");
+
+        assertEquals("zero", map.get(0));
+        assertEquals("minus one", map.get(-1));
+        assertEquals("min", map.get(Integer.MIN_VALUE));
+        assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    void rejectsNullValues() {
+        IntHashMap<String> map = new IntHashMap<>();
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        IntHashMap<Integer> map = new IntHashMap<>(4);
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i * 31, i);
+        }
+
+        assertEquals(10_000, map.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, map.get(i * 31));
+        }
+    }
+
+    @Test
+    void removalKeepsCollidingKeysReachable() {
+        IntHashMap<Integer> map = new IntHashMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int round = 0; round < 20_000; round++) {
+            int key = random.nextInt(500);
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, round), map.put(key, round));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = 0; key < 500; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    void keysAndValuesListEveryMapping() {
+        IntHashMap<String> map = new IntHashMap<>();
+        map.put(3, "c");
+        map.put(1, "a");
+        map.put(2, "b");
+        map.remove(2);
+
+        int[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(new int[] { 1, 3 }, keys);
+        assertEquals(2, map.values().size());
+        assertTrue(map.values().containsAll(List.of("a", "c")));
+    }
+
+    @Test
+    void clearRemovesEverything() {
+        IntHashMap<String> map = new IntHashMap<>();
+        map.put(1, "a");
+        map.put(2, "b");
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        assertEquals(0, map.keys().length);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.baum.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.baum.room.Room;
+
+class PrefixIndexTest {
+    private final Room java = new Room(1, "Java Grundlagen");
+    private final Room advanced = new Room(2, "Advanced Java");
+    private final Room oefen = new Room(3, "Öfen und Heizung");
+    private final ObservableList<Room> rooms = FXCollections.observableArrayList(java, advanced, oefen);
+    private final PrefixIndex<Room> index = new PrefixIndex<>(rooms, Room::getName);
+
+    @Test
+    void findsNamesAndLaterWordsByPrefix() {
+        assertEquals(List.of(advanced), index.search("adv", 10));
+        assertEquals(2, index.search("jav", 10).size());
+        assertEquals(List.of(java), index.search("grund", 10));
+        assertEquals(List.of(), index.search("xyz", 10));
+    }
+
+    @Test
+    void ignoresCaseAndAccents() {
+        assertEquals(List.of(oefen), index.search("OFEN", 10));
+        assertEquals(List.of(oefen), index.search("heiz", 10));
+    }
+
+    @Test
+    void returnsEveryEntityOnceForAnEmptyPrefix() {
+        assertEquals(3, index.search("", 10).size());
+        assertEquals(2, index.search("", 2).size());
+    }
+
+    @Test
+    void doesNotReturnAnEntityTwice() {
+        Room twice = new Room(4, "Java und Java");
+        rooms.add(twice);
+
+        List<Room> results = index.search("java", 10);
+
+        assertEquals(3, results.size());
+        assertEquals(1, results.stream().filter(room -> room == twice).count());
+    }
+
+    @Test
+    void getsByFullNameOnly() {
+        assertSame(java, index.getByName("java grundlagen"));
+        assertNull(index.getByName("java"));
+        assertNull(index.getByName("grundlagen"));
+    }
+
+    @Test
+    void followsRemovalsAndRenames() {
+        rooms.remove(advanced);
+        assertEquals(List.of(java), index.search("java", 10));
+
+        java.setName("Python");
+        rooms.set(rooms.indexOf(java), java);
+        assertEquals(List.of(), index.search("java", 10));
+        assertEquals(List.of(java), index.search("pyth", 10));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void sortsInBulkAdditions() {
+        List<Room> added = new ArrayList<>();
+        for (int i = 999; i >= 0; i--) {
+            added.add(new Room(100 + i, String.format("Raum %03d", i)));
+        }
+        rooms.addAll(added);
+
+        List<Room> results = index.search("raum 12", 100);
+
+        assertEquals(10, results.size());
+        assertEquals("Raum 120", results.get(0).getName());
+        assertEquals("Raum 129", results.get(9).getName());
+        assertEquals(1003, index.size());
+    }
+}
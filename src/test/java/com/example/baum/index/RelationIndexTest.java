@@ -0,0 +1,110 @@
+package com.example.baum.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.baum.course.Course;
+import com.example.baum.room.Room;
+
+class RelationIndexTest {
+    private final Room lab = new Room(1, "Lab");
+    private final Room hall = new Room(2, "Hall");
+    private final ObservableList<Course> courses = FXCollections.observableArrayList();
+    private final RelationIndex<Course> index = new RelationIndex<>(courses, course -> course.getRoom() != null
+            ? course.getRoom().getId() : RelationIndex.NO_RELATION);
+
+    @Test
+    void groupsEntitiesByRelatedId() {
+        Course java = new Course(1, "Java", lab);
+        Course sql = new Course(2, "SQL", hall);
+        Course web = new Course(3, "Web", lab);
+        courses.addAll(java, sql, web);
+
+        assertEquals(List.of(java, web), index.get(1));
+        assertEquals(List.of(sql), index.get(2));
+        assertEquals(2, index.count(1));
+        assertEquals(List.of(), index.get(3));
+        assertEquals(0, index.count(3));
+    }
+
+    @Test
+    void leavesOutEntitiesWithoutRelation() {
+        Course unassigned = new Course(1, "Unassigned", null);
+        courses.add(unassigned);
+
+        assertEquals(List.of(), index.get(RelationIndex.NO_RELATION));
+
+        unassigned.roomProperty().set(lab);
+        index.update(unassigned);
+        assertEquals(List.of(unassigned), index.get(1));
+    }
+
+    @Test
+    void movesUpdatedEntitiesToTheirNewGroup() {
+        Course java = new Course(1, "Java", lab);
+        courses.add(java);
+
+        java.roomProperty().set(hall);
+        index.update(java);
+
+        assertEquals(List.of(), index.get(1));
+        assertEquals(List.of(java), index.get(2));
+    }
+
+    @Test
+    void regroupsEntitiesSetAgainInTheList() {
+        Course java = new Course(1, "Java", lab);
+        courses.add(java);
+
+        java.roomProperty().set(hall);
+        courses.set(0, java);
+
+        assertEquals(0, index.count(1));
+        assertEquals(List.of(java), index.get(2));
+    }
+
+    @Test
+    void keepsOrderAndCountsAcrossManyRemovals() {
+        List<Course> added = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            added.add(new Course(i, "Course " + i, lab));
+        }
+        courses.addAll(added);
+
+        List<Course> kept = new ArrayList<>();
+        for (int i = 0; i < added.size(); i++) {
+            if (i % 7 == 0) {
+                kept.add(added.get(i));
+            } else {
+                courses.remove(added.get(i));
+            }
+        }
+
+        assertEquals(kept, index.get(1));
+        assertEquals(kept.size(), index.count(1));
+
+        // Entities removed after a compaction are still found at their position
+        courses.remove(kept.get(3));
+        kept.remove(3);
+        assertEquals(kept, index.get(1));
+    }
+
+    @Test
+    void dropsEmptyGroups() {
+        Course java = new Course(1, "Java", lab);
+        courses.add(java);
+        courses.clear();
+
+        assertEquals(0, index.count(1));
+
+        courses.add(java);
+        assertEquals(List.of(java), index.get(1));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.baum.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import org.junit.jupiter.api.Test;
+
+class TextIndexTest {
+    private final Person anna = new Person("Anna", "Schmidt");
+    private final Person bernd = new Person("Bernd", "Schulz");
+    private final Person clara = new Person("Clara", "Annaberg");
+    private final ObservableList<Person> people = FXCollections.observableArrayList(anna, bernd, clara);
+    private final TextIndex<Person> index = new TextIndex<>(people,
+            List.of(Person::getFirstName, Person::getLastName));
+
+    @Test
+    void findsSubstringsIgnoringCase() {
+        assertEquals(List.of(anna, clara), index.search("ANN"));
+        assertEquals(List.of(anna, bernd), index.search("sch"));
+        assertEquals(List.of(), index.search("xyz"));
+    }
+
+    @Test
+    void answersShortTermsByScanning() {
+        assertEquals(List.of(bernd), index.search("z"));
+        assertEquals(List.of(anna, bernd, clara), index.search(""));
+    }
+
+    @Test
+    void doesNotMatchAcrossFields() {
+        assertEquals(List.of(), index.search("aschm"));
+        assertEquals(List.of(), index.search("a schmidt"));
+    }
+
+    @Test
+    void findsRareTermsAmongManyEntities() {
+        List<Person> filler = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            filler.add(new Person("Max", "Muster" + i));
+        }
+        people.addAll(filler);
+
+        assertEquals(List.of(bernd), index.search("bernd"));
+        assertEquals(List.of(filler.get(1234)), index.search("muster1234"));
+        assertEquals(2000, index.search("max").size());
+    }
+
+    @Test
+    void followsRemovalsFromTheList() {
+        people.remove(anna);
+
+        assertEquals(List.of(clara), index.search("anna"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void reindexesAnUpdatedEntity() {
+        bernd.lastName = "Zimmermann";
+        index.update(bernd);
+
+        assertEquals(List.of(bernd), index.search("zimmer"));
+        assertEquals(List.of(anna), index.search("sch"));
+    }
+
+    @Test
+    void rereadsEveryEntityAfterInvalidation() {
+        clara.lastName = "Berg";
+        index.invalidate();
+
+        assertEquals(List.of(anna), index.search("anna"));
+        assertEquals(List.of(clara), index.search("berg"));
+    }
+
+    @Test
+    void staysCorrectAcrossCompactions() {
+        for (int i = 0; i < 5000; i++) {
+            anna.lastName = "Name" + i;
+            index.update(anna);
+        }
+
+        assertEquals(List.of(anna), index.search("name4999"));
+        assertEquals(List.of(), index.search("name4998"));
+        assertEquals(List.of(bernd), index.search("schulz"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void refinesOnlyTheCandidates() {
+        assertEquals(List.of(clara), index.refine(List.of(bernd, clara), "ann"));
+        assertTrue(index.matches(anna, "MIDT"));
+        assertFalse(index.matches(anna, "schulz"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.baum.student;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.baum.company.Company;
+import com.example.baum.course.Course;
+
+class StudentQueryTest {
+    private final Course java = new Course(1, "Java", null);
+    private final Course web = new Course(2, "Web", null);
+    private final Company acme = new Company(10, "Acme");
+    private final Company initech = new Company(11, "Initech");
+
+    @Test
+    void matchesEveryStudentWithoutCriteria() {
+        StudentQuery query = StudentQuery.builder().build();
+        List<Object> parameters = new ArrayList<>();
+
+        assertNull(query.toSqlCondition(parameters));
+        assertTrue(parameters.isEmpty());
+        assertTrue(query.toPredicate().test(new Student("Anna", "Schmidt", 0, java, acme)));
+        assertEquals(StudentQuery.DEFAULT_LIMIT, query.getLimit());
+    }
+
+    @Test
+    void compilesEveryCriterionToSql() {
+        StudentQuery query = StudentQuery.builder()
+                .javaSkillsBetween(40, 80)
+                .inCourses(List.of(java, web))
+                .atCompanies(List.of(acme))
+                .namePrefix(" Sch_ ")
+                .build();
+        List<Object> parameters = new ArrayList<>();
+
+        String condition = query.toSqlCondition(parameters);
+
+        assertEquals("s.javaskills BETWEEN ? AND ? AND s.course_id IN (?, ?) AND s.company_id IN (?) "
+                + "AND (s.name LIKE ? OR s.surname LIKE ?)", condition);
+        assertEquals(40, parameters.get(0));
+        assertEquals(80, parameters.get(1));
+        assertTrue(parameters.subList(2, 4).containsAll(List.of(1, 2)));
+        assertEquals(List.of(10, "sch\\_%", "sch\\_%"), parameters.subList(4, 7));
+    }
+
+    @Test
+    void compilesAnEmptySetToFalse() {
+        StudentQuery query = StudentQuery.builder().inCourses(List.of()).build();
+
+        assertEquals("FALSE", query.toSqlCondition(new ArrayList<>()));
+        assertFalse(query.toPredicate().test(new Student("Anna", "Schmidt", 50, java, acme)));
+    }
+
+    @Test
+    void predicateMatchesTheSameCriteria() {
+        Predicate<Student> predicate = StudentQuery.builder()
+                .javaSkillsBetween(40, 80)
+                .inCourses(List.of(java))
+                .atCompanies(List.of(acme))
+                .namePrefix("sch")
+                .build()
+                .toPredicate();
+
+        assertTrue(predicate.test(new Student("Anna", "Schmidt", 40, java, acme)));
+        assertTrue(predicate.test(new Student("Schorsch", "Meier", 80, java, acme)));
+        assertFalse(predicate.test(new Student("Anna", "Schmidt", 81, java, acme)));
+        assertFalse(predicate.test(new Student("Anna", "Schmidt", 50, web, acme)));
+        assertFalse(predicate.test(new Student("Anna", "Schmidt", 50, java, initech)));
+        assertFalse(predicate.test(new Student("Anna", "Meier", 50, java, acme)));
+        assertFalse(predicate.test(new Student("Anna", "Schmidt", 50, null, acme)));
+    }
+
+    @Test
+    void ignoresAFullSkillsRangeAndABlankPrefix() {
+        StudentQuery query = StudentQuery.builder().javaSkillsBetween(0, 100).namePrefix("  ").build();
+
+        assertNull(query.toSqlCondition(new ArrayList<>()));
+        assertEquals(1.0, query.javaSkillsShare());
+    }
+
+    @Test
+    void rejectsInvalidRangesAndLimits() {
+        assertThrows(IllegalArgumentException.class, () -> StudentQuery.builder().javaSkillsBetween(60, 50));
+        assertThrows(IllegalArgumentException.class, () -> StudentQuery.builder().limit(-1));
+    }
+}